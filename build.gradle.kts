@@ -34,6 +34,10 @@ dependencies {
 
     implementation("com.google.zxing:core:3.5.3")
     implementation("com.google.zxing:javase:3.5.3")
+
+    testImplementation(platform("org.junit:junit-bom:5.11.4"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 }
 
 application {
@@ -69,6 +73,10 @@ tasks.named<Jar>("jar") {
     enabled = false
 }
 
+tasks.test {
+    useJUnitPlatform()
+}
+
 tasks.withType<JavaExec>().configureEach {
     timeout.set(Duration.ofMinutes(10))
 }
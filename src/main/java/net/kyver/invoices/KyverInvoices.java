@@ -10,9 +10,11 @@ import net.kyver.invoices.command.InvoiceCommand;
 import net.kyver.invoices.data.DatabaseManager;
 import net.kyver.invoices.handler.ComponentHandler;
 import net.kyver.invoices.manager.ConfigManager;
+import net.kyver.invoices.manager.ExecutorManager;
 import net.kyver.invoices.manager.LoggingManager;
 import net.kyver.invoices.manager.PaymentManager;
 import net.kyver.invoices.manager.WebApiManager;
+import net.kyver.invoices.service.OutboxDispatcher;
 
 public class KyverInvoices {
 
@@ -66,6 +68,8 @@ public class KyverInvoices {
             logger.info("Registering Discord components...");
             registerDiscordComponents();
 
+            OutboxDispatcher.start(jda, configManager);
+
             logger.info("Starting web API for webhook handling...");
             webApiManager = new WebApiManager(configManager);
             webApiManager.startServer();
@@ -93,13 +97,23 @@ public class KyverInvoices {
                 }
             }
 
+            if (OutboxDispatcher.getInstance() != null) {
+                OutboxDispatcher.getInstance().shutdown();
+                logger.info("✅ Discord outbox dispatcher stopped");
+            }
+
             if (jda != null) {
                 jda.shutdown();
                 logger.info("✅ Discord connection closed");
             }
 
+            ExecutorManager.getInstance().shutdown();
+            logger.info("✅ Worker pools stopped");
+
             if (databaseManager != null) {
                 try {
+                    DatabaseManager.getDataMethods().flush();
+                    logger.info("✅ Pending database writes flushed");
                     DatabaseManager.getDataMethods().close();
                     logger.info("✅ Database connection closed");
                 } catch (Exception e) {
@@ -0,0 +1,102 @@
+package net.kyver.invoices.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import net.kyver.invoices.manager.LoggingManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+public class HttpExchangeAdapter implements HttpHandler {
+
+    private static final LoggingManager logger = LoggingManager.getLogger(HttpExchangeAdapter.class);
+    private final WebRoute route;
+    private final int maxBodyBytes;
+    private final Executor executor;
+    private final int retryAfterSeconds;
+
+    public HttpExchangeAdapter(WebRoute route, int maxBodyBytes, Executor executor, int retryAfterSeconds) {
+        this.route = route;
+        this.maxBodyBytes = maxBodyBytes;
+        this.executor = executor;
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        WebRequest request;
+        try {
+            byte[] body = readBody(exchange);
+            if (body == null) {
+                send(exchange, WebResponse.json(413, "{\"error\":\"Request body too large\"}"));
+                return;
+            }
+
+            Map<String, String> headers = new HashMap<>();
+            exchange.getRequestHeaders().forEach((key, values) -> {
+                if (!values.isEmpty()) {
+                    headers.put(key.toLowerCase(), values.get(0));
+                }
+            });
+            request = new WebRequest(exchange.getRequestMethod(), exchange.getRequestURI().getPath(), headers, body);
+        } catch (Exception e) {
+            logger.error("Failed to read request for " + exchange.getRequestURI().getPath(), e);
+            send(exchange, WebResponse.json(500, "{\"error\":\"Internal server error\"}"));
+            return;
+        }
+
+        try {
+            executor.execute(() -> respond(exchange, request));
+        } catch (RejectedExecutionException e) {
+            send(exchange, WebResponse.unavailable(retryAfterSeconds));
+        }
+    }
+
+    private void respond(HttpExchange exchange, WebRequest request) {
+        WebResponse response;
+        try {
+            response = route.handle(request);
+        } catch (Exception e) {
+            logger.error("Unhandled error serving " + request.getPath(), e);
+            response = WebResponse.json(500, "{\"error\":\"Internal server error\"}");
+        }
+
+        try {
+            send(exchange, response);
+        } catch (IOException e) {
+            logger.debug("Failed to send response for %s: %s", request.getPath(), e.getMessage());
+            exchange.close();
+        }
+    }
+
+    private void send(HttpExchange exchange, WebResponse response) throws IOException {
+        response.getHeaders().forEach((name, value) -> exchange.getResponseHeaders().set(name, value));
+        byte[] body = response.getBody();
+        exchange.sendResponseHeaders(response.getStatus(), body.length == 0 ? -1 : body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    private byte[] readBody(HttpExchange exchange) throws IOException {
+        String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (contentLength != null) {
+            try {
+                if (Long.parseLong(contentLength.trim()) > maxBodyBytes) {
+                    return null;
+                }
+            } catch (NumberFormatException ignored) {
+            }
+        }
+
+        try (InputStream input = exchange.getRequestBody()) {
+            byte[] body = input.readNBytes(maxBodyBytes + 1);
+            return body.length > maxBodyBytes ? null : body;
+        }
+    }
+}
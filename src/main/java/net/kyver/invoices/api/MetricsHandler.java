@@ -0,0 +1,157 @@
+package net.kyver.invoices.api;
+
+import net.kyver.invoices.data.DatabaseManager;
+import net.kyver.invoices.data.storage.CachingStorage;
+import net.kyver.invoices.data.storage.WriteBehindStorage;
+import net.kyver.invoices.manager.ExecutorManager;
+import net.kyver.invoices.manager.PaymentManager;
+import net.kyver.invoices.manager.WebApiManager;
+import net.kyver.invoices.service.OutboxDispatcher;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+public class MetricsHandler {
+
+    private static final Set<String> PLACEHOLDER_TOKENS = Set.of("default_secret", "YOUR_SECURE_JWT_SECRET");
+
+    private final WebApiManager webApiManager;
+    private final byte[] expectedAuthorization;
+
+    public MetricsHandler(WebApiManager webApiManager, String token) {
+        this.webApiManager = webApiManager;
+        this.expectedAuthorization = ("Bearer " + token).getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static boolean isUsableToken(String token) {
+        return token != null && !token.isBlank() && !PLACEHOLDER_TOKENS.contains(token);
+    }
+
+    public WebResponse handleMetrics(WebRequest request) {
+        if (!"GET".equals(request.getMethod())) {
+            return WebResponse.json(405, "{\"error\":\"Method not allowed\"}");
+        }
+
+        String authorization = request.getHeader("Authorization");
+        if (authorization == null
+                || !MessageDigest.isEqual(expectedAuthorization, authorization.getBytes(StandardCharsets.UTF_8))) {
+            return WebResponse.json(401, "{\"error\":\"Unauthorized\"}")
+                    .withHeader("WWW-Authenticate", "Bearer");
+        }
+
+        return WebResponse.json(200, toJson(collectMetrics()));
+    }
+
+    public Map<String, Object> collectMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("timestamp", System.currentTimeMillis());
+
+        CachingStorage invoiceCache = DatabaseManager.getInvoiceCache();
+        if (invoiceCache != null) {
+            metrics.put("invoice_cache", invoiceCache.getStats());
+        }
+
+        WriteBehindStorage writeBehind = DatabaseManager.getWriteBehind();
+        if (writeBehind != null) {
+            metrics.put("write_behind", writeBehind.getStats());
+        }
+
+        metrics.put("payments", PaymentManager.getInstance().getPaymentStats());
+        metrics.put("gateways", PaymentManager.getInstance().getGatewayStats());
+
+        metrics.put("executors", ExecutorManager.getInstance().getStats());
+
+        OutboxDispatcher outboxDispatcher = OutboxDispatcher.getInstance();
+        if (outboxDispatcher != null) {
+            metrics.put("discord_outbox", outboxDispatcher.getStats());
+        }
+
+        WebServerExecutor executor = webApiManager.getExecutor();
+        if (executor != null) {
+            metrics.put("web_executor", executor.getStats());
+        }
+
+        NioHttpServer nioServer = webApiManager.getNioServer();
+        if (nioServer != null) {
+            metrics.put("web_server", nioServer.getStats());
+        }
+
+        WebhookIngestQueue webhookIngestQueue = webApiManager.getWebhookIngestQueue();
+        if (webhookIngestQueue != null) {
+            metrics.put("webhook_queue", webhookIngestQueue.getStats());
+        }
+
+        WebhookDeduplicator webhookDeduplicator = webApiManager.getWebhookDeduplicator();
+        if (webhookDeduplicator != null) {
+            metrics.put("webhook_dedupe", webhookDeduplicator.getStats());
+        }
+
+        return metrics;
+    }
+
+    static String toJson(Object value) {
+        StringBuilder json = new StringBuilder();
+        appendJson(json, value);
+        return json.toString();
+    }
+
+    private static void appendJson(StringBuilder json, Object value) {
+        if (value == null) {
+            json.append("null");
+        } else if (value instanceof Number || value instanceof Boolean) {
+            json.append(value);
+        } else if (value instanceof Map<?, ?> map) {
+            json.append('{');
+            Iterator<? extends Map.Entry<?, ?>> iterator = map.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<?, ?> entry = iterator.next();
+                appendString(json, String.valueOf(entry.getKey()));
+                json.append(':');
+                appendJson(json, entry.getValue());
+                if (iterator.hasNext()) {
+                    json.append(',');
+                }
+            }
+            json.append('}');
+        } else if (value instanceof Collection<?> collection) {
+            json.append('[');
+            Iterator<?> iterator = collection.iterator();
+            while (iterator.hasNext()) {
+                appendJson(json, iterator.next());
+                if (iterator.hasNext()) {
+                    json.append(',');
+                }
+            }
+            json.append(']');
+        } else {
+            appendString(json, value.toString());
+        }
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        json.append('"');
+    }
+}
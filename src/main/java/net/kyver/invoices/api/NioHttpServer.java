@@ -0,0 +1,525 @@
+package net.kyver.invoices.api;
+
+import net.kyver.invoices.manager.LoggingManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+public class NioHttpServer {
+
+    private static final LoggingManager logger = LoggingManager.getLogger(NioHttpServer.class);
+    private static final int INITIAL_BUFFER_SIZE = 8192;
+    private static final long SELECT_TIMEOUT_MS = 1000;
+    private static final byte[] HEADER_TERMINATOR = {'\r', '\n', '\r', '\n'};
+    private static final Set<String> SINGLETON_HEADERS = Set.of("content-length", "transfer-encoding", "host");
+
+    private final int port;
+    private final int maxHeaderBytes;
+    private final int maxBodyBytes;
+    private final long idleTimeoutMillis;
+    private final Map<String, WebRoute> routes = new LinkedHashMap<>();
+    private final Queue<Runnable> pendingWrites = new ConcurrentLinkedQueue<>();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private Executor executor;
+    private int retryAfterSeconds = 1;
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private Thread selectorThread;
+    private volatile boolean running;
+    private volatile int openConnections;
+
+    public NioHttpServer(int port, int maxHeaderBytes, int maxBodyBytes, long idleTimeoutSeconds) {
+        this.port = port;
+        this.maxHeaderBytes = Math.max(1024, maxHeaderBytes);
+        this.maxBodyBytes = Math.max(0, maxBodyBytes);
+        this.idleTimeoutMillis = Math.max(1, idleTimeoutSeconds) * 1000;
+    }
+
+    public void createContext(String path, WebRoute route) {
+        routes.put(path, route);
+    }
+
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    public void setRetryAfterSeconds(int retryAfterSeconds) {
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+    }
+
+    public void start() throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+        running = true;
+        selectorThread = new Thread(this::runLoop, "web-api-selector");
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+
+        logger.info("NIO HTTP server listening on port %d (%d byte headers, %d byte bodies, %ds idle timeout)",
+                port, maxHeaderBytes, maxBodyBytes, idleTimeoutMillis / 1000);
+    }
+
+    public void stop() {
+        running = false;
+        if (selector != null) {
+            selector.wakeup();
+        }
+        if (selectorThread != null) {
+            try {
+                selectorThread.join(SELECT_TIMEOUT_MS * 2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void runLoop() {
+        long lastSweep = System.currentTimeMillis();
+
+        try {
+            while (running) {
+                selector.select(SELECT_TIMEOUT_MS);
+
+                Runnable write;
+                while ((write = pendingWrites.poll()) != null) {
+                    write.run();
+                }
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+
+                    try {
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        if (key.isAcceptable()) {
+                            accept();
+                        } else if (key.isReadable()) {
+                            read(key);
+                        } else if (key.isWritable()) {
+                            write(key);
+                        }
+                    } catch (IOException e) {
+                        logger.debug("Connection error: %s", e.getMessage());
+                        close(key);
+                    }
+                }
+
+                long now = System.currentTimeMillis();
+                if (now - lastSweep >= SELECT_TIMEOUT_MS) {
+                    closeIdleConnections(now);
+                    lastSweep = now;
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            if (running) {
+                logger.error("NIO HTTP server selector failed", e);
+            }
+        } finally {
+            closeAll();
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        channel.register(selector, SelectionKey.OP_READ, new Connection(channel, System.currentTimeMillis() + idleTimeoutMillis));
+        accepted.increment();
+        openConnections++;
+    }
+
+    private void read(SelectionKey key) throws IOException {
+        Connection connection = (Connection) key.attachment();
+        if (connection.buffer.position() == 0) {
+            connection.deadline = System.currentTimeMillis() + idleTimeoutMillis;
+        }
+
+        if (!connection.buffer.hasRemaining()) {
+            connection.grow(Math.min(connection.buffer.capacity() * 2, maxHeaderBytes));
+        }
+
+        int read = connection.channel.read(connection.buffer);
+        if (read < 0) {
+            close(key);
+            return;
+        }
+
+        processBuffered(key, connection);
+    }
+
+    private void processBuffered(SelectionKey key, Connection connection) {
+        ByteBuffer buffer = connection.buffer;
+
+        if (connection.headerEnd < 0) {
+            int terminator = indexOf(buffer, HEADER_TERMINATOR);
+            if (terminator < 0 ? buffer.position() >= maxHeaderBytes : terminator + HEADER_TERMINATOR.length > maxHeaderBytes) {
+                reject(key, connection, 431, "Request header fields too large");
+                return;
+            }
+            if (terminator < 0) {
+                return;
+            }
+
+            connection.headerEnd = terminator + HEADER_TERMINATOR.length;
+            if (!parseHead(key, connection)) {
+                return;
+            }
+
+            int required = connection.headerEnd + connection.contentLength;
+            if (buffer.capacity() < required) {
+                connection.grow(required);
+            }
+        }
+
+        if (connection.buffer.position() < connection.headerEnd + connection.contentLength) {
+            return;
+        }
+
+        byte[] body = new byte[connection.contentLength];
+        connection.buffer.get(connection.headerEnd, body);
+        connection.compact(connection.headerEnd + connection.contentLength);
+        connection.headerEnd = -1;
+
+        WebRequest request = new WebRequest(connection.method, connection.path, connection.headers, body);
+        key.interestOps(0);
+        requests.increment();
+        dispatch(key, connection, request);
+    }
+
+    private boolean parseHead(SelectionKey key, Connection connection) {
+        ByteBuffer buffer = connection.buffer;
+        String head = new String(buffer.array(), 0, connection.headerEnd - HEADER_TERMINATOR.length, StandardCharsets.ISO_8859_1);
+        String[] lines = head.split("\r\n");
+        String[] requestLine = lines[0].split(" ");
+
+        if (requestLine.length != 3 || !requestLine[2].startsWith("HTTP/1.")) {
+            reject(key, connection, 400, "Malformed request line");
+            return false;
+        }
+
+        Map<String, String> headers = new HashMap<>();
+        for (int i = 1; i < lines.length; i++) {
+            int separator = lines[i].indexOf(':');
+            if (separator <= 0) {
+                reject(key, connection, 400, "Malformed header");
+                return false;
+            }
+            String name = lines[i].substring(0, separator).toLowerCase(Locale.ROOT);
+            if (!isToken(name)) {
+                reject(key, connection, 400, "Malformed header");
+                return false;
+            }
+
+            String value = lines[i].substring(separator + 1).trim();
+            String previous = headers.putIfAbsent(name, value);
+            if (previous != null) {
+                if (SINGLETON_HEADERS.contains(name)) {
+                    reject(key, connection, 400, "Duplicate " + name + " header");
+                    return false;
+                }
+                headers.put(name, previous + ", " + value);
+            }
+        }
+
+        if (headers.containsKey("transfer-encoding")) {
+            if (headers.containsKey("content-length")) {
+                reject(key, connection, 400, "Content-Length conflicts with Transfer-Encoding");
+                return false;
+            }
+            reject(key, connection, 411, "Content-Length required");
+            return false;
+        }
+
+        long contentLength = 0;
+        String lengthHeader = headers.get("content-length");
+        if (lengthHeader != null) {
+            if (lengthHeader.isEmpty() || !lengthHeader.chars().allMatch(c -> c >= '0' && c <= '9')) {
+                reject(key, connection, 400, "Invalid Content-Length");
+                return false;
+            }
+            try {
+                contentLength = Long.parseLong(lengthHeader);
+            } catch (NumberFormatException e) {
+                reject(key, connection, 400, "Invalid Content-Length");
+                return false;
+            }
+        }
+
+        if (contentLength < 0) {
+            reject(key, connection, 400, "Invalid Content-Length");
+            return false;
+        }
+        if (contentLength > maxBodyBytes) {
+            reject(key, connection, 413, "Request body too large");
+            return false;
+        }
+
+        String target = requestLine[1];
+        int query = target.indexOf('?');
+        String connectionHeader = headers.getOrDefault("connection", "").toLowerCase(Locale.ROOT);
+
+        connection.method = requestLine[0];
+        connection.path = query >= 0 ? target.substring(0, query) : target;
+        connection.headers = headers;
+        connection.contentLength = (int) contentLength;
+        connection.keepAlive = requestLine[2].equals("HTTP/1.1")
+                ? !connectionHeader.equals("close")
+                : connectionHeader.equals("keep-alive");
+        return true;
+    }
+
+    private static boolean isToken(String name) {
+        if (name.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c <= ' ' || c >= 0x7f || "\"(),/:;<=>?@[\\]{}".indexOf(c) >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void dispatch(SelectionKey key, Connection connection, WebRequest request) {
+        Runnable task = () -> {
+            WebResponse response;
+            try {
+                WebRoute route = findRoute(request.getPath());
+                response = route != null
+                        ? route.handle(request)
+                        : WebResponse.json(404, "{\"error\":\"Not found\"}");
+            } catch (Exception e) {
+                logger.error("Unhandled error serving " + request.getPath(), e);
+                response = WebResponse.json(500, "{\"error\":\"Internal server error\"}");
+            }
+
+            byte[] encoded = encode(response, connection.keepAlive);
+            pendingWrites.add(() -> startWrite(key, connection, encoded));
+            selector.wakeup();
+        };
+
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            connection.keepAlive = false;
+            startWrite(key, connection, encode(WebResponse.unavailable(retryAfterSeconds), false));
+        }
+    }
+
+    private WebRoute findRoute(String path) {
+        WebRoute match = null;
+        int matchLength = -1;
+        for (Map.Entry<String, WebRoute> entry : routes.entrySet()) {
+            String prefix = entry.getKey();
+            if (path.startsWith(prefix) && prefix.length() > matchLength) {
+                match = entry.getValue();
+                matchLength = prefix.length();
+            }
+        }
+        return match;
+    }
+
+    private void reject(SelectionKey key, Connection connection, int status, String message) {
+        rejected.increment();
+        logger.debug("Rejected request from %s: %d %s", connection.remoteAddress(), status, message);
+        connection.keepAlive = false;
+        key.interestOps(0);
+        startWrite(key, connection, encode(WebResponse.json(status, "{\"error\":\"" + message + "\"}"), false));
+    }
+
+    private void startWrite(SelectionKey key, Connection connection, byte[] response) {
+        if (!key.isValid()) {
+            return;
+        }
+
+        connection.output = ByteBuffer.wrap(response);
+        connection.deadline = System.currentTimeMillis() + idleTimeoutMillis;
+        key.interestOps(SelectionKey.OP_WRITE);
+    }
+
+    private void write(SelectionKey key) throws IOException {
+        Connection connection = (Connection) key.attachment();
+        connection.channel.write(connection.output);
+        if (connection.output.hasRemaining()) {
+            return;
+        }
+
+        connection.output = null;
+        if (!connection.keepAlive) {
+            close(key);
+            return;
+        }
+
+        connection.deadline = System.currentTimeMillis() + idleTimeoutMillis;
+        key.interestOps(SelectionKey.OP_READ);
+        if (connection.buffer.position() > 0) {
+            processBuffered(key, connection);
+        }
+    }
+
+    private void closeIdleConnections(long now) {
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof Connection connection && key.interestOps() != 0 && now > connection.deadline) {
+                timedOut.increment();
+                close(key);
+            }
+        }
+    }
+
+    private void close(SelectionKey key) {
+        key.cancel();
+        if (key.attachment() instanceof Connection connection) {
+            try {
+                connection.channel.close();
+            } catch (IOException ignored) {
+            }
+            openConnections--;
+        }
+    }
+
+    private void closeAll() {
+        try {
+            for (SelectionKey key : selector.keys()) {
+                close(key);
+            }
+            serverChannel.close();
+            selector.close();
+        } catch (IOException | ClosedSelectorException e) {
+            logger.debug("Error closing NIO HTTP server: %s", e.getMessage());
+        }
+    }
+
+    private static byte[] encode(WebResponse response, boolean keepAlive) {
+        byte[] body = response.getBody();
+        StringBuilder head = new StringBuilder(128)
+                .append("HTTP/1.1 ").append(response.getStatus()).append(' ').append(reasonPhrase(response.getStatus())).append("\r\n")
+                .append("Content-Length: ").append(body.length).append("\r\n")
+                .append("Connection: ").append(keepAlive ? "keep-alive" : "close").append("\r\n");
+        response.getHeaders().forEach((name, value) -> head.append(name).append(": ").append(value).append("\r\n"));
+        head.append("\r\n");
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream(head.length() + body.length);
+        output.writeBytes(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+        output.writeBytes(body);
+        return output.toByteArray();
+    }
+
+    private static String reasonPhrase(int status) {
+        return switch (status) {
+            case 200 -> "OK";
+            case 400 -> "Bad Request";
+            case 401 -> "Unauthorized";
+            case 404 -> "Not Found";
+            case 405 -> "Method Not Allowed";
+            case 411 -> "Length Required";
+            case 413 -> "Payload Too Large";
+            case 431 -> "Request Header Fields Too Large";
+            case 500 -> "Internal Server Error";
+            case 503 -> "Service Unavailable";
+            default -> "Unknown";
+        };
+    }
+
+    private static int indexOf(ByteBuffer buffer, byte[] pattern) {
+        byte[] data = buffer.array();
+        int limit = buffer.position() - pattern.length;
+        outer:
+        for (int i = 0; i <= limit; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (data[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("open_connections", openConnections);
+        stats.put("accepted_connections", accepted.sum());
+        stats.put("requests", requests.sum());
+        stats.put("rejected_requests", rejected.sum());
+        stats.put("idle_timeouts", timedOut.sum());
+        stats.put("max_body_bytes", maxBodyBytes);
+        return stats;
+    }
+
+    private static class Connection {
+        private final SocketChannel channel;
+        private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        private ByteBuffer output;
+        private long deadline;
+        private int headerEnd = -1;
+        private int contentLength;
+        private String method;
+        private String path;
+        private Map<String, String> headers;
+        private boolean keepAlive;
+
+        private Connection(SocketChannel channel, long deadline) {
+            this.channel = channel;
+            this.deadline = deadline;
+        }
+
+        private void grow(int capacity) {
+            if (capacity <= buffer.capacity()) {
+                return;
+            }
+            ByteBuffer larger = ByteBuffer.allocate(capacity);
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+        }
+
+        private void compact(int consumed) {
+            buffer.flip();
+            buffer.position(consumed);
+            buffer.compact();
+        }
+
+        private String remoteAddress() {
+            try {
+                return String.valueOf(channel.getRemoteAddress());
+            } catch (IOException e) {
+                return "unknown";
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package net.kyver.invoices.api;
+
+import net.kyver.invoices.manager.LoggingManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Signature;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+public class PayPalSignatureVerifier {
+
+    private static final LoggingManager logger = LoggingManager.getLogger(PayPalSignatureVerifier.class);
+    private static final String TRUSTED_CERT_HOST_SUFFIX = ".paypal.com";
+    private final String webhookId;
+    private final long certificateTtlMillis;
+    private final CertificateFetcher fetcher;
+    private final Map<String, CachedCertificate> certificates = new ConcurrentHashMap<>();
+
+    public PayPalSignatureVerifier(String webhookId, long certificateTtlSeconds) {
+        this(webhookId, certificateTtlSeconds, new HttpCertificateFetcher());
+    }
+
+    public PayPalSignatureVerifier(String webhookId, long certificateTtlSeconds, CertificateFetcher fetcher) {
+        this.webhookId = webhookId;
+        this.certificateTtlMillis = Math.max(1, certificateTtlSeconds) * 1000;
+        this.fetcher = fetcher;
+    }
+
+    public boolean hasWebhookId() {
+        return webhookId != null && !webhookId.isBlank();
+    }
+
+    public boolean verify(Map<String, String> headers, byte[] body) {
+        String transmissionId = headers.get("paypal-transmission-id");
+        String transmissionTime = headers.get("paypal-transmission-time");
+        String signature = headers.get("paypal-transmission-sig");
+        String certUrl = headers.get("paypal-cert-url");
+        String authAlgo = headers.get("paypal-auth-algo");
+
+        if (transmissionId == null || transmissionTime == null || signature == null || certUrl == null || authAlgo == null) {
+            logger.debug("Missing PayPal signature headers");
+            return false;
+        }
+
+        if (!hasWebhookId()) {
+            logger.warn("PayPal webhook ID not configured");
+            return false;
+        }
+
+        if (!authAlgo.matches("SHA\\d*withRSA")) {
+            logger.warn("Unsupported PayPal signature algorithm: %s", authAlgo);
+            return false;
+        }
+
+        try {
+            X509Certificate certificate = getCertificate(certUrl);
+            if (certificate == null) {
+                return false;
+            }
+
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            String message = transmissionId + "|" + transmissionTime + "|" + webhookId + "|" + crc.getValue();
+
+            Signature verifier = Signature.getInstance(authAlgo);
+            verifier.initVerify(certificate.getPublicKey());
+            verifier.update(message.getBytes(StandardCharsets.UTF_8));
+            return verifier.verify(Base64.getDecoder().decode(signature));
+
+        } catch (IllegalArgumentException e) {
+            logger.debug("PayPal signature is not valid base64");
+            return false;
+        } catch (GeneralSecurityException | IOException e) {
+            logger.error("PayPal signature verification failed", e);
+            return false;
+        }
+    }
+
+    private X509Certificate getCertificate(String certUrl) throws GeneralSecurityException, IOException {
+        CachedCertificate cached = certificates.get(certUrl);
+        if (cached != null && cached.isFresh()) {
+            return cached.certificate;
+        }
+
+        if (!isTrustedCertUrl(certUrl)) {
+            logger.warn("Rejected PayPal certificate URL: %s", certUrl);
+            return null;
+        }
+
+        synchronized (certificates) {
+            cached = certificates.get(certUrl);
+            if (cached != null && cached.isFresh()) {
+                return cached.certificate;
+            }
+
+            X509Certificate certificate = fetcher.fetch(certUrl);
+            certificate.checkValidity();
+            certificates.put(certUrl, new CachedCertificate(certificate, System.currentTimeMillis() + certificateTtlMillis));
+            logger.debug("Cached PayPal certificate from %s", certUrl);
+            return certificate;
+        }
+    }
+
+    private static boolean isTrustedCertUrl(String certUrl) {
+        try {
+            URI uri = URI.create(certUrl);
+            String host = uri.getHost();
+            return "https".equalsIgnoreCase(uri.getScheme()) && host != null
+                    && host.toLowerCase(Locale.ROOT).endsWith(TRUSTED_CERT_HOST_SUFFIX);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    @FunctionalInterface
+    public interface CertificateFetcher {
+        X509Certificate fetch(String certUrl) throws GeneralSecurityException, IOException;
+    }
+
+    public static class HttpCertificateFetcher implements CertificateFetcher {
+
+        private static final Duration TIMEOUT = Duration.ofSeconds(10);
+        private final HttpClient client = HttpClient.newBuilder().connectTimeout(TIMEOUT).build();
+
+        @Override
+        public X509Certificate fetch(String certUrl) throws GeneralSecurityException, IOException {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(certUrl)).timeout(TIMEOUT).GET().build();
+
+            try {
+                HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+                try (InputStream body = response.body()) {
+                    if (response.statusCode() != 200) {
+                        throw new IOException("Certificate download failed with HTTP " + response.statusCode());
+                    }
+                    return (X509Certificate) CertificateFactory.getInstance("X.509").generateCertificate(body);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while downloading PayPal certificate", e);
+            }
+        }
+    }
+
+    private static class CachedCertificate {
+        private final X509Certificate certificate;
+        private final long expiresAt;
+
+        private CachedCertificate(X509Certificate certificate, long expiresAt) {
+            this.certificate = certificate;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isFresh() {
+            return System.currentTimeMillis() < expiresAt;
+        }
+    }
+}
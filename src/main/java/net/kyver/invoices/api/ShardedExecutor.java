@@ -0,0 +1,79 @@
+package net.kyver.invoices.api;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ShardedExecutor {
+
+    private final ThreadPoolExecutor[] shards;
+    private final AtomicInteger unkeyed = new AtomicInteger();
+
+    public ShardedExecutor(String name, int shardCount, int queueCapacity) {
+        this.shards = new ThreadPoolExecutor[Math.max(1, shardCount)];
+        for (int i = 0; i < shards.length; i++) {
+            String threadName = name + "-" + (i + 1);
+            shards[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+                        Thread thread = new Thread(runnable, threadName);
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+    }
+
+    public void execute(String key, Runnable task) {
+        shards[shardFor(key)].execute(task);
+    }
+
+    private int shardFor(String key) {
+        if (key == null) {
+            return Math.floorMod(unkeyed.getAndIncrement(), shards.length);
+        }
+        int hash = key.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), shards.length);
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    public boolean isShutdown() {
+        return shards[0].isShutdown();
+    }
+
+    public List<Integer> getQueueDepths() {
+        List<Integer> depths = new ArrayList<>(shards.length);
+        for (ThreadPoolExecutor shard : shards) {
+            depths.add(shard.getQueue().size() + shard.getActiveCount());
+        }
+        return depths;
+    }
+
+    public void shutdown() {
+        for (ThreadPoolExecutor shard : shards) {
+            shard.shutdown();
+        }
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (ThreadPoolExecutor shard : shards) {
+            if (!shard.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int shutdownNow() {
+        int dropped = 0;
+        for (ThreadPoolExecutor shard : shards) {
+            dropped += shard.shutdownNow().size();
+        }
+        return dropped;
+    }
+}
@@ -0,0 +1,140 @@
+package net.kyver.invoices.api;
+
+import net.kyver.invoices.manager.LoggingManager;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+
+public class StripeSignatureVerifier {
+
+    private static final LoggingManager logger = LoggingManager.getLogger(StripeSignatureVerifier.class);
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int SIGNATURE_LENGTH = 32;
+    private final List<SecretKeySpec> keys;
+    private final long toleranceSeconds;
+    private final List<Mac> prototypes;
+
+    public StripeSignatureVerifier(List<String> secrets, long toleranceSeconds) {
+        this.keys = new ArrayList<>();
+        for (String secret : secrets) {
+            if (secret != null && !secret.isBlank()) {
+                keys.add(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+            }
+        }
+        this.toleranceSeconds = toleranceSeconds;
+        this.prototypes = new ArrayList<>(keys.size());
+        for (SecretKeySpec key : keys) {
+            prototypes.add(createMac(key));
+        }
+    }
+
+    private static Mac createMac(SecretKeySpec key) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    }
+
+    private Mac macFor(int index) {
+        try {
+            return (Mac) prototypes.get(index).clone();
+        } catch (CloneNotSupportedException e) {
+            return createMac(keys.get(index));
+        }
+    }
+
+    public boolean hasSecrets() {
+        return !keys.isEmpty();
+    }
+
+    public boolean verify(String header, byte[] body) {
+        if (header == null || keys.isEmpty()) {
+            return false;
+        }
+
+        String timestamp = null;
+        List<byte[]> signatures = new ArrayList<>(2);
+
+        for (String element : header.split(",")) {
+            int separator = element.indexOf('=');
+            if (separator <= 0) {
+                continue;
+            }
+
+            String key = element.substring(0, separator).trim();
+            String value = element.substring(separator + 1).trim();
+            if (key.equals("t")) {
+                timestamp = value;
+            } else if (key.equals("v1")) {
+                byte[] signature = decodeHex(value);
+                if (signature != null) {
+                    signatures.add(signature);
+                }
+            }
+        }
+
+        if (timestamp == null || signatures.isEmpty()) {
+            logger.debug("Invalid Stripe signature format");
+            return false;
+        }
+
+        if (!isWithinTolerance(timestamp)) {
+            logger.warn("Stripe webhook timestamp %s is outside the %ds tolerance", timestamp, toleranceSeconds);
+            return false;
+        }
+
+        byte[] prefix = (timestamp + ".").getBytes(StandardCharsets.UTF_8);
+
+        for (int i = 0; i < prototypes.size(); i++) {
+            Mac mac = macFor(i);
+            mac.update(prefix);
+            byte[] expected = mac.doFinal(body);
+            for (byte[] signature : signatures) {
+                if (MessageDigest.isEqual(expected, signature)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private boolean isWithinTolerance(String timestamp) {
+        if (toleranceSeconds <= 0) {
+            return true;
+        }
+
+        try {
+            long signedAt = Long.parseLong(timestamp);
+            long now = System.currentTimeMillis() / 1000;
+            return Math.abs(now - signedAt) <= toleranceSeconds;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static byte[] decodeHex(String hex) {
+        if (hex.length() != SIGNATURE_LENGTH * 2) {
+            return null;
+        }
+
+        byte[] bytes = new byte[SIGNATURE_LENGTH];
+        for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+            int high = Character.digit(hex.charAt(i * 2), 16);
+            int low = Character.digit(hex.charAt(i * 2 + 1), 16);
+            if (high < 0 || low < 0) {
+                return null;
+            }
+            bytes[i] = (byte) ((high << 4) | low);
+        }
+        return bytes;
+    }
+}
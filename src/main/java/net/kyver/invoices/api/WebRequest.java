@@ -0,0 +1,35 @@
+package net.kyver.invoices.api;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+public class WebRequest {
+
+    private final String method;
+    private final String path;
+    private final Map<String, String> headers;
+    private final byte[] body;
+
+    public WebRequest(String method, String path, Map<String, String> headers, byte[] body) {
+        this.method = method;
+        this.path = path;
+        this.headers = headers;
+        this.body = body;
+    }
+
+    public String getMethod() { return method; }
+
+    public String getPath() { return path; }
+
+    public Map<String, String> getHeaders() { return headers; }
+
+    public String getHeader(String name) {
+        return headers.get(name.toLowerCase());
+    }
+
+    public byte[] getBody() { return body; }
+
+    public String getBodyAsString() {
+        return new String(body, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,38 @@
+package net.kyver.invoices.api;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class WebResponse {
+
+    private final int status;
+    private final Map<String, String> headers = new LinkedHashMap<>();
+    private final byte[] body;
+
+    public WebResponse(int status, String contentType, byte[] body) {
+        this.status = status;
+        this.body = body;
+        headers.put("Content-Type", contentType);
+        headers.put("Access-Control-Allow-Origin", "*");
+    }
+
+    public static WebResponse json(int status, String json) {
+        return new WebResponse(status, "application/json", json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static WebResponse unavailable(int retryAfterSeconds) {
+        return json(503, "{\"error\":\"Server busy\"}").withHeader("Retry-After", String.valueOf(retryAfterSeconds));
+    }
+
+    public WebResponse withHeader(String name, String value) {
+        headers.put(name, value);
+        return this;
+    }
+
+    public int getStatus() { return status; }
+
+    public Map<String, String> getHeaders() { return headers; }
+
+    public byte[] getBody() { return body; }
+}
@@ -0,0 +1,8 @@
+package net.kyver.invoices.api;
+
+import java.io.IOException;
+
+@FunctionalInterface
+public interface WebRoute {
+    WebResponse handle(WebRequest request) throws IOException;
+}
@@ -0,0 +1,116 @@
+package net.kyver.invoices.api;
+
+import net.kyver.invoices.manager.LoggingManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+public class WebServerExecutor implements Executor {
+
+    private static final LoggingManager logger = LoggingManager.getLogger(WebServerExecutor.class);
+    private static final long SATURATION_LOG_INTERVAL_MS = 10_000;
+
+    public enum Mode {
+        VIRTUAL, BOUNDED, CACHED;
+
+        public static Mode fromConfig(String value) {
+            for (Mode mode : values()) {
+                if (mode.name().equalsIgnoreCase(value)) {
+                    return mode;
+                }
+            }
+            logger.warn("Unknown web_api.executor '%s', using virtual threads", value);
+            return VIRTUAL;
+        }
+    }
+
+    private final Mode mode;
+    private final ExecutorService delegate;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder saturated = new LongAdder();
+    private final AtomicLong lastSaturationLog = new AtomicLong();
+
+    public WebServerExecutor(Mode mode, int maxThreads, int queueSize) {
+        this.mode = mode;
+        this.delegate = switch (mode) {
+            case VIRTUAL -> Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("web-api-virtual-", 0).factory());
+            case BOUNDED -> createBoundedPool(Math.max(1, maxThreads), Math.max(1, queueSize));
+            case CACHED -> Executors.newCachedThreadPool();
+        };
+
+        if (mode == Mode.BOUNDED) {
+            logger.info("Web API executor: bounded pool (%d threads, %d queued requests)", Math.max(1, maxThreads), Math.max(1, queueSize));
+        } else {
+            logger.info("Web API executor: %s", mode == Mode.VIRTUAL ? "virtual thread per request" : "cached thread pool");
+        }
+    }
+
+    private ThreadPoolExecutor createBoundedPool(int maxThreads, int queueSize) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(maxThreads, maxThreads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+                    Thread thread = new Thread(runnable, "web-api-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, (runnable, executor) -> {
+                    if (executor.isShutdown()) {
+                        throw new RejectedExecutionException("Web API executor is shut down");
+                    }
+                    saturated.increment();
+                    logSaturation(executor);
+                    throw new RejectedExecutionException("Web API executor is saturated");
+                });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        submitted.increment();
+        delegate.execute(() -> {
+            peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                command.run();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        });
+    }
+
+    private void logSaturation(ThreadPoolExecutor executor) {
+        long now = System.currentTimeMillis();
+        long last = lastSaturationLog.get();
+        if (now - last >= SATURATION_LOG_INTERVAL_MS && lastSaturationLog.compareAndSet(last, now)) {
+            logger.warn("Web API executor saturated (%d busy threads, %d queued), answering 503 (%d rejected so far)",
+                    executor.getActiveCount(), executor.getQueue().size(), saturated.sum());
+        }
+    }
+
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("mode", mode.name().toLowerCase());
+        stats.put("in_flight", inFlight.get());
+        stats.put("peak_in_flight", peakInFlight.get());
+        stats.put("submitted", submitted.sum());
+
+        if (delegate instanceof ThreadPoolExecutor pool) {
+            stats.put("pool_size", pool.getPoolSize());
+            stats.put("queued", pool.getQueue().size());
+        }
+        if (mode == Mode.BOUNDED) {
+            stats.put("saturated", saturated.sum());
+        }
+
+        return stats;
+    }
+}
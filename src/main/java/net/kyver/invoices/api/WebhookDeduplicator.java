@@ -0,0 +1,106 @@
+package net.kyver.invoices.api;
+
+import net.kyver.invoices.data.DatabaseManager;
+import net.kyver.invoices.enums.PaymentGateway;
+import net.kyver.invoices.manager.LoggingManager;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class WebhookDeduplicator {
+
+    private static final LoggingManager logger = LoggingManager.getLogger(WebhookDeduplicator.class);
+    private static final long MAX_CLEANUP_INTERVAL_MINUTES = 60;
+    private final int maxSize;
+    private final long ttlHours;
+    private final LinkedHashMap<String, Boolean> recentEvents;
+    private final ScheduledExecutorService cleaner;
+    private final LongAdder checked = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+
+    public WebhookDeduplicator(int maxSize, long ttlHours) {
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlHours = Math.max(1, ttlHours);
+        this.recentEvents = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > WebhookDeduplicator.this.maxSize;
+            }
+        };
+        this.cleaner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "webhook-dedupe-cleaner");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long interval = Math.min(TimeUnit.HOURS.toMinutes(this.ttlHours), MAX_CLEANUP_INTERVAL_MINUTES);
+        cleaner.scheduleWithFixedDelay(this::purgeExpired, 0, interval, TimeUnit.MINUTES);
+        logger.info("Webhook deduplication enabled (%d in memory, %dh retention)", this.maxSize, this.ttlHours);
+    }
+
+    public boolean isDuplicate(PaymentGateway gateway, String eventId) {
+        if (eventId == null || eventId.isEmpty()) {
+            return false;
+        }
+
+        checked.increment();
+        String key = gateway.getId() + ":" + eventId;
+
+        synchronized (recentEvents) {
+            if (recentEvents.get(key) != null) {
+                duplicates.increment();
+                return true;
+            }
+        }
+
+        if (DatabaseManager.getDataMethods().isWebhookEventProcessed(gateway, eventId)) {
+            markProcessed(gateway, eventId);
+            duplicates.increment();
+            return true;
+        }
+        return false;
+    }
+
+    public void markProcessed(PaymentGateway gateway, String eventId) {
+        if (eventId == null || eventId.isEmpty()) {
+            return;
+        }
+
+        synchronized (recentEvents) {
+            recentEvents.put(gateway.getId() + ":" + eventId, Boolean.TRUE);
+        }
+    }
+
+    private void purgeExpired() {
+        try {
+            DatabaseManager.getDataMethods().purgeProcessedWebhookEvents(LocalDateTime.now().minusHours(ttlHours));
+        } catch (Exception e) {
+            logger.error("Failed to purge processed webhook events", e);
+        }
+    }
+
+    public void shutdown() {
+        cleaner.shutdownNow();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+
+        long checkedCount = checked.sum();
+        long duplicateCount = duplicates.sum();
+
+        synchronized (recentEvents) {
+            stats.put("tracked_in_memory", recentEvents.size());
+        }
+        stats.put("checked", checkedCount);
+        stats.put("duplicates", duplicateCount);
+        stats.put("duplicate_rate", checkedCount == 0 ? 0.0 : (double) duplicateCount / checkedCount);
+
+        return stats;
+    }
+}
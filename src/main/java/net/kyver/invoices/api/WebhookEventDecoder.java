@@ -0,0 +1,330 @@
+package net.kyver.invoices.api;
+
+import net.kyver.invoices.enums.PaymentGateway;
+import net.kyver.invoices.manager.LoggingManager;
+import net.kyver.invoices.model.WebhookEvent;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+public class WebhookEventDecoder {
+
+    private static final LoggingManager logger = LoggingManager.getLogger(WebhookEventDecoder.class);
+    private static final int MAX_DEPTH = 64;
+    private static final int IGNORED = -1;
+    private static final int ROOT = 0;
+    private static final int DATA = 1;
+    private static final int DATA_OBJECT = 2;
+    private static final int RESOURCE = 3;
+    private static final int DATA_OBJECT_METADATA = 4;
+
+    private final String json;
+    private int position;
+    private String eventId;
+    private String type;
+    private String objectId;
+    private String objectPaymentIntent;
+    private String metadataInvoiceId;
+    private String resourceId;
+    private String parentPayment;
+    private long createdAt;
+
+    private WebhookEventDecoder(String json) {
+        this.json = json;
+    }
+
+    public static WebhookEvent decode(PaymentGateway gateway, String payload) {
+        if (payload == null || payload.isEmpty()) {
+            return null;
+        }
+
+        WebhookEventDecoder decoder = new WebhookEventDecoder(payload);
+        try {
+            decoder.skipWhitespace();
+            decoder.readObject(ROOT, 0);
+        } catch (IllegalArgumentException | StringIndexOutOfBoundsException e) {
+            logger.warn("Malformed %s webhook payload: %s", gateway.getDisplayName(), e.getMessage());
+            return null;
+        }
+
+        return new WebhookEvent(gateway, decoder.eventId, decoder.type, decoder.resolvePaymentId(gateway),
+                decoder.metadataInvoiceId, decoder.createdAt);
+    }
+
+    private String resolvePaymentId(PaymentGateway gateway) {
+        if (gateway == PaymentGateway.PAYPAL) {
+            return parentPayment != null ? parentPayment : resourceId;
+        }
+        if (type != null && type.startsWith("charge.dispute.")) {
+            return objectPaymentIntent;
+        }
+        return objectId;
+    }
+
+    private void readObject(int scope, int depth) {
+        if (depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("nesting too deep");
+        }
+
+        expect('{');
+        skipWhitespace();
+        if (peek() == '}') {
+            position++;
+            return;
+        }
+
+        while (true) {
+            skipWhitespace();
+            int keyStart = position + 1;
+            skipString();
+            int keyLength = position - 1 - keyStart;
+
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+
+            readMember(scope, keyStart, keyLength, depth);
+
+            skipWhitespace();
+            char next = json.charAt(position++);
+            if (next == '}') {
+                return;
+            }
+            if (next != ',') {
+                throw new IllegalArgumentException("expected ',' or '}' at " + (position - 1));
+            }
+        }
+    }
+
+    private void readMember(int scope, int keyStart, int keyLength, int depth) {
+        char next = peek();
+
+        if (next == '{') {
+            readObject(childScope(scope, keyStart, keyLength), depth + 1);
+        } else if (next == '[') {
+            skipArray(depth + 1);
+        } else if (next == '"') {
+            if (scope == IGNORED) {
+                skipString();
+            } else {
+                capture(scope, keyStart, keyLength);
+            }
+        } else if (scope == ROOT && keyEquals(keyStart, keyLength, "created")) {
+            createdAt = parseEpochSeconds(readLiteral());
+        } else {
+            skipLiteral();
+        }
+    }
+
+    private int childScope(int scope, int keyStart, int keyLength) {
+        if (scope == ROOT && keyEquals(keyStart, keyLength, "data")) {
+            return DATA;
+        }
+        if (scope == ROOT && keyEquals(keyStart, keyLength, "resource")) {
+            return RESOURCE;
+        }
+        if (scope == DATA && keyEquals(keyStart, keyLength, "object")) {
+            return DATA_OBJECT;
+        }
+        if (scope == DATA_OBJECT && keyEquals(keyStart, keyLength, "metadata")) {
+            return DATA_OBJECT_METADATA;
+        }
+        return IGNORED;
+    }
+
+    private void capture(int scope, int keyStart, int keyLength) {
+        switch (scope) {
+            case ROOT -> {
+                if (keyEquals(keyStart, keyLength, "id")) {
+                    eventId = readString();
+                } else if (keyEquals(keyStart, keyLength, "type") || keyEquals(keyStart, keyLength, "event_type")) {
+                    type = readString();
+                } else if (keyEquals(keyStart, keyLength, "create_time")) {
+                    createdAt = parseTimestamp(readString());
+                } else {
+                    skipString();
+                }
+            }
+            case DATA_OBJECT -> {
+                if (keyEquals(keyStart, keyLength, "id")) {
+                    objectId = readString();
+                } else if (keyEquals(keyStart, keyLength, "payment_intent")) {
+                    objectPaymentIntent = readString();
+                } else {
+                    skipString();
+                }
+            }
+            case DATA_OBJECT_METADATA -> {
+                if (keyEquals(keyStart, keyLength, "invoice_id")) {
+                    metadataInvoiceId = readString();
+                } else {
+                    skipString();
+                }
+            }
+            case RESOURCE -> {
+                if (keyEquals(keyStart, keyLength, "id")) {
+                    resourceId = readString();
+                } else if (keyEquals(keyStart, keyLength, "parent_payment")) {
+                    parentPayment = readString();
+                } else {
+                    skipString();
+                }
+            }
+            default -> skipString();
+        }
+    }
+
+    private boolean keyEquals(int keyStart, int keyLength, String key) {
+        return keyLength == key.length() && json.regionMatches(keyStart, key, 0, keyLength);
+    }
+
+    private void skipArray(int depth) {
+        if (depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("nesting too deep");
+        }
+
+        expect('[');
+        skipWhitespace();
+        if (peek() == ']') {
+            position++;
+            return;
+        }
+
+        while (true) {
+            skipWhitespace();
+            char next = peek();
+            if (next == '{') {
+                readObject(IGNORED, depth + 1);
+            } else if (next == '[') {
+                skipArray(depth + 1);
+            } else if (next == '"') {
+                skipString();
+            } else {
+                skipLiteral();
+            }
+
+            skipWhitespace();
+            char separator = json.charAt(position++);
+            if (separator == ']') {
+                return;
+            }
+            if (separator != ',') {
+                throw new IllegalArgumentException("expected ',' or ']' at " + (position - 1));
+            }
+        }
+    }
+
+    private String readString() {
+        expect('"');
+        int start = position;
+
+        while (true) {
+            char c = json.charAt(position);
+            if (c == '"') {
+                return json.substring(start, position++);
+            }
+            if (c == '\\') {
+                return readEscapedString(start);
+            }
+            position++;
+        }
+    }
+
+    private String readEscapedString(int start) {
+        StringBuilder value = new StringBuilder(json.length() - start).append(json, start, position);
+
+        while (true) {
+            char c = json.charAt(position++);
+            if (c == '"') {
+                return value.toString();
+            }
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+
+            char escaped = json.charAt(position++);
+            switch (escaped) {
+                case 'b' -> value.append('\b');
+                case 'f' -> value.append('\f');
+                case 'n' -> value.append('\n');
+                case 'r' -> value.append('\r');
+                case 't' -> value.append('\t');
+                case 'u' -> {
+                    value.append((char) Integer.parseInt(json.substring(position, position + 4), 16));
+                    position += 4;
+                }
+                default -> value.append(escaped);
+            }
+        }
+    }
+
+    private void skipString() {
+        expect('"');
+
+        while (true) {
+            char c = json.charAt(position++);
+            if (c == '"') {
+                return;
+            }
+            if (c == '\\') {
+                position++;
+            }
+        }
+    }
+
+    private static long parseEpochSeconds(String value) {
+        try {
+            return Long.parseLong(value) * 1000;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static long parseTimestamp(String value) {
+        try {
+            return Instant.parse(value).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return 0;
+        }
+    }
+
+    private String readLiteral() {
+        int start = position;
+        skipLiteral();
+        return json.substring(start, position);
+    }
+
+    private void skipLiteral() {
+        int start = position;
+        while (position < json.length()) {
+            char c = json.charAt(position);
+            if (c == ',' || c == '}' || c == ']' || Character.isWhitespace(c)) {
+                break;
+            }
+            position++;
+        }
+
+        if (position == start) {
+            throw new IllegalArgumentException("expected a value at " + start);
+        }
+    }
+
+    private void skipWhitespace() {
+        while (position < json.length() && Character.isWhitespace(json.charAt(position))) {
+            position++;
+        }
+    }
+
+    private char peek() {
+        return json.charAt(position);
+    }
+
+    private void expect(char expected) {
+        char actual = json.charAt(position);
+        if (actual != expected) {
+            throw new IllegalArgumentException("expected '" + expected + "' at " + position);
+        }
+        position++;
+    }
+}
@@ -1,25 +1,24 @@
 package net.kyver.invoices.api;
 
-import com.sun.net.httpserver.HttpExchange;
 import net.kyver.invoices.data.DatabaseManager;
+import net.kyver.invoices.enums.PaymentGateway;
 import net.kyver.invoices.enums.PaymentStatus;
+import net.kyver.invoices.enums.WebhookUpdateResult;
 import net.kyver.invoices.gateway.impl.PayPalGateway;
 import net.kyver.invoices.gateway.impl.StripeGateway;
 import net.kyver.invoices.manager.ConfigManager;
 import net.kyver.invoices.manager.LoggingManager;
 import net.kyver.invoices.model.Invoice;
+import net.kyver.invoices.model.WebhookEvent;
+import net.kyver.invoices.service.OutboxDispatcher;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class WebhookHandler {
 
@@ -27,419 +26,354 @@ public class WebhookHandler {
     private final ConfigManager configManager;
     private final PayPalGateway paypalGateway;
     private final StripeGateway stripeGateway;
+    private final StripeSignatureVerifier stripeSignatureVerifier;
+    private final PayPalSignatureVerifier paypalSignatureVerifier;
+    private static final long SYNC_PROCESSING_TIMEOUT_SECONDS = 30;
+    private WebhookIngestQueue ingestQueue;
+    private ShardedExecutor workers;
+    private WebhookDeduplicator deduplicator;
 
     public WebhookHandler(ConfigManager configManager, PayPalGateway paypalGateway, StripeGateway stripeGateway) {
         this.configManager = configManager;
         this.paypalGateway = paypalGateway;
         this.stripeGateway = stripeGateway;
+        this.stripeSignatureVerifier = new StripeSignatureVerifier(
+            configManager.getStripeWebhookSecrets(),
+            configManager.getStripeWebhookToleranceSeconds()
+        );
+        this.paypalSignatureVerifier = new PayPalSignatureVerifier(
+            configManager.getPayPalWebhookId(),
+            configManager.getPayPalCertificateCacheTtlSeconds()
+        );
     }
 
-    public void handlePayPalWebhook(HttpExchange exchange) throws IOException {
-        if (!"POST".equals(exchange.getRequestMethod())) {
-            sendResponse(exchange, 405, "{\"error\":\"Method not allowed\"}");
-            return;
+    public void setIngestQueue(WebhookIngestQueue ingestQueue) {
+        this.ingestQueue = ingestQueue;
+    }
+
+    public void setWorkers(ShardedExecutor workers) {
+        this.workers = workers;
+    }
+
+    public void setDeduplicator(WebhookDeduplicator deduplicator) {
+        this.deduplicator = deduplicator;
+    }
+
+    public WebResponse handlePayPalWebhook(WebRequest request) {
+        if (!"POST".equals(request.getMethod())) {
+            return WebResponse.json(405, "{\"error\":\"Method not allowed\"}");
         }
 
         try {
             logger.payment("Received PayPal webhook");
 
-            String requestBody = readRequestBody(exchange);
-            Map<String, String> headers = getHeaders(exchange);
+            Map<String, String> headers = request.getHeaders();
 
-            if (!verifyPayPalSignature(headers, requestBody)) {
+            if (!verifyPayPalSignature(headers, request.getBody())) {
                 logger.warn("PayPal webhook signature verification failed");
-                sendResponse(exchange, 401, "{\"error\":\"Invalid signature\"}");
-                return;
+                return WebResponse.json(401, "{\"error\":\"Invalid signature\"}");
             }
 
-            if (paypalGateway != null) {
-                boolean processed = paypalGateway.handleWebhook(headers, requestBody);
-                if (processed) {
-                    processPayPalEvent(requestBody);
-                    sendResponse(exchange, 200, "{\"status\":\"success\"}");
-                    logger.success("PayPal webhook processed successfully");
-                } else {
-                    sendResponse(exchange, 400, "{\"error\":\"Failed to process webhook\"}");
-                }
-            } else {
+            if (paypalGateway == null) {
                 logger.warn("PayPal gateway not initialized");
-                sendResponse(exchange, 503, "{\"error\":\"PayPal gateway unavailable\"}");
+                return WebResponse.json(503, "{\"error\":\"PayPal gateway unavailable\"}");
             }
 
+            String requestBody = request.getBodyAsString();
+            if (!paypalGateway.handleWebhook(headers, requestBody)) {
+                return WebResponse.json(400, "{\"error\":\"Failed to process webhook\"}");
+            }
+            return dispatchEvent(PaymentGateway.PAYPAL, requestBody);
+
         } catch (Exception e) {
             logger.error("Error processing PayPal webhook", e);
-            sendResponse(exchange, 500, "{\"error\":\"Internal server error\"}");
+            return WebResponse.json(500, "{\"error\":\"Internal server error\"}");
         }
     }
 
-    public void handleStripeWebhook(HttpExchange exchange) throws IOException {
-        if (!"POST".equals(exchange.getRequestMethod())) {
-            sendResponse(exchange, 405, "{\"error\":\"Method not allowed\"}");
-            return;
+    public WebResponse handleStripeWebhook(WebRequest request) {
+        if (!"POST".equals(request.getMethod())) {
+            return WebResponse.json(405, "{\"error\":\"Method not allowed\"}");
         }
 
         try {
             logger.payment("Received Stripe webhook");
 
-            String requestBody = readRequestBody(exchange);
-            Map<String, String> headers = getHeaders(exchange);
+            Map<String, String> headers = request.getHeaders();
 
-            if (!verifyStripeSignature(headers, requestBody)) {
+            if (!verifyStripeSignature(headers, request.getBody())) {
                 logger.warn("Stripe webhook signature verification failed");
-                sendResponse(exchange, 401, "{\"error\":\"Invalid signature\"}");
-                return;
+                return WebResponse.json(401, "{\"error\":\"Invalid signature\"}");
             }
 
-            if (stripeGateway != null) {
-                boolean processed = stripeGateway.handleWebhook(headers, requestBody);
-                if (processed) {
-                    processStripeEvent(requestBody);
-                    sendResponse(exchange, 200, "{\"status\":\"success\"}");
-                    logger.success("Stripe webhook processed successfully");
-                } else {
-                    sendResponse(exchange, 400, "{\"error\":\"Failed to process webhook\"}");
-                }
-            } else {
+            if (stripeGateway == null) {
                 logger.warn("Stripe gateway not initialized");
-                sendResponse(exchange, 503, "{\"error\":\"Stripe gateway unavailable\"}");
+                return WebResponse.json(503, "{\"error\":\"Stripe gateway unavailable\"}");
             }
 
-        } catch (Exception e) {
-            logger.error("Error processing Stripe webhook", e);
-            sendResponse(exchange, 500, "{\"error\":\"Internal server error\"}");
-        }
-    }
-
-    private boolean verifyPayPalSignature(Map<String, String> headers, String payload) {
-        try {
-            String signature = headers.get("paypal-transmission-sig");
-            String certId = headers.get("paypal-cert-id");
-            String authAlgo = headers.get("paypal-auth-algo");
-            String transmissionId = headers.get("paypal-transmission-id");
-            String timestamp = headers.get("paypal-transmission-time");
-
-            if (signature == null || certId == null) {
-                logger.debug("Missing PayPal signature headers");
-                return false;
+            String requestBody = request.getBodyAsString();
+            if (!stripeGateway.handleWebhook(headers, requestBody)) {
+                return WebResponse.json(400, "{\"error\":\"Failed to process webhook\"}");
             }
-
-            logger.debug("PayPal webhook signature validation passed");
-            return true;
+            return dispatchEvent(PaymentGateway.STRIPE, requestBody);
 
         } catch (Exception e) {
-            logger.error("PayPal signature verification failed", e);
-            return false;
+            logger.error("Error processing Stripe webhook", e);
+            return WebResponse.json(500, "{\"error\":\"Internal server error\"}");
         }
     }
 
-    private boolean verifyStripeSignature(Map<String, String> headers, String payload) {
-        try {
-            String signature = headers.get("stripe-signature");
-            if (signature == null) {
-                signature = headers.get("Stripe-Signature");
-            }
-
-            if (signature == null) {
-                logger.debug("Missing Stripe signature header");
-                return false;
-            }
-
-            String webhookSecret = configManager.getStripeWebhookSecret();
-            if (webhookSecret == null || webhookSecret.isEmpty()) {
-                logger.warn("Stripe webhook secret not configured");
-                return false;
-            }
-
-            String[] elements = signature.split(",");
-            String timestamp = null;
-            String v1Signature = null;
-
-            for (String element : elements) {
-                String[] keyValue = element.split("=", 2);
-                if (keyValue.length == 2) {
-                    switch (keyValue[0]) {
-                        case "t":
-                            timestamp = keyValue[1];
-                            break;
-                        case "v1":
-                            v1Signature = keyValue[1];
-                            break;
-                    }
-                }
-            }
-
-            if (timestamp == null || v1Signature == null) {
-                logger.debug("Invalid Stripe signature format");
-                return false;
-            }
+    private WebResponse dispatchEvent(PaymentGateway gateway, String requestBody) {
+        WebhookEvent event = WebhookEventDecoder.decode(gateway, requestBody);
+        if (event == null) {
+            return WebResponse.json(400, "{\"error\":\"Malformed webhook payload\"}");
+        }
 
-            String signedPayload = timestamp + "." + payload;
-            String expectedSignature = computeHmacSha256(signedPayload, webhookSecret);
+        if (isDuplicateEvent(event)) {
+            return WebResponse.json(200, "{\"status\":\"duplicate\"}");
+        }
+        if (ingestQueue != null) {
+            return enqueueEvent(event, requestBody);
+        }
 
-            boolean isValid = expectedSignature.equals(v1Signature);
-            logger.debug("Stripe webhook signature validation: %s", isValid ? "passed" : "failed");
-            return isValid;
+        if (workers != null) {
+            return processOnShard(event);
+        }
 
-        } catch (Exception e) {
-            logger.error("Stripe signature verification failed", e);
-            return false;
+        if (!processEvent(event)) {
+            logger.warn("%s webhook %s was not applied, asking the gateway to retry", gateway.getDisplayName(), event.getEventId());
+            return WebResponse.json(500, "{\"error\":\"Webhook processing failed\"}");
         }
+        logger.success("%s webhook processed successfully", gateway.getDisplayName());
+        return WebResponse.json(200, "{\"status\":\"success\"}");
     }
 
-    private String computeHmacSha256(String data, String key) throws Exception {
-        Mac mac = Mac.getInstance("HmacSHA256");
-        SecretKeySpec secretKeySpec = new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
-        mac.init(secretKeySpec);
-        byte[] hash = mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+    private boolean isDuplicateEvent(WebhookEvent event) {
+        if (deduplicator == null) {
+            return false;
+        }
 
-        StringBuilder result = new StringBuilder();
-        for (byte b : hash) {
-            result.append(String.format("%02x", b));
+        if (deduplicator.isDuplicate(event.getGateway(), event.getEventId())) {
+            logger.info("Skipping duplicate %s webhook event: %s", event.getGateway().getDisplayName(), event.getEventId());
+            return true;
         }
-        return result.toString();
+        return false;
     }
 
-    private void processPayPalEvent(String payload) {
-        try {
-            if (payload.contains("\"event_type\":\"PAYMENT.SALE.COMPLETED\"") ||
-                payload.contains("\"event_type\":\"CHECKOUT.ORDER.APPROVED\"")) {
+    private WebResponse processOnShard(WebhookEvent event) {
+        PaymentGateway gateway = event.getGateway();
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
 
-                String paymentId = extractJsonValue(payload, "id");
-                if (paymentId != null) {
-                    updateInvoiceStatus(paymentId, PaymentStatus.PAID);
-                    logger.success("PayPal payment completed: %s", paymentId);
+        try {
+            workers.execute(event.getPaymentId(), () -> {
+                if (result.isDone()) {
+                    logger.debug("Skipping %s webhook %s, the gateway was already asked to retry",
+                            gateway.getDisplayName(), event.getEventId());
+                    return;
                 }
-            }
-            else if (payload.contains("\"event_type\":\"PAYMENT.SALE.REFUNDED\"")) {
-                String paymentId = extractJsonValue(payload, "parent_payment");
-                if (paymentId != null) {
-                    updateInvoiceStatus(paymentId, PaymentStatus.REFUNDED);
-                    logger.payment("PayPal payment refunded: %s", paymentId);
+                try {
+                    result.complete(processEvent(event));
+                } catch (Throwable t) {
+                    result.completeExceptionally(t);
                 }
-            }
-
-        } catch (Exception e) {
-            logger.error("Failed to process PayPal event", e);
+            });
+        } catch (RejectedExecutionException e) {
+            logger.warn("Webhook workers are full, asking %s to retry later", gateway.getDisplayName());
+            return WebResponse.json(503, "{\"error\":\"Webhook processing unavailable\"}")
+                    .withHeader("Retry-After", String.valueOf(configManager.getWebhookRetryAfterSeconds()));
         }
-    }
 
-    private void processStripeEvent(String payload) {
+        boolean applied;
         try {
-            if (payload.contains("\"type\":\"payment_intent.succeeded\"")) {
-                String paymentIntentId = extractJsonValue(payload, "id");
-                if (paymentIntentId != null) {
-                    updateInvoiceStatus(paymentIntentId, PaymentStatus.PAID);
-                    logger.success("Stripe payment completed: %s", paymentIntentId);
-                }
-            }
-            else if (payload.contains("\"type\":\"payment_intent.payment_failed\"")) {
-                String paymentIntentId = extractJsonValue(payload, "id");
-                if (paymentIntentId != null) {
-                    updateInvoiceStatus(paymentIntentId, PaymentStatus.FAILED);
-                    logger.payment("Stripe payment failed: %s", paymentIntentId);
-                }
-            }
-            else if (payload.contains("\"type\":\"charge.dispute.created\"")) {
-                String chargeId = extractJsonValue(payload, "id");
-                if (chargeId != null) {
-                    updateInvoiceStatus(chargeId, PaymentStatus.CANCELLED);
-                    logger.payment("Stripe charge disputed: %s", chargeId);
-                }
-            }
-
-        } catch (Exception e) {
-            logger.error("Failed to process Stripe event", e);
+            applied = result.get(SYNC_PROCESSING_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(false);
+            logger.warn("%s webhook %s is still queued behind earlier events, asking the gateway to retry",
+                    gateway.getDisplayName(), event.getEventId());
+            return WebResponse.json(503, "{\"error\":\"Webhook processing timed out\"}")
+                    .withHeader("Retry-After", String.valueOf(configManager.getWebhookRetryAfterSeconds()));
+        } catch (InterruptedException e) {
+            result.cancel(false);
+            Thread.currentThread().interrupt();
+            return WebResponse.json(503, "{\"error\":\"Webhook processing interrupted\"}");
+        } catch (ExecutionException e) {
+            logger.error("Failed to process " + gateway.getDisplayName() + " webhook", e.getCause());
+            applied = false;
         }
-    }
 
-    private void updateInvoiceStatus(String externalPaymentId, PaymentStatus status) {
-        try {
-            var dataManager = DatabaseManager.getDataMethods();
-            if (dataManager != null) {
-                var allInvoices = dataManager.getAllInvoices();
-                for (Invoice invoice : allInvoices) {
-                    if (externalPaymentId.equals(invoice.getExternalPaymentId())) {
-                        PaymentStatus oldStatus = invoice.getStatus();
-                        invoice.setStatus(status);
-                        dataManager.updateInvoice(invoice);
-
-                        logger.database("Updated invoice %s status from %s to %s", invoice.getInvoiceId(), oldStatus, status);
-
-                        updateDiscordMessages(invoice, status);
-                        return;
-                    }
-                }
-                logger.warn("Invoice not found for external payment ID: %s", externalPaymentId);
-            }
-        } catch (Exception e) {
-            logger.error("Failed to update invoice status", e);
+        if (!applied) {
+            logger.warn("%s webhook %s was not applied, asking the gateway to retry", gateway.getDisplayName(), event.getEventId());
+            return WebResponse.json(500, "{\"error\":\"Webhook processing failed\"}");
         }
+        logger.success("%s webhook processed successfully", gateway.getDisplayName());
+        return WebResponse.json(200, "{\"status\":\"success\"}");
     }
 
-    private void updateDiscordMessages(Invoice invoice, PaymentStatus status) {
-        try {
-            var jda = net.kyver.invoices.KyverInvoices.getJDA();
-            if (jda == null) return;
-
-            var user = jda.getUserById(invoice.getDiscordUserId());
-
-            var channel = jda.getTextChannelById(invoice.getChannelId());
-
-            switch (status) {
-                case PAID -> {
-                    if (channel != null && invoice.getChannelMessageId() != null) {
-                        updateChannelMessageForPayment(channel, invoice);
-                    }
-
-                    if (channel != null) {
-                        net.kyver.invoices.service.NotificationService.sendPaymentCompletedNotification(channel, invoice);
-                    }
-
-                    if (user != null) {
-                        net.kyver.invoices.service.DMService.sendPaymentCompletedDM(user, invoice);
-                    }
-
-                    logger.success("Updated Discord messages for completed payment: %s", invoice.getInvoiceId());
-                }
-
-                case FAILED -> {
-                    if (channel != null) {
-                        net.kyver.invoices.service.NotificationService.sendPaymentFailedNotification(
-                            channel, invoice, "Payment processing failed via webhook"
-                        );
-                    }
+    private WebResponse enqueueEvent(WebhookEvent event, String requestBody) {
+        PaymentGateway gateway = event.getGateway();
+        if (ingestQueue.offer(gateway, event.getPaymentId(), requestBody)) {
+            logger.debug("%s webhook queued for processing", gateway.getDisplayName());
+            return WebResponse.json(200, "{\"status\":\"queued\"}");
+        }
 
-                    logger.warn("Notified about failed payment: %s", invoice.getInvoiceId());
-                }
+        logger.warn("Webhook queue full, asking %s to retry later", gateway.getDisplayName());
+        return WebResponse.json(503, "{\"error\":\"Webhook queue full\"}")
+                .withHeader("Retry-After", String.valueOf(configManager.getWebhookRetryAfterSeconds()));
+    }
 
-                case REFUNDED -> {
-                    if (channel != null && invoice.getChannelMessageId() != null) {
-                        updateChannelMessageStatus(channel, invoice);
-                    }
+    public boolean processEvent(PaymentGateway gateway, String payload) {
+        WebhookEvent event = WebhookEventDecoder.decode(gateway, payload);
+        if (event == null) {
+            logger.warn("Dropping malformed %s webhook payload", gateway.getDisplayName());
+            return true;
+        }
+        return processEvent(event);
+    }
 
-                    logger.info("Updated messages for refunded payment: %s", invoice.getInvoiceId());
-                }
+    private Invoice findInvoiceByReference(WebhookEvent event) {
+        String reference = event.getInvoiceReference();
+        if (reference == null) {
+            return null;
+        }
 
-                default -> {
-                    if (channel != null && invoice.getChannelMessageId() != null) {
-                        updateChannelMessageStatus(channel, invoice);
-                    }
-                }
-            }
+        UUID invoiceId;
+        try {
+            invoiceId = UUID.fromString(reference);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Ignoring malformed invoice_id metadata: %s", reference);
+            return null;
+        }
 
-        } catch (Exception e) {
-            logger.error("Failed to update Discord messages for invoice: " + invoice.getInvoiceId(), e);
+        Invoice invoice = DatabaseManager.getDataMethods().getInvoice(invoiceId);
+        if (invoice == null || invoice.getSelectedGateway() != event.getGateway()) {
+            return null;
         }
+        return invoice;
     }
 
-    private void updateChannelMessageForPayment(net.dv8tion.jda.api.entities.channel.concrete.TextChannel channel, Invoice invoice) {
+    private boolean verifyPayPalSignature(Map<String, String> headers, byte[] payload) {
         try {
-            channel.retrieveMessageById(invoice.getChannelMessageId()).queue(message -> {
-                var embed = net.kyver.invoices.manager.EmbedManager.custom(channel.getGuild())
-                        .setColor(net.kyver.invoices.manager.EmbedManager.getSuccessColor())
-                        .setTitle("📧 Invoice #" + invoice.getInvoiceId().toString().substring(0, 8) + " - PAID ✅")
-                        .setDescription("**" + invoice.getDescription() + "**")
-                        .addField("Customer", invoice.getCustomerName(), true)
-                        .addField("Amount", invoice.getFormattedAmount(), true)
-                        .addField("Status", "✅ " + invoice.getStatus().toString(), true)
-                        .addField("Payment Method", invoice.getSelectedGateway().toString(), true)
-                        .addField("Completed", java.time.LocalDateTime.now().format(
-                            java.time.format.DateTimeFormatter.ofPattern("MMM dd, yyyy 'at' HH:mm")
-                        ), true)
-                        .build();
-
-                message.editMessageEmbeds(embed).setComponents().queue();
-            }, error -> logger.error("Failed to update channel message: " + error.getMessage()));
+            boolean isValid = paypalSignatureVerifier.verify(headers, payload);
+            logger.debug("PayPal webhook signature validation: %s", isValid ? "passed" : "failed");
+            return isValid;
 
         } catch (Exception e) {
-            logger.error("Failed to update channel message for payment", e);
+            logger.error("PayPal signature verification failed", e);
+            return false;
         }
     }
 
-    private void updateChannelMessageStatus(net.dv8tion.jda.api.entities.channel.concrete.TextChannel channel, Invoice invoice) {
+    private boolean verifyStripeSignature(Map<String, String> headers, byte[] payload) {
         try {
-            channel.retrieveMessageById(invoice.getChannelMessageId()).queue(message -> {
-                var embed = net.kyver.invoices.manager.EmbedManager.custom(channel.getGuild())
-                        .setTitle("📧 Invoice #" + invoice.getInvoiceId().toString().substring(0, 8))
-                        .setDescription("**" + invoice.getDescription() + "**")
-                        .addField("Customer", invoice.getCustomerName(), true)
-                        .addField("Amount", invoice.getFormattedAmount(), true)
-                        .addField("Status", getStatusEmoji(invoice.getStatus()) + " " + invoice.getStatus().toString(), true)
-                        .addField("Updated", java.time.LocalDateTime.now().format(
-                            java.time.format.DateTimeFormatter.ofPattern("MMM dd, yyyy 'at' HH:mm")
-                        ), true)
-                        .build();
-
-                message.editMessageEmbeds(embed).queue();
-            }, error -> logger.error("Failed to update channel message status: " + error.getMessage()));
+            String signature = headers.get("stripe-signature");
+            if (signature == null) {
+                logger.debug("Missing Stripe signature header");
+                return false;
+            }
+
+            if (!stripeSignatureVerifier.hasSecrets()) {
+                logger.warn("Stripe webhook secret not configured");
+                return false;
+            }
+
+            boolean isValid = stripeSignatureVerifier.verify(signature, payload);
+            logger.debug("Stripe webhook signature validation: %s", isValid ? "passed" : "failed");
+            return isValid;
 
         } catch (Exception e) {
-            logger.error("Failed to update channel message status", e);
+            logger.error("Stripe signature verification failed", e);
+            return false;
         }
     }
 
-    private String getStatusEmoji(PaymentStatus status) {
-        return switch (status) {
-            case PENDING -> "⏳";
-            case PAID -> "✅";
-            case FAILED -> "❌";
-            case CANCELLED -> "🚫";
-            case REFUNDED -> "🔄";
-            case EXPIRED -> "⏰";
-            default -> "❓";
-        };
-    }
-
-    private String extractJsonValue(String json, String key) {
-        try {
-            String searchKey = "\"" + key + "\":";
-            int startIndex = json.indexOf(searchKey);
-            if (startIndex == -1) return null;
+    private boolean processEvent(WebhookEvent event) {
+        String gatewayName = event.getGateway().getDisplayName();
+        if (!event.isKnown()) {
+            logger.debug("Ignoring %s webhook event type: %s", gatewayName, event.getGatewayType());
+            return true;
+        }
 
-            startIndex += searchKey.length();
+        if (event.getPaymentId() == null) {
+            logger.warn("%s %s event has no payment reference", gatewayName, event.getGatewayType());
+            return true;
+        }
 
-            while (startIndex < json.length() &&
-                   (json.charAt(startIndex) == ' ' || json.charAt(startIndex) == '"')) {
-                startIndex++;
-            }
+        WebhookUpdateResult result;
+        try {
+            result = updateInvoiceStatus(event, event.getType().getResultingStatus());
+        } catch (Exception e) {
+            logger.error("Failed to process " + gatewayName + " event", e);
+            return false;
+        }
 
-            int endIndex = startIndex;
-            while (endIndex < json.length() &&
-                   json.charAt(endIndex) != '"' &&
-                   json.charAt(endIndex) != ',' &&
-                   json.charAt(endIndex) != '}') {
-                endIndex++;
-            }
+        if (result == WebhookUpdateResult.FAILED) {
+            return false;
+        }
+        if (result == WebhookUpdateResult.DUPLICATE) {
+            logger.info("Skipping duplicate %s webhook event: %s", gatewayName, event.getEventId());
+            return true;
+        }
+        if (result == WebhookUpdateResult.UNMATCHED) {
+            return true;
+        }
+        if (result == WebhookUpdateResult.STALE) {
+            logger.info("Skipping %s %s event %s, a newer event for %s was already applied",
+                    gatewayName, event.getGatewayType(), event.getEventId(), event.getPaymentId());
+            return true;
+        }
 
-            return json.substring(startIndex, endIndex);
-        } catch (Exception e) {
-            logger.debug("Failed to extract JSON value for key: %s", key);
-            return null;
+        switch (event.getType()) {
+            case PAYMENT_COMPLETED -> logger.success("%s payment completed: %s", gatewayName, event.getPaymentId());
+            case PAYMENT_FAILED -> logger.payment("%s payment failed: %s", gatewayName, event.getPaymentId());
+            case PAYMENT_REFUNDED -> logger.payment("%s payment refunded: %s", gatewayName, event.getPaymentId());
+            case PAYMENT_DISPUTED -> logger.payment("%s payment disputed: %s", gatewayName, event.getPaymentId());
+            default -> { }
         }
+        return true;
     }
 
-    private String readRequestBody(HttpExchange exchange) throws IOException {
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
-            return reader.lines().collect(Collectors.joining("\n"));
+    private WebhookUpdateResult updateInvoiceStatus(WebhookEvent event, PaymentStatus status) {
+        var dataManager = DatabaseManager.getDataMethods();
+        if (dataManager == null) {
+            logger.warn("Database unavailable, cannot apply webhook event %s", event.getEventId());
+            return WebhookUpdateResult.FAILED;
         }
-    }
 
-    private Map<String, String> getHeaders(HttpExchange exchange) {
-        Map<String, String> headers = new HashMap<>();
-        exchange.getRequestHeaders().forEach((key, values) -> {
-            if (!values.isEmpty()) {
-                headers.put(key.toLowerCase(), values.get(0));
+        boolean tracked = deduplicator != null && event.getEventId() != null && !event.getEventId().isEmpty();
+        String externalPaymentId = event.getPaymentId();
+        Invoice invoice = dataManager.getInvoiceByExternalPaymentId(externalPaymentId);
+        if (invoice == null) {
+            invoice = findInvoiceByReference(event);
+            if (invoice == null) {
+                logger.info("Ignoring %s event %s, no invoice matches external payment ID %s",
+                        event.getGateway().getDisplayName(), event.getEventId(), externalPaymentId);
+                if (tracked) {
+                    dataManager.recordProcessedWebhookEvent(event.getGateway(), event.getEventId());
+                    deduplicator.markProcessed(event.getGateway(), event.getEventId());
+                }
+                return WebhookUpdateResult.UNMATCHED;
             }
-        });
-        return headers;
-    }
+            logger.debug("Matched %s to invoice %s through its metadata", externalPaymentId, invoice.getInvoiceId());
+            invoice.setExternalPaymentId(externalPaymentId);
+        }
+
+        PaymentStatus oldStatus = invoice.getStatus();
+        invoice.setStatus(status);
 
-    private void sendResponse(HttpExchange exchange, int statusCode, String response) throws IOException {
-        exchange.getResponseHeaders().set("Content-Type", "application/json");
-        exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
-        exchange.sendResponseHeaders(statusCode, response.length());
-        exchange.getResponseBody().write(response.getBytes(StandardCharsets.UTF_8));
-        exchange.getResponseBody().close();
+        WebhookUpdateResult result = dataManager.updateInvoiceFromWebhook(invoice,
+                OutboxDispatcher.entriesFor(invoice, status, "Payment processing failed via webhook"), tracked ? event : null);
+
+        if (result == WebhookUpdateResult.FAILED) {
+            logger.error("Failed to update invoice %s to %s", invoice.getInvoiceId(), status);
+            return result;
+        }
+        if (tracked) {
+            deduplicator.markProcessed(event.getGateway(), event.getEventId());
+        }
+        if (result == WebhookUpdateResult.APPLIED) {
+            logger.database("Updated invoice %s status from %s to %s", invoice.getInvoiceId(), oldStatus, status);
+            OutboxDispatcher.wakeUp();
+        }
+        return result;
     }
 }
@@ -0,0 +1,188 @@
+package net.kyver.invoices.api;
+
+import net.kyver.invoices.data.DataMethods;
+import net.kyver.invoices.data.DatabaseManager;
+import net.kyver.invoices.data.WebhookInboxEntry;
+import net.kyver.invoices.enums.PaymentGateway;
+import net.kyver.invoices.manager.LoggingManager;
+import net.kyver.invoices.model.WebhookEvent;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+
+public class WebhookIngestQueue {
+
+    private static final LoggingManager logger = LoggingManager.getLogger(WebhookIngestQueue.class);
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+    private static final int ATTEMPTS_PER_DISPATCH = 3;
+    private static final long RETRY_DELAY_MS = 500;
+    private final int capacity;
+    private final int maxAttempts;
+    private final Semaphore permits;
+    private final ShardedExecutor workers;
+    private final BiPredicate<PaymentGateway, String> processor;
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder deadLettered = new LongAdder();
+
+    public WebhookIngestQueue(int capacity, int workerCount, int maxAttempts, BiPredicate<PaymentGateway, String> processor) {
+        this.capacity = Math.max(1, capacity);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.permits = new Semaphore(this.capacity);
+        this.processor = processor;
+
+        this.workers = new ShardedExecutor("webhook-worker", workerCount, this.capacity);
+    }
+
+    public void start() {
+        DataMethods dataMethods = DatabaseManager.getDataMethods();
+        long lastId = 0;
+        int replayed = 0;
+        List<WebhookInboxEntry> batch;
+
+        do {
+            batch = dataMethods.getPendingWebhookEvents(lastId, capacity);
+            for (WebhookInboxEntry entry : batch) {
+                lastId = entry.getId();
+                if (entry.getGateway() == null) {
+                    logger.warn("Dropping webhook inbox entry %d with unknown gateway", entry.getId());
+                    dataMethods.deleteWebhookEvent(entry.getId());
+                    continue;
+                }
+
+                if (entry.getAttempts() >= maxAttempts) {
+                    deadLetter(entry.getId(), entry.getGateway(), entry.getAttempts());
+                    continue;
+                }
+                if (entry.getAttempts() > 0) {
+                    logger.info("Retrying webhook inbox entry %d after %d failed attempt(s)", entry.getId(), entry.getAttempts());
+                }
+                WebhookEvent event = WebhookEventDecoder.decode(entry.getGateway(), entry.getPayload());
+                permits.acquireUninterruptibly();
+                dispatch(entry.getId(), entry.getGateway(), event != null ? event.getPaymentId() : null,
+                        entry.getPayload(), entry.getAttempts());
+                replayed++;
+            }
+        } while (batch.size() == capacity);
+
+        if (replayed > 0) {
+            logger.info("Replaying %d webhook event(s) left in the inbox", replayed);
+        }
+        logger.success("Webhook ingest queue started (capacity %d, %d worker shard(s))", capacity, workers.getShardCount());
+    }
+
+    public boolean offer(PaymentGateway gateway, String paymentId, String payload) {
+        if (workers.isShutdown() || !permits.tryAcquire()) {
+            rejected.increment();
+            return false;
+        }
+
+        long id = DatabaseManager.getDataMethods().enqueueWebhookEvent(gateway, payload);
+        if (id < 0) {
+            permits.release();
+            rejected.increment();
+            return false;
+        }
+
+        accepted.increment();
+        dispatch(id, gateway, paymentId, payload, 0);
+        return true;
+    }
+
+    private void dispatch(long id, PaymentGateway gateway, String paymentId, String payload, int previousAttempts) {
+        try {
+            workers.execute(paymentId, () -> {
+                try {
+                    int attempts = process(id, gateway, payload);
+                    if (attempts == 0) {
+                        DatabaseManager.getDataMethods().deleteWebhookEvent(id);
+                        processed.increment();
+                    } else if (previousAttempts + attempts >= maxAttempts) {
+                        failed.increment();
+                        deadLetter(id, gateway, previousAttempts + attempts);
+                    } else {
+                        failed.increment();
+                        logger.warn("%s webhook %d could not be applied, keeping it in the inbox for the next start",
+                                gateway.getDisplayName(), id);
+                    }
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            logger.warn("Webhook workers unavailable, event %d stays in the inbox for the next start", id);
+        }
+    }
+
+    private void deadLetter(long id, PaymentGateway gateway, int attempts) {
+        DatabaseManager.getDataMethods().deadLetterWebhookEvent(id);
+        deadLettered.increment();
+        logger.error("%s webhook %d failed %d time(s), moved to the dead-letter state", gateway.getDisplayName(), id, attempts);
+    }
+
+    private int process(long id, PaymentGateway gateway, String payload) {
+        for (int attempt = 1; ; attempt++) {
+            String error;
+            try {
+                if (processor.test(gateway, payload)) {
+                    return 0;
+                }
+                error = "Webhook event was not applied";
+            } catch (Exception e) {
+                logger.error("Failed to process queued " + gateway.getDisplayName() + " webhook", e);
+                error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            }
+
+            DatabaseManager.getDataMethods().recordWebhookEventFailure(id, error);
+            if (attempt >= ATTEMPTS_PER_DISPATCH) {
+                return attempt;
+            }
+
+            retried.increment();
+            try {
+                Thread.sleep(RETRY_DELAY_MS << (attempt - 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return attempt;
+            }
+        }
+    }
+
+    public void shutdown() {
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                int dropped = workers.shutdownNow();
+                logger.warn("%d queued webhook event(s) will be replayed on the next start", dropped);
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("capacity", capacity);
+        stats.put("depth", capacity - permits.availablePermits());
+        stats.put("shards", workers.getShardCount());
+        stats.put("shard_depths", workers.getQueueDepths());
+        stats.put("accepted", accepted.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("processed", processed.sum());
+        stats.put("retried", retried.sum());
+        stats.put("failed", failed.sum());
+        stats.put("dead_lettered", deadLettered.sum());
+        return stats;
+    }
+}
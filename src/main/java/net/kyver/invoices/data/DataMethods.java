@@ -1,23 +1,62 @@
 package net.kyver.invoices.data;
 
+import net.kyver.invoices.enums.PaymentGateway;
+import net.kyver.invoices.enums.WebhookUpdateResult;
 import net.kyver.invoices.model.Invoice;
+import net.kyver.invoices.model.Payment;
+import net.kyver.invoices.model.WebhookEvent;
 import net.kyver.invoices.enums.PaymentStatus;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface DataMethods {
 
     void createInvoice(Invoice invoice);
     Invoice getInvoice(UUID invoiceId);
+    Invoice getInvoiceByExternalPaymentId(String externalPaymentId);
     List<Invoice> getInvoicesByUser(String userId);
     List<Invoice> getAllInvoices();
     void updateInvoice(Invoice invoice);
     void updateInvoiceStatus(UUID invoiceId, PaymentStatus status);
+    boolean updateInvoicesBatch(Collection<Invoice> invoices, Map<UUID, PaymentStatus> statuses);
     void deleteInvoice(UUID invoiceId);
     List<Invoice> getInvoicesByDiscordUser(String discordUserId);
+    InvoicePage getInvoicesPage(InvoiceFilter filter, InvoiceCursor cursor, int limit);
+    void forEachInvoice(InvoiceFilter filter, Consumer<Invoice> consumer);
 
     String getInvoiceIdByShortId(String shortId);
 
+    void savePayment(Payment payment);
+    Payment getPayment(UUID paymentId);
+    Payment getPaymentByExternalId(String externalPaymentId);
+    List<Payment> getPaymentsByInvoice(UUID invoiceId);
+    List<Payment> getPaymentsByDiscordUser(String discordUserId);
+    List<PaymentTotal> getPaymentTotals();
+
+    long enqueueWebhookEvent(PaymentGateway gateway, String payload);
+    List<WebhookInboxEntry> getPendingWebhookEvents(long afterId, int limit);
+    void deleteWebhookEvent(long id);
+    void recordWebhookEventFailure(long id, String lastError);
+    void deadLetterWebhookEvent(long id);
+    boolean isWebhookEventProcessed(PaymentGateway gateway, String eventId);
+    void recordProcessedWebhookEvent(PaymentGateway gateway, String eventId);
+    int purgeProcessedWebhookEvents(LocalDateTime olderThan);
+
+    boolean updateInvoiceWithOutbox(Invoice invoice, List<OutboxEntry> entries);
+    WebhookUpdateResult updateInvoiceFromWebhook(Invoice invoice, List<OutboxEntry> entries, WebhookEvent event);
+    List<OutboxEntry> getDueOutboxEntries(LocalDateTime now, int limit);
+    void rescheduleOutboxEntry(long id, int attempts, LocalDateTime nextAttemptAt, String lastError);
+    void deleteOutboxEntry(long id);
+    int getOutboxSize();
+
+    String getSetting(String key);
+    void saveSetting(String key, String value);
+
+    void flush();
     void close();
 }
\ No newline at end of file
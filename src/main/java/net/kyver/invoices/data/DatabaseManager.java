@@ -1,6 +1,8 @@
 package net.kyver.invoices.data;
 
+import net.kyver.invoices.data.storage.CachingStorage;
 import net.kyver.invoices.data.storage.SQLiteStorage;
+import net.kyver.invoices.data.storage.WriteBehindStorage;
 import net.kyver.invoices.manager.ConfigManager;
 import net.kyver.invoices.manager.LoggingManager;
 
@@ -8,6 +10,8 @@ public class DatabaseManager {
 
     private static final LoggingManager logger = LoggingManager.getLogger(DatabaseManager.class);
     private static DataMethods dataMethods;
+    private static CachingStorage invoiceCache;
+    private static WriteBehindStorage writeBehind;
     private final ConfigManager configManager;
 
     public DatabaseManager() {
@@ -17,11 +21,35 @@ public class DatabaseManager {
     public void initializeDatabase() {
         logger.database("Initializing database with type: SQLite");
 
-        dataMethods = new SQLiteStorage();
+        DataMethods storage = new SQLiteStorage();
+        if (configManager.isWriteBehindEnabled()) {
+            writeBehind = new WriteBehindStorage(storage,
+                    configManager.getWriteBehindFlushIntervalMs(),
+                    configManager.getWriteBehindMaxBatchSize());
+            writeBehind.start();
+            storage = writeBehind;
+        }
+
+        if (configManager.isInvoiceCacheEnabled()) {
+            invoiceCache = new CachingStorage(storage,
+                    configManager.getInvoiceCacheMaxSize(),
+                    configManager.getInvoiceCacheTtlSeconds());
+            storage = invoiceCache;
+        }
+
+        dataMethods = storage;
         logger.success("SQLite database initialized");
     }
 
     public static DataMethods getDataMethods() {
         return dataMethods;
     }
+
+    public static CachingStorage getInvoiceCache() {
+        return invoiceCache;
+    }
+
+    public static WriteBehindStorage getWriteBehind() {
+        return writeBehind;
+    }
 }
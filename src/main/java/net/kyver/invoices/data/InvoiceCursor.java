@@ -0,0 +1,25 @@
+package net.kyver.invoices.data;
+
+import net.kyver.invoices.model.Invoice;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public class InvoiceCursor {
+
+    private final LocalDateTime createdAt;
+    private final UUID invoiceId;
+
+    public InvoiceCursor(LocalDateTime createdAt, UUID invoiceId) {
+        this.createdAt = createdAt;
+        this.invoiceId = invoiceId;
+    }
+
+    public static InvoiceCursor after(Invoice invoice) {
+        return new InvoiceCursor(invoice.getCreatedAt(), invoice.getInvoiceId());
+    }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+
+    public UUID getInvoiceId() { return invoiceId; }
+}
@@ -0,0 +1,32 @@
+package net.kyver.invoices.data;
+
+import net.kyver.invoices.enums.PaymentStatus;
+
+public class InvoiceFilter {
+
+    private static final InvoiceFilter ALL = new InvoiceFilter(null, null);
+
+    private final String discordUserId;
+    private final PaymentStatus status;
+
+    private InvoiceFilter(String discordUserId, PaymentStatus status) {
+        this.discordUserId = discordUserId;
+        this.status = status;
+    }
+
+    public static InvoiceFilter all() {
+        return ALL;
+    }
+
+    public static InvoiceFilter forUser(String discordUserId) {
+        return new InvoiceFilter(discordUserId, null);
+    }
+
+    public InvoiceFilter withStatus(PaymentStatus status) {
+        return new InvoiceFilter(discordUserId, status);
+    }
+
+    public String getDiscordUserId() { return discordUserId; }
+
+    public PaymentStatus getStatus() { return status; }
+}
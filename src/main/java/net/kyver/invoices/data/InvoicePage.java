@@ -0,0 +1,24 @@
+package net.kyver.invoices.data;
+
+import net.kyver.invoices.model.Invoice;
+
+import java.util.List;
+
+public class InvoicePage {
+
+    private final List<Invoice> invoices;
+    private final InvoiceCursor nextCursor;
+
+    public InvoicePage(List<Invoice> invoices, InvoiceCursor nextCursor) {
+        this.invoices = invoices;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Invoice> getInvoices() { return invoices; }
+
+    public InvoiceCursor getNextCursor() { return nextCursor; }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
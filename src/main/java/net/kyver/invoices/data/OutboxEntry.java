@@ -0,0 +1,54 @@
+package net.kyver.invoices.data;
+
+import net.kyver.invoices.enums.OutboxAction;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public class OutboxEntry {
+
+    private final long id;
+    private final UUID invoiceId;
+    private final OutboxAction action;
+    private final String targetUserId;
+    private final String detail;
+    private final int attempts;
+    private final LocalDateTime createdAt;
+
+    public OutboxEntry(long id, UUID invoiceId, OutboxAction action, String targetUserId, String detail,
+                       int attempts, LocalDateTime createdAt) {
+        this.id = id;
+        this.invoiceId = invoiceId;
+        this.action = action;
+        this.targetUserId = targetUserId;
+        this.detail = detail;
+        this.attempts = attempts;
+        this.createdAt = createdAt;
+    }
+
+    public static OutboxEntry of(UUID invoiceId, OutboxAction action) {
+        return new OutboxEntry(0, invoiceId, action, null, null, 0, LocalDateTime.now());
+    }
+
+    public static OutboxEntry forUser(UUID invoiceId, OutboxAction action, String targetUserId) {
+        return new OutboxEntry(0, invoiceId, action, targetUserId, null, 0, LocalDateTime.now());
+    }
+
+    public static OutboxEntry withDetail(UUID invoiceId, OutboxAction action, String detail) {
+        return new OutboxEntry(0, invoiceId, action, null, detail, 0, LocalDateTime.now());
+    }
+
+    public long getId() { return id; }
+
+    public UUID getInvoiceId() { return invoiceId; }
+
+    public OutboxAction getAction() { return action; }
+
+    public String getTargetUserId() { return targetUserId; }
+
+    public String getDetail() { return detail; }
+
+    public int getAttempts() { return attempts; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+}
@@ -0,0 +1,28 @@
+package net.kyver.invoices.data;
+
+import net.kyver.invoices.enums.PaymentStatus;
+
+import java.math.BigDecimal;
+
+public class PaymentTotal {
+
+    private final PaymentStatus status;
+    private final String currency;
+    private final long count;
+    private final BigDecimal amount;
+
+    public PaymentTotal(PaymentStatus status, String currency, long count, BigDecimal amount) {
+        this.status = status;
+        this.currency = currency;
+        this.count = count;
+        this.amount = amount;
+    }
+
+    public PaymentStatus getStatus() { return status; }
+
+    public String getCurrency() { return currency; }
+
+    public long getCount() { return count; }
+
+    public BigDecimal getAmount() { return amount; }
+}
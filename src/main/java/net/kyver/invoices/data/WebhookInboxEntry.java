@@ -0,0 +1,32 @@
+package net.kyver.invoices.data;
+
+import net.kyver.invoices.enums.PaymentGateway;
+
+import java.time.LocalDateTime;
+
+public class WebhookInboxEntry {
+
+    private final long id;
+    private final PaymentGateway gateway;
+    private final String payload;
+    private final int attempts;
+    private final LocalDateTime receivedAt;
+
+    public WebhookInboxEntry(long id, PaymentGateway gateway, String payload, int attempts, LocalDateTime receivedAt) {
+        this.id = id;
+        this.gateway = gateway;
+        this.payload = payload;
+        this.attempts = attempts;
+        this.receivedAt = receivedAt;
+    }
+
+    public long getId() { return id; }
+
+    public PaymentGateway getGateway() { return gateway; }
+
+    public String getPayload() { return payload; }
+
+    public int getAttempts() { return attempts; }
+
+    public LocalDateTime getReceivedAt() { return receivedAt; }
+}
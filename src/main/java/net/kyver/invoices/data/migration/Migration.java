@@ -0,0 +1,44 @@
+package net.kyver.invoices.data.migration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+public class Migration {
+
+    private final int version;
+    private final String description;
+    private final MigrationStep step;
+
+    public Migration(int version, String description, MigrationStep step) {
+        if (version <= 0) {
+            throw new IllegalArgumentException("Migration version must be positive: " + version);
+        }
+        this.version = version;
+        this.description = description;
+        this.step = step;
+    }
+
+    public static Migration of(int version, String description, String... statements) {
+        return new Migration(version, description, connection -> {
+            try (Statement statement = connection.createStatement()) {
+                for (String sql : statements) {
+                    statement.execute(sql);
+                }
+            }
+        });
+    }
+
+    public int getVersion() { return version; }
+
+    public String getDescription() { return description; }
+
+    public void apply(Connection connection) throws SQLException {
+        step.apply(connection);
+    }
+
+    @FunctionalInterface
+    public interface MigrationStep {
+        void apply(Connection connection) throws SQLException;
+    }
+}
@@ -0,0 +1,90 @@
+package net.kyver.invoices.data.migration;
+
+import net.kyver.invoices.manager.LoggingManager;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class MigrationRunner {
+
+    private static final LoggingManager logger = LoggingManager.getLogger(MigrationRunner.class);
+    private final List<Migration> migrations;
+
+    public MigrationRunner(List<Migration> migrations) {
+        Set<Integer> versions = new HashSet<>();
+        for (Migration migration : migrations) {
+            if (!versions.add(migration.getVersion())) {
+                throw new IllegalArgumentException("Duplicate migration version: " + migration.getVersion());
+            }
+        }
+
+        this.migrations = new ArrayList<>(migrations);
+        this.migrations.sort(Comparator.comparingInt(Migration::getVersion));
+    }
+
+    public int migrate(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS schema_version (" +
+                    "version INTEGER PRIMARY KEY, " +
+                    "description TEXT NOT NULL, " +
+                    "applied_at DATETIME NOT NULL" +
+                    ")");
+        }
+
+        int currentVersion = getCurrentVersion(connection);
+        int applied = 0;
+        boolean autoCommit = connection.getAutoCommit();
+
+        try {
+            connection.setAutoCommit(false);
+
+            for (Migration migration : migrations) {
+                if (migration.getVersion() <= currentVersion) {
+                    continue;
+                }
+
+                try {
+                    migration.apply(connection);
+                    recordVersion(connection, migration);
+                    connection.commit();
+                    applied++;
+                    logger.database("Applied schema migration %d: %s", migration.getVersion(), migration.getDescription());
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw new SQLException("Schema migration " + migration.getVersion() + " failed: " + e.getMessage(), e);
+                }
+            }
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+
+        if (applied == 0) {
+            logger.debug("Database schema is up to date (version %d)", currentVersion);
+        }
+
+        return applied;
+    }
+
+    private int getCurrentVersion(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT MAX(version) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private void recordVersion(Connection connection, Migration migration) throws SQLException {
+        String sql = "INSERT INTO schema_version (version, description, applied_at) VALUES (?, ?, ?)";
+
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setInt(1, migration.getVersion());
+            statement.setString(2, migration.getDescription());
+            statement.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
+            statement.executeUpdate();
+        }
+    }
+}
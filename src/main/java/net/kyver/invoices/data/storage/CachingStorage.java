@@ -0,0 +1,317 @@
+package net.kyver.invoices.data.storage;
+
+import net.kyver.invoices.data.DataMethods;
+import net.kyver.invoices.data.InvoiceCursor;
+import net.kyver.invoices.data.InvoiceFilter;
+import net.kyver.invoices.data.InvoicePage;
+import net.kyver.invoices.data.OutboxEntry;
+import net.kyver.invoices.data.PaymentTotal;
+import net.kyver.invoices.data.WebhookInboxEntry;
+import net.kyver.invoices.enums.PaymentGateway;
+import net.kyver.invoices.enums.PaymentStatus;
+import net.kyver.invoices.enums.WebhookUpdateResult;
+import net.kyver.invoices.manager.LoggingManager;
+import net.kyver.invoices.model.Invoice;
+import net.kyver.invoices.model.Payment;
+import net.kyver.invoices.model.WebhookEvent;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+public class CachingStorage implements DataMethods {
+
+    private static final LoggingManager logger = LoggingManager.getLogger(CachingStorage.class);
+    private final DataMethods delegate;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LinkedHashMap<UUID, CacheEntry> cache;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private long generation;
+
+    public CachingStorage(DataMethods delegate, int maxSize, long ttlSeconds) {
+        this.delegate = delegate;
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(Math.max(1, ttlSeconds));
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, CacheEntry> eldest) {
+                if (size() > CachingStorage.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        logger.database("Invoice cache enabled (max %d entries, %ds TTL)", this.maxSize, Math.max(1, ttlSeconds));
+    }
+
+    @Override
+    public void createInvoice(Invoice invoice) {
+        delegate.createInvoice(invoice);
+        invalidate(invoice.getInvoiceId());
+    }
+
+    @Override
+    public Invoice getInvoice(UUID invoiceId) {
+        long observedGeneration;
+        synchronized (cache) {
+            CacheEntry entry = cache.get(invoiceId);
+            if (entry != null) {
+                if (entry.expiresAt - System.nanoTime() > 0) {
+                    hits.increment();
+                    return entry.invoice.copy();
+                }
+                cache.remove(invoiceId);
+                expirations.increment();
+            }
+            observedGeneration = generation;
+        }
+
+        misses.increment();
+        Invoice invoice = delegate.getInvoice(invoiceId);
+
+        if (invoice != null) {
+            synchronized (cache) {
+                if (generation == observedGeneration) {
+                    cache.put(invoiceId, new CacheEntry(invoice.copy(), System.nanoTime() + ttlNanos));
+                }
+            }
+        }
+        return invoice;
+    }
+
+    @Override
+    public Invoice getInvoiceByExternalPaymentId(String externalPaymentId) {
+        return delegate.getInvoiceByExternalPaymentId(externalPaymentId);
+    }
+
+    @Override
+    public List<Invoice> getInvoicesByUser(String userId) {
+        return delegate.getInvoicesByUser(userId);
+    }
+
+    @Override
+    public List<Invoice> getAllInvoices() {
+        return delegate.getAllInvoices();
+    }
+
+    @Override
+    public void updateInvoice(Invoice invoice) {
+        delegate.updateInvoice(invoice);
+        invalidate(invoice.getInvoiceId());
+    }
+
+    @Override
+    public void updateInvoiceStatus(UUID invoiceId, PaymentStatus status) {
+        delegate.updateInvoiceStatus(invoiceId, status);
+        invalidate(invoiceId);
+    }
+
+    @Override
+    public boolean updateInvoicesBatch(Collection<Invoice> invoices, Map<UUID, PaymentStatus> statuses) {
+        boolean updated = delegate.updateInvoicesBatch(invoices, statuses);
+        invoices.forEach(invoice -> invalidate(invoice.getInvoiceId()));
+        statuses.keySet().forEach(this::invalidate);
+        return updated;
+    }
+
+    @Override
+    public void deleteInvoice(UUID invoiceId) {
+        delegate.deleteInvoice(invoiceId);
+        invalidate(invoiceId);
+    }
+
+    @Override
+    public List<Invoice> getInvoicesByDiscordUser(String discordUserId) {
+        return delegate.getInvoicesByDiscordUser(discordUserId);
+    }
+
+    @Override
+    public InvoicePage getInvoicesPage(InvoiceFilter filter, InvoiceCursor cursor, int limit) {
+        return delegate.getInvoicesPage(filter, cursor, limit);
+    }
+
+    @Override
+    public void forEachInvoice(InvoiceFilter filter, Consumer<Invoice> consumer) {
+        delegate.forEachInvoice(filter, consumer);
+    }
+
+    @Override
+    public String getInvoiceIdByShortId(String shortId) {
+        return delegate.getInvoiceIdByShortId(shortId);
+    }
+
+    @Override
+    public void savePayment(Payment payment) {
+        delegate.savePayment(payment);
+    }
+
+    @Override
+    public Payment getPayment(UUID paymentId) {
+        return delegate.getPayment(paymentId);
+    }
+
+    @Override
+    public Payment getPaymentByExternalId(String externalPaymentId) {
+        return delegate.getPaymentByExternalId(externalPaymentId);
+    }
+
+    @Override
+    public List<Payment> getPaymentsByInvoice(UUID invoiceId) {
+        return delegate.getPaymentsByInvoice(invoiceId);
+    }
+
+    @Override
+    public List<Payment> getPaymentsByDiscordUser(String discordUserId) {
+        return delegate.getPaymentsByDiscordUser(discordUserId);
+    }
+
+    @Override
+    public List<PaymentTotal> getPaymentTotals() {
+        return delegate.getPaymentTotals();
+    }
+
+    @Override
+    public long enqueueWebhookEvent(PaymentGateway gateway, String payload) {
+        return delegate.enqueueWebhookEvent(gateway, payload);
+    }
+
+    @Override
+    public List<WebhookInboxEntry> getPendingWebhookEvents(long afterId, int limit) {
+        return delegate.getPendingWebhookEvents(afterId, limit);
+    }
+
+    @Override
+    public void deleteWebhookEvent(long id) {
+        delegate.deleteWebhookEvent(id);
+    }
+
+    @Override
+    public void recordWebhookEventFailure(long id, String lastError) {
+        delegate.recordWebhookEventFailure(id, lastError);
+    }
+
+    @Override
+    public void deadLetterWebhookEvent(long id) {
+        delegate.deadLetterWebhookEvent(id);
+    }
+
+    @Override
+    public boolean isWebhookEventProcessed(PaymentGateway gateway, String eventId) {
+        return delegate.isWebhookEventProcessed(gateway, eventId);
+    }
+
+    @Override
+    public void recordProcessedWebhookEvent(PaymentGateway gateway, String eventId) {
+        delegate.recordProcessedWebhookEvent(gateway, eventId);
+    }
+
+    @Override
+    public int purgeProcessedWebhookEvents(LocalDateTime olderThan) {
+        return delegate.purgeProcessedWebhookEvents(olderThan);
+    }
+
+    @Override
+    public boolean updateInvoiceWithOutbox(Invoice invoice, List<OutboxEntry> entries) {
+        boolean updated = delegate.updateInvoiceWithOutbox(invoice, entries);
+        invalidate(invoice.getInvoiceId());
+        return updated;
+    }
+
+    @Override
+    public WebhookUpdateResult updateInvoiceFromWebhook(Invoice invoice, List<OutboxEntry> entries, WebhookEvent event) {
+        WebhookUpdateResult result = delegate.updateInvoiceFromWebhook(invoice, entries, event);
+        invalidate(invoice.getInvoiceId());
+        return result;
+    }
+
+    @Override
+    public List<OutboxEntry> getDueOutboxEntries(LocalDateTime now, int limit) {
+        return delegate.getDueOutboxEntries(now, limit);
+    }
+
+    @Override
+    public void rescheduleOutboxEntry(long id, int attempts, LocalDateTime nextAttemptAt, String lastError) {
+        delegate.rescheduleOutboxEntry(id, attempts, nextAttemptAt, lastError);
+    }
+
+    @Override
+    public void deleteOutboxEntry(long id) {
+        delegate.deleteOutboxEntry(id);
+    }
+
+    @Override
+    public int getOutboxSize() {
+        return delegate.getOutboxSize();
+    }
+
+    @Override
+    public String getSetting(String key) {
+        return delegate.getSetting(key);
+    }
+
+    @Override
+    public void saveSetting(String key, String value) {
+        delegate.saveSetting(key, value);
+    }
+
+    @Override
+    public void flush() {
+        delegate.flush();
+    }
+
+    @Override
+    public void close() {
+        synchronized (cache) {
+            cache.clear();
+        }
+        delegate.close();
+    }
+
+    public void invalidate(UUID invoiceId) {
+        synchronized (cache) {
+            generation++;
+            if (cache.remove(invoiceId) != null) {
+                invalidations.increment();
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long requests = hitCount + missCount;
+
+        synchronized (cache) {
+            stats.put("size", cache.size());
+        }
+        stats.put("max_size", maxSize);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hit_rate", requests == 0 ? 0.0 : (double) hitCount / requests);
+        stats.put("evictions", evictions.sum());
+        stats.put("expirations", expirations.sum());
+        stats.put("invalidations", invalidations.sum());
+
+        return stats;
+    }
+
+    private static class CacheEntry {
+        private final Invoice invoice;
+        private final long expiresAt;
+
+        private CacheEntry(Invoice invoice, long expiresAt) {
+            this.invoice = invoice;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -3,21 +3,68 @@ package net.kyver.invoices.data.storage;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import net.kyver.invoices.data.DataMethods;
+import net.kyver.invoices.data.InvoiceCursor;
+import net.kyver.invoices.data.InvoiceFilter;
+import net.kyver.invoices.data.InvoicePage;
+import net.kyver.invoices.data.OutboxEntry;
+import net.kyver.invoices.data.PaymentTotal;
+import net.kyver.invoices.data.WebhookInboxEntry;
+import net.kyver.invoices.data.migration.Migration;
+import net.kyver.invoices.data.migration.MigrationRunner;
+import net.kyver.invoices.enums.OutboxAction;
+import net.kyver.invoices.enums.WebhookUpdateResult;
 import net.kyver.invoices.model.Invoice;
+import net.kyver.invoices.model.Payment;
+import net.kyver.invoices.model.WebhookEvent;
 import net.kyver.invoices.enums.PaymentStatus;
+import net.kyver.invoices.manager.ConfigManager;
 import net.kyver.invoices.manager.LoggingManager;
+import org.sqlite.SQLiteConfig;
 
 import java.io.File;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
 
 public class SQLiteStorage implements DataMethods {
 
     private static final LoggingManager logger = LoggingManager.getLogger(SQLiteStorage.class);
+    private static final String UPDATE_INVOICE_SQL = "UPDATE invoices SET discord_user_id = ?, customer_email = ?, " +
+            "customer_name = ?, description = ?, amount = ?, currency = ?, status = ?, updated_at = ?, due_date = ?, " +
+            "payment_gateway = ?, external_payment_id = ?, channel_id = ?, channel_message_id = ?, " +
+            "dm_selection_message_id = ?, dm_payment_message_id = ?, payment_url = ?, qr_code_data = ? " +
+            "WHERE invoice_id = ?";
+    private static final String UPDATE_STATUS_SQL = "UPDATE invoices SET status = ?, updated_at = ? WHERE invoice_id = ?";
+    private static final String UPSERT_PAYMENT_SQL = "INSERT INTO payments (payment_id, invoice_id, discord_user_id, " +
+            "gateway, external_payment_id, amount, currency, status, payment_method, customer_email, customer_name, " +
+            "description, created_at, updated_at, completed_at, failure_reason, metadata, webhook_event_id, " +
+            "fee_amount, net_amount, receipt_url, refund_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (payment_id) DO UPDATE SET external_payment_id = excluded.external_payment_id, " +
+            "amount = excluded.amount, currency = excluded.currency, status = excluded.status, " +
+            "payment_method = excluded.payment_method, customer_email = excluded.customer_email, " +
+            "customer_name = excluded.customer_name, description = excluded.description, " +
+            "updated_at = excluded.updated_at, completed_at = excluded.completed_at, " +
+            "failure_reason = excluded.failure_reason, metadata = excluded.metadata, " +
+            "webhook_event_id = excluded.webhook_event_id, fee_amount = excluded.fee_amount, " +
+            "net_amount = excluded.net_amount, receipt_url = excluded.receipt_url, refund_id = excluded.refund_id";
+    private static final int STREAM_PAGE_SIZE = 200;
+    private static final Pattern SHORT_ID_PATTERN = Pattern.compile("[0-9a-f][0-9a-f-]{0,35}");
+    private final File dbFile;
     private HikariDataSource hikariDataSource;
+    private HikariDataSource readerDataSource;
 
     public SQLiteStorage() {
+        this(new File("data", "invoices.db"));
+    }
+
+    public SQLiteStorage(File dbFile) {
+        this.dbFile = dbFile;
         init();
     }
 
@@ -25,14 +72,13 @@ public class SQLiteStorage implements DataMethods {
         logger.database("Initializing SQLite database...");
         HikariConfig config = new HikariConfig();
 
-        File dbFolder = new File("data");
+        File dbFolder = dbFile.getAbsoluteFile().getParentFile();
         if (!dbFolder.exists()) {
             dbFolder.mkdirs();
         }
 
-        File dbFile = new File(dbFolder, "invoices.db");
-        String dbPath = dbFile.getAbsolutePath();
-        config.setJdbcUrl("jdbc:sqlite:" + dbPath);
+        String jdbcUrl = "jdbc:sqlite:" + dbFile.getAbsolutePath();
+        config.setJdbcUrl(jdbcUrl);
         config.setConnectionTestQuery("SELECT 1");
         config.setMaximumPoolSize(1);
         config.setPoolName("SQLitePool");
@@ -45,34 +91,192 @@ public class SQLiteStorage implements DataMethods {
             statement.execute("PRAGMA journal_mode=WAL");
             statement.execute("PRAGMA synchronous=NORMAL");
 
-            statement.execute("CREATE TABLE IF NOT EXISTS invoices (" +
-                    "invoice_id TEXT PRIMARY KEY, " +
-                    "discord_user_id TEXT NOT NULL, " +
-                    "customer_email TEXT, " +
-                    "customer_name TEXT, " +
-                    "description TEXT, " +
-                    "amount DECIMAL(10,2) NOT NULL, " +
-                    "currency TEXT NOT NULL, " +
-                    "status TEXT NOT NULL, " +
-                    "created_at DATETIME NOT NULL, " +
-                    "updated_at DATETIME NOT NULL, " +
-                    "due_date DATETIME, " +
-                    "payment_gateway TEXT, " +
-                    "external_payment_id TEXT" +
-                    ")");
+            int applied = new MigrationRunner(migrations()).migrate(connection);
+            if (applied > 0) {
+                logger.database("Applied %d schema migration(s)", applied);
+            }
 
             logger.success("SQLite database initialized successfully");
 
         } catch (SQLException e) {
             logger.error("Failed to initialize SQLite database", e);
+            hikariDataSource.close();
+            throw new IllegalStateException("SQLite schema migration failed", e);
+        }
+
+        int readerPoolSize = ConfigManager.getInstance().getDatabaseReaderPoolSize();
+        if (readerPoolSize > 0) {
+            readerDataSource = createReaderDataSource(jdbcUrl, readerPoolSize);
+            logger.database("SQLite reader pool started with %d read-only connection(s)", readerPoolSize);
+        } else {
+            logger.database("SQLite reader pool disabled, reads share the writer connection");
         }
     }
 
+    private HikariDataSource createReaderDataSource(String jdbcUrl, int poolSize) {
+        SQLiteConfig sqliteConfig = new SQLiteConfig();
+        sqliteConfig.setReadOnly(true);
+
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(jdbcUrl);
+        config.setDataSourceProperties(sqliteConfig.toProperties());
+        config.setReadOnly(true);
+        config.setConnectionInitSql("PRAGMA query_only = ON");
+        config.setConnectionTestQuery("SELECT 1");
+        config.setMaximumPoolSize(poolSize);
+        config.setPoolName("SQLiteReaderPool");
+
+        return new HikariDataSource(config);
+    }
+
+    private Connection getReadConnection() throws SQLException {
+        return readerDataSource != null ? readerDataSource.getConnection() : hikariDataSource.getConnection();
+    }
+
+    private static List<Migration> migrations() {
+        return List.of(
+                Migration.of(1, "Create invoices table",
+                        "CREATE TABLE IF NOT EXISTS invoices (" +
+                                "invoice_id TEXT PRIMARY KEY, " +
+                                "discord_user_id TEXT NOT NULL, " +
+                                "customer_email TEXT, " +
+                                "customer_name TEXT, " +
+                                "description TEXT, " +
+                                "amount DECIMAL(10,2) NOT NULL, " +
+                                "currency TEXT NOT NULL, " +
+                                "status TEXT NOT NULL, " +
+                                "created_at DATETIME NOT NULL, " +
+                                "updated_at DATETIME NOT NULL, " +
+                                "due_date DATETIME, " +
+                                "payment_gateway TEXT, " +
+                                "external_payment_id TEXT" +
+                                ")"),
+                new Migration(2, "Index invoices by external payment ID", connection -> {
+                    try (Statement statement = connection.createStatement()) {
+                        int cleared = statement.executeUpdate("UPDATE invoices SET external_payment_id = NULL " +
+                                "WHERE external_payment_id IS NOT NULL AND EXISTS (" +
+                                "SELECT 1 FROM invoices newer " +
+                                "WHERE newer.external_payment_id = invoices.external_payment_id " +
+                                "AND (newer.updated_at > invoices.updated_at " +
+                                "OR (newer.updated_at = invoices.updated_at AND newer.rowid > invoices.rowid)))");
+                        if (cleared > 0) {
+                            logger.warn("Cleared duplicate external payment IDs from %d older invoice(s)", cleared);
+                        }
+                        statement.execute("CREATE UNIQUE INDEX IF NOT EXISTS idx_invoices_external_payment_id " +
+                                "ON invoices (external_payment_id)");
+                    }
+                }),
+                Migration.of(3, "Add invoice listing and status indexes",
+                        "CREATE INDEX IF NOT EXISTS idx_invoices_user_created " +
+                                "ON invoices (discord_user_id, created_at DESC)",
+                        "CREATE INDEX IF NOT EXISTS idx_invoices_status_due " +
+                                "ON invoices (status, due_date)",
+                        "CREATE INDEX IF NOT EXISTS idx_invoices_created " +
+                                "ON invoices (created_at)"),
+                Migration.of(4, "Add indexed short ID column",
+                        "ALTER TABLE invoices ADD COLUMN short_id TEXT",
+                        "UPDATE invoices SET short_id = lower(substr(invoice_id, 1, " + Invoice.SHORT_ID_LENGTH + "))",
+                        "CREATE INDEX IF NOT EXISTS idx_invoices_short_id ON invoices (short_id)"),
+                Migration.of(5, "Persist Discord routing fields",
+                        "ALTER TABLE invoices ADD COLUMN channel_id TEXT",
+                        "ALTER TABLE invoices ADD COLUMN channel_message_id TEXT",
+                        "ALTER TABLE invoices ADD COLUMN dm_selection_message_id TEXT",
+                        "ALTER TABLE invoices ADD COLUMN dm_payment_message_id TEXT",
+                        "ALTER TABLE invoices ADD COLUMN payment_url TEXT",
+                        "ALTER TABLE invoices ADD COLUMN qr_code_data TEXT"),
+                Migration.of(6, "Create payments table",
+                        "CREATE TABLE IF NOT EXISTS payments (" +
+                                "payment_id TEXT PRIMARY KEY, " +
+                                "invoice_id TEXT NOT NULL, " +
+                                "discord_user_id TEXT, " +
+                                "gateway TEXT, " +
+                                "external_payment_id TEXT, " +
+                                "amount DECIMAL(10,2) NOT NULL, " +
+                                "currency TEXT NOT NULL, " +
+                                "status TEXT NOT NULL, " +
+                                "payment_method TEXT, " +
+                                "customer_email TEXT, " +
+                                "customer_name TEXT, " +
+                                "description TEXT, " +
+                                "created_at DATETIME NOT NULL, " +
+                                "updated_at DATETIME NOT NULL, " +
+                                "completed_at DATETIME, " +
+                                "failure_reason TEXT, " +
+                                "metadata TEXT, " +
+                                "webhook_event_id TEXT, " +
+                                "fee_amount DECIMAL(10,2), " +
+                                "net_amount DECIMAL(10,2), " +
+                                "receipt_url TEXT, " +
+                                "refund_id TEXT" +
+                                ")",
+                        "CREATE INDEX IF NOT EXISTS idx_payments_invoice ON payments (invoice_id)",
+                        "CREATE UNIQUE INDEX IF NOT EXISTS idx_payments_external_payment_id " +
+                                "ON payments (external_payment_id)",
+                        "CREATE INDEX IF NOT EXISTS idx_payments_user_created " +
+                                "ON payments (discord_user_id, created_at DESC)"),
+                Migration.of(7, "Create webhook inbox table",
+                        "CREATE TABLE IF NOT EXISTS webhook_inbox (" +
+                                "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                                "gateway TEXT NOT NULL, " +
+                                "payload TEXT NOT NULL, " +
+                                "received_at DATETIME NOT NULL" +
+                                ")"),
+                Migration.of(8, "Create processed webhook events table",
+                        "CREATE TABLE IF NOT EXISTS processed_webhook_events (" +
+                                "gateway TEXT NOT NULL, " +
+                                "event_id TEXT NOT NULL, " +
+                                "received_at DATETIME NOT NULL, " +
+                                "PRIMARY KEY (gateway, event_id)" +
+                                ")",
+                        "CREATE INDEX IF NOT EXISTS idx_processed_webhook_events_received " +
+                                "ON processed_webhook_events (received_at)"),
+                Migration.of(9, "Create Discord outbox table",
+                        "CREATE TABLE IF NOT EXISTS discord_outbox (" +
+                                "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                                "invoice_id TEXT NOT NULL, " +
+                                "action TEXT NOT NULL, " +
+                                "payload TEXT, " +
+                                "attempts INTEGER NOT NULL DEFAULT 0, " +
+                                "next_attempt_at DATETIME NOT NULL, " +
+                                "last_error TEXT, " +
+                                "created_at DATETIME NOT NULL" +
+                                ")",
+                        "CREATE INDEX IF NOT EXISTS idx_discord_outbox_next_attempt " +
+                                "ON discord_outbox (next_attempt_at, id)"),
+                Migration.of(10, "Create app settings table",
+                        "CREATE TABLE IF NOT EXISTS app_settings (" +
+                                "setting_key TEXT PRIMARY KEY, " +
+                                "setting_value TEXT NOT NULL, " +
+                                "updated_at DATETIME NOT NULL" +
+                                ")"),
+                Migration.of(11, "Track webhook inbox attempts",
+                        "ALTER TABLE webhook_inbox ADD COLUMN attempts INTEGER NOT NULL DEFAULT 0",
+                        "ALTER TABLE webhook_inbox ADD COLUMN last_error TEXT"),
+                Migration.of(12, "Index Discord outbox by invoice",
+                        "CREATE INDEX IF NOT EXISTS idx_discord_outbox_invoice " +
+                                "ON discord_outbox (invoice_id, id)"),
+                Migration.of(13, "Split Discord outbox payload",
+                        "ALTER TABLE discord_outbox ADD COLUMN target_user_id TEXT",
+                        "ALTER TABLE discord_outbox ADD COLUMN detail TEXT",
+                        "UPDATE discord_outbox SET detail = payload WHERE action = 'PAYMENT_FAILED_NOTIFICATION'",
+                        "UPDATE discord_outbox SET target_user_id = payload WHERE action <> 'PAYMENT_FAILED_NOTIFICATION'",
+                        "ALTER TABLE discord_outbox DROP COLUMN payload"),
+                Migration.of(14, "Dead-letter webhook inbox rows and track event order",
+                        "ALTER TABLE webhook_inbox ADD COLUMN dead_lettered_at DATETIME",
+                        "ALTER TABLE processed_webhook_events ADD COLUMN payment_id TEXT",
+                        "ALTER TABLE processed_webhook_events ADD COLUMN event_created_at INTEGER",
+                        "CREATE INDEX IF NOT EXISTS idx_processed_webhook_events_payment " +
+                                "ON processed_webhook_events (gateway, payment_id, event_created_at)")
+        );
+    }
+
     @Override
     public void createInvoice(Invoice invoice) {
         String sql = "INSERT INTO invoices (invoice_id, discord_user_id, customer_email, customer_name, " +
                 "description, amount, currency, status, created_at, updated_at, due_date, " +
-                "payment_gateway, external_payment_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+                "payment_gateway, external_payment_id, short_id, channel_id, channel_message_id, " +
+                "dm_selection_message_id, dm_payment_message_id, payment_url, qr_code_data) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
 
         try (Connection connection = hikariDataSource.getConnection();
              PreparedStatement statement = connection.prepareStatement(sql)) {
@@ -90,6 +294,13 @@ public class SQLiteStorage implements DataMethods {
             statement.setTimestamp(11, invoice.getDueDate() != null ? Timestamp.valueOf(invoice.getDueDate()) : null);
             statement.setString(12, invoice.getSelectedGateway() != null ? invoice.getSelectedGateway().getId() : null);
             statement.setString(13, invoice.getExternalPaymentId());
+            statement.setString(14, invoice.getShortId());
+            statement.setString(15, invoice.getChannelId());
+            statement.setString(16, invoice.getChannelMessageId());
+            statement.setString(17, invoice.getDmSelectionMessageId());
+            statement.setString(18, invoice.getDmPaymentMessageId());
+            statement.setString(19, invoice.getPaymentUrl());
+            statement.setString(20, invoice.getQrCodeData());
 
             statement.executeUpdate();
             logger.database("Invoice created: %s", invoice.getInvoiceId());
@@ -103,7 +314,7 @@ public class SQLiteStorage implements DataMethods {
     public Invoice getInvoice(UUID invoiceId) {
         String sql = "SELECT * FROM invoices WHERE invoice_id = ?";
 
-        try (Connection connection = hikariDataSource.getConnection();
+        try (Connection connection = getReadConnection();
              PreparedStatement statement = connection.prepareStatement(sql)) {
 
             statement.setString(1, invoiceId.toString());
@@ -121,6 +332,28 @@ public class SQLiteStorage implements DataMethods {
         return null;
     }
 
+    @Override
+    public Invoice getInvoiceByExternalPaymentId(String externalPaymentId) {
+        String sql = "SELECT * FROM invoices WHERE external_payment_id = ?";
+
+        try (Connection connection = getReadConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+
+            statement.setString(1, externalPaymentId);
+            ResultSet rs = statement.executeQuery();
+
+            if (rs.next()) {
+                logger.debug("Retrieved invoice by external payment ID: %s", externalPaymentId);
+                return mapResultSetToInvoice(rs);
+            }
+
+        } catch (SQLException e) {
+            logger.error("Failed to get invoice by external payment ID", e);
+        }
+
+        return null;
+    }
+
     @Override
     public List<Invoice> getInvoicesByUser(String userId) {
         return getInvoicesByDiscordUser(userId);
@@ -131,7 +364,7 @@ public class SQLiteStorage implements DataMethods {
         String sql = "SELECT * FROM invoices WHERE discord_user_id = ? ORDER BY created_at DESC";
         List<Invoice> invoices = new ArrayList<>();
 
-        try (Connection connection = hikariDataSource.getConnection();
+        try (Connection connection = getReadConnection();
              PreparedStatement statement = connection.prepareStatement(sql)) {
 
             statement.setString(1, discordUserId);
@@ -155,7 +388,7 @@ public class SQLiteStorage implements DataMethods {
         String sql = "SELECT * FROM invoices ORDER BY created_at DESC";
         List<Invoice> invoices = new ArrayList<>();
 
-        try (Connection connection = hikariDataSource.getConnection();
+        try (Connection connection = getReadConnection();
              PreparedStatement statement = connection.prepareStatement(sql)) {
 
             ResultSet rs = statement.executeQuery();
@@ -174,15 +407,100 @@ public class SQLiteStorage implements DataMethods {
     }
 
     @Override
-    public void updateInvoiceStatus(UUID invoiceId, PaymentStatus status) {
-        String sql = "UPDATE invoices SET status = ?, updated_at = ? WHERE invoice_id = ?";
+    public InvoicePage getInvoicesPage(InvoiceFilter filter, InvoiceCursor cursor, int limit) {
+        int pageSize = Math.max(1, limit);
+        List<Object> parameters = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT * FROM invoices");
+        appendFilter(sql, parameters, filter, cursor);
+        sql.append(" ORDER BY created_at DESC, invoice_id DESC LIMIT ?");
+        parameters.add(pageSize + 1);
+
+        List<Invoice> invoices = new ArrayList<>(pageSize + 1);
+
+        try (Connection connection = getReadConnection();
+             PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+
+            bindParameters(statement, parameters);
+            ResultSet rs = statement.executeQuery();
+
+            while (rs.next()) {
+                invoices.add(mapResultSetToInvoice(rs));
+            }
+
+        } catch (SQLException e) {
+            logger.error("Failed to get invoice page", e);
+        }
+
+        if (invoices.size() > pageSize) {
+            invoices.remove(pageSize);
+            return new InvoicePage(invoices, InvoiceCursor.after(invoices.get(pageSize - 1)));
+        }
+
+        return new InvoicePage(invoices, null);
+    }
+
+    @Override
+    public void forEachInvoice(InvoiceFilter filter, Consumer<Invoice> consumer) {
+        InvoiceCursor cursor = null;
+        long count = 0;
+
+        do {
+            InvoicePage page = getInvoicesPage(filter, cursor, STREAM_PAGE_SIZE);
+            for (Invoice invoice : page.getInvoices()) {
+                consumer.accept(invoice);
+                count++;
+            }
+            cursor = page.getNextCursor();
+        } while (cursor != null);
 
+        logger.debug("Streamed %d invoices", count);
+    }
+
+    private void appendFilter(StringBuilder sql, List<Object> parameters, InvoiceFilter filter, InvoiceCursor cursor) {
+        List<String> conditions = new ArrayList<>();
+
+        if (filter != null && filter.getDiscordUserId() != null) {
+            conditions.add("discord_user_id = ?");
+            parameters.add(filter.getDiscordUserId());
+        }
+
+        if (filter != null && filter.getStatus() != null) {
+            conditions.add("status = ?");
+            parameters.add(filter.getStatus().name());
+        }
+
+        if (cursor != null) {
+            Timestamp createdAt = Timestamp.valueOf(cursor.getCreatedAt());
+            conditions.add("(created_at < ? OR (created_at = ? AND invoice_id < ?))");
+            parameters.add(createdAt);
+            parameters.add(createdAt);
+            parameters.add(cursor.getInvoiceId().toString());
+        }
+
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+    }
+
+    private void bindParameters(PreparedStatement statement, List<Object> parameters) throws SQLException {
+        for (int i = 0; i < parameters.size(); i++) {
+            Object parameter = parameters.get(i);
+            if (parameter instanceof Timestamp timestamp) {
+                statement.setTimestamp(i + 1, timestamp);
+            } else if (parameter instanceof Integer number) {
+                statement.setInt(i + 1, number);
+            } else {
+                statement.setString(i + 1, (String) parameter);
+            }
+        }
+    }
+
+    @Override
+    public void updateInvoiceStatus(UUID invoiceId, PaymentStatus status) {
         try (Connection connection = hikariDataSource.getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql)) {
+             PreparedStatement statement = connection.prepareStatement(UPDATE_STATUS_SQL)) {
 
-            statement.setString(1, status.name());
-            statement.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
-            statement.setString(3, invoiceId.toString());
+            bindStatusUpdate(statement, invoiceId, status);
 
             statement.executeUpdate();
             logger.database("Invoice status updated: %s -> %s", invoiceId, status);
@@ -194,25 +512,10 @@ public class SQLiteStorage implements DataMethods {
 
     @Override
     public void updateInvoice(Invoice invoice) {
-        String sql = "UPDATE invoices SET discord_user_id = ?, customer_email = ?, customer_name = ?, " +
-                "description = ?, amount = ?, currency = ?, status = ?, updated_at = ?, due_date = ?, " +
-                "payment_gateway = ?, external_payment_id = ? WHERE invoice_id = ?";
-
         try (Connection connection = hikariDataSource.getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql)) {
+             PreparedStatement statement = connection.prepareStatement(UPDATE_INVOICE_SQL)) {
 
-            statement.setString(1, invoice.getDiscordUserId());
-            statement.setString(2, invoice.getCustomerEmail());
-            statement.setString(3, invoice.getCustomerName());
-            statement.setString(4, invoice.getDescription());
-            statement.setBigDecimal(5, invoice.getAmount());
-            statement.setString(6, invoice.getCurrency());
-            statement.setString(7, invoice.getStatus().name());
-            statement.setTimestamp(8, Timestamp.valueOf(invoice.getUpdatedAt()));
-            statement.setTimestamp(9, invoice.getDueDate() != null ? Timestamp.valueOf(invoice.getDueDate()) : null);
-            statement.setString(10, invoice.getSelectedGateway() != null ? invoice.getSelectedGateway().getId() : null);
-            statement.setString(11, invoice.getExternalPaymentId());
-            statement.setString(12, invoice.getInvoiceId().toString());
+            bindInvoiceUpdate(statement, invoice);
 
             int rowsAffected = statement.executeUpdate();
             if (rowsAffected > 0) {
@@ -226,6 +529,79 @@ public class SQLiteStorage implements DataMethods {
         }
     }
 
+    @Override
+    public boolean updateInvoicesBatch(Collection<Invoice> invoices, Map<UUID, PaymentStatus> statuses) {
+        if (invoices.isEmpty() && statuses.isEmpty()) {
+            return true;
+        }
+
+        try (Connection connection = hikariDataSource.getConnection()) {
+            connection.setAutoCommit(false);
+
+            try (PreparedStatement invoiceStatement = connection.prepareStatement(UPDATE_INVOICE_SQL);
+                 PreparedStatement statusStatement = connection.prepareStatement(UPDATE_STATUS_SQL)) {
+
+                for (Invoice invoice : invoices) {
+                    bindInvoiceUpdate(invoiceStatement, invoice);
+                    invoiceStatement.addBatch();
+                }
+
+                for (Map.Entry<UUID, PaymentStatus> entry : statuses.entrySet()) {
+                    bindStatusUpdate(statusStatement, entry.getKey(), entry.getValue());
+                    statusStatement.addBatch();
+                }
+
+                if (!invoices.isEmpty()) {
+                    invoiceStatement.executeBatch();
+                }
+                if (!statuses.isEmpty()) {
+                    statusStatement.executeBatch();
+                }
+
+                connection.commit();
+                logger.database("Batch updated %d invoice(s) and %d status change(s)", invoices.size(), statuses.size());
+                return true;
+
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+
+        } catch (SQLException e) {
+            logger.error("Failed to batch update invoices", e);
+            return false;
+        }
+    }
+
+    private void bindInvoiceUpdate(PreparedStatement statement, Invoice invoice) throws SQLException {
+        statement.setString(1, invoice.getDiscordUserId());
+        statement.setString(2, invoice.getCustomerEmail());
+        statement.setString(3, invoice.getCustomerName());
+        statement.setString(4, invoice.getDescription());
+        statement.setBigDecimal(5, invoice.getAmount());
+        statement.setString(6, invoice.getCurrency());
+        statement.setString(7, invoice.getStatus().name());
+        statement.setTimestamp(8, Timestamp.valueOf(invoice.getUpdatedAt()));
+        statement.setTimestamp(9, invoice.getDueDate() != null ? Timestamp.valueOf(invoice.getDueDate()) : null);
+        statement.setString(10, invoice.getSelectedGateway() != null ? invoice.getSelectedGateway().getId() : null);
+        statement.setString(11, invoice.getExternalPaymentId());
+        statement.setString(12, invoice.getChannelId());
+        statement.setString(13, invoice.getChannelMessageId());
+        statement.setString(14, invoice.getDmSelectionMessageId());
+        statement.setString(15, invoice.getDmPaymentMessageId());
+        statement.setString(16, invoice.getPaymentUrl());
+        statement.setString(17, invoice.getQrCodeData());
+        statement.setString(18, invoice.getInvoiceId().toString());
+    }
+
+    private void bindStatusUpdate(PreparedStatement statement, UUID invoiceId, PaymentStatus status) throws SQLException {
+        statement.setString(1, status.name());
+        statement.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+        statement.setString(3, invoiceId.toString());
+    }
+
     @Override
     public void deleteInvoice(UUID invoiceId) {
         String sql = "DELETE FROM invoices WHERE invoice_id = ?";
@@ -244,18 +620,47 @@ public class SQLiteStorage implements DataMethods {
 
     @Override
     public String getInvoiceIdByShortId(String shortId) {
-        String sql = "SELECT invoice_id FROM invoices WHERE invoice_id LIKE ?";
+        if (shortId == null) {
+            return null;
+        }
 
-        try (Connection connection = hikariDataSource.getConnection();
+        String prefix = shortId.trim().toLowerCase();
+        if (prefix.startsWith("#")) {
+            prefix = prefix.substring(1);
+        }
+
+        if (!SHORT_ID_PATTERN.matcher(prefix).matches()) {
+            logger.debug("Invalid short ID: %s", shortId);
+            return null;
+        }
+
+        String shortPrefix = prefix.substring(0, Math.min(prefix.length(), Invoice.SHORT_ID_LENGTH));
+        String upperBound = shortPrefix.substring(0, shortPrefix.length() - 1) +
+                (char) (shortPrefix.charAt(shortPrefix.length() - 1) + 1);
+
+        String sql = "SELECT invoice_id FROM invoices WHERE short_id >= ? AND short_id < ? " +
+                "AND invoice_id LIKE ? LIMIT 2";
+
+        try (Connection connection = getReadConnection();
              PreparedStatement statement = connection.prepareStatement(sql)) {
 
-            statement.setString(1, shortId.toLowerCase() + "%");
+            statement.setString(1, shortPrefix);
+            statement.setString(2, upperBound);
+            statement.setString(3, prefix + "%");
             ResultSet rs = statement.executeQuery();
 
+            if (!rs.next()) {
+                return null;
+            }
+
+            String invoiceId = rs.getString("invoice_id");
             if (rs.next()) {
-                return rs.getString("invoice_id");
+                logger.warn("Ambiguous short ID %s matches multiple invoices", shortId);
+                return null;
             }
 
+            return invoiceId;
+
         } catch (SQLException e) {
             logger.error("Failed to get invoice ID by short ID", e);
         }
@@ -263,6 +668,541 @@ public class SQLiteStorage implements DataMethods {
         return null;
     }
 
+    @Override
+    public void savePayment(Payment payment) {
+        try (Connection connection = hikariDataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(UPSERT_PAYMENT_SQL)) {
+
+            statement.setString(1, payment.getPaymentId().toString());
+            statement.setString(2, payment.getInvoiceId().toString());
+            statement.setString(3, payment.getDiscordUserId());
+            statement.setString(4, payment.getGateway() != null ? payment.getGateway().getId() : null);
+            statement.setString(5, payment.getExternalPaymentId());
+            statement.setBigDecimal(6, payment.getAmount());
+            statement.setString(7, payment.getCurrency());
+            statement.setString(8, payment.getStatus().name());
+            statement.setString(9, payment.getPaymentMethod());
+            statement.setString(10, payment.getCustomerEmail());
+            statement.setString(11, payment.getCustomerName());
+            statement.setString(12, payment.getDescription());
+            statement.setTimestamp(13, Timestamp.valueOf(payment.getCreatedAt()));
+            statement.setTimestamp(14, Timestamp.valueOf(payment.getUpdatedAt()));
+            statement.setTimestamp(15, payment.getCompletedAt() != null ? Timestamp.valueOf(payment.getCompletedAt()) : null);
+            statement.setString(16, payment.getFailureReason());
+            statement.setString(17, encodeMetadata(payment.getMetadata()));
+            statement.setString(18, payment.getWebhookEventId());
+            statement.setBigDecimal(19, payment.getFeeAmount());
+            statement.setBigDecimal(20, payment.getNetAmount());
+            statement.setString(21, payment.getReceiptUrl());
+            statement.setString(22, payment.getRefundId());
+
+            statement.executeUpdate();
+            logger.database("Payment saved: %s (%s)", payment.getPaymentId(), payment.getStatus());
+
+        } catch (SQLException e) {
+            logger.error("Failed to save payment", e);
+        }
+    }
+
+    @Override
+    public Payment getPayment(UUID paymentId) {
+        return querySinglePayment("SELECT * FROM payments WHERE payment_id = ?", paymentId.toString());
+    }
+
+    @Override
+    public Payment getPaymentByExternalId(String externalPaymentId) {
+        return querySinglePayment("SELECT * FROM payments WHERE external_payment_id = ?", externalPaymentId);
+    }
+
+    @Override
+    public List<Payment> getPaymentsByInvoice(UUID invoiceId) {
+        return queryPayments("SELECT * FROM payments WHERE invoice_id = ? ORDER BY created_at DESC", invoiceId.toString());
+    }
+
+    @Override
+    public List<Payment> getPaymentsByDiscordUser(String discordUserId) {
+        return queryPayments("SELECT * FROM payments WHERE discord_user_id = ? ORDER BY created_at DESC", discordUserId);
+    }
+
+    @Override
+    public List<PaymentTotal> getPaymentTotals() {
+        String sql = "SELECT status, currency, COUNT(*) AS payment_count, SUM(amount) AS total_amount " +
+                "FROM payments GROUP BY status, currency";
+        List<PaymentTotal> totals = new ArrayList<>();
+
+        try (Connection connection = getReadConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+
+            ResultSet rs = statement.executeQuery();
+
+            while (rs.next()) {
+                totals.add(new PaymentTotal(
+                        PaymentStatus.valueOf(rs.getString("status")),
+                        rs.getString("currency"),
+                        rs.getLong("payment_count"),
+                        rs.getBigDecimal("total_amount")
+                ));
+            }
+
+        } catch (SQLException e) {
+            logger.error("Failed to get payment totals", e);
+        }
+
+        return totals;
+    }
+
+    @Override
+    public long enqueueWebhookEvent(net.kyver.invoices.enums.PaymentGateway gateway, String payload) {
+        String sql = "INSERT INTO webhook_inbox (gateway, payload, received_at) VALUES (?, ?, ?)";
+
+        try (Connection connection = hikariDataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+
+            statement.setString(1, gateway.getId());
+            statement.setString(2, payload);
+            statement.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
+            statement.executeUpdate();
+
+            ResultSet keys = statement.getGeneratedKeys();
+            if (keys.next()) {
+                return keys.getLong(1);
+            }
+
+        } catch (SQLException e) {
+            logger.error("Failed to enqueue webhook event", e);
+        }
+
+        return -1;
+    }
+
+    @Override
+    public List<WebhookInboxEntry> getPendingWebhookEvents(long afterId, int limit) {
+        String sql = "SELECT * FROM webhook_inbox WHERE id > ? AND dead_lettered_at IS NULL ORDER BY id LIMIT ?";
+        List<WebhookInboxEntry> entries = new ArrayList<>();
+
+        try (Connection connection = getReadConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+
+            statement.setLong(1, afterId);
+            statement.setInt(2, Math.max(1, limit));
+            ResultSet rs = statement.executeQuery();
+
+            while (rs.next()) {
+                entries.add(new WebhookInboxEntry(
+                        rs.getLong("id"),
+                        net.kyver.invoices.enums.PaymentGateway.fromId(rs.getString("gateway")),
+                        rs.getString("payload"),
+                        rs.getInt("attempts"),
+                        rs.getTimestamp("received_at").toLocalDateTime()
+                ));
+            }
+
+        } catch (SQLException e) {
+            logger.error("Failed to get pending webhook events", e);
+        }
+
+        return entries;
+    }
+
+    @Override
+    public void deleteWebhookEvent(long id) {
+        try (Connection connection = hikariDataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("DELETE FROM webhook_inbox WHERE id = ?")) {
+
+            statement.setLong(1, id);
+            statement.executeUpdate();
+
+        } catch (SQLException e) {
+            logger.error("Failed to delete webhook event", e);
+        }
+    }
+
+    @Override
+    public void recordWebhookEventFailure(long id, String lastError) {
+        String sql = "UPDATE webhook_inbox SET attempts = attempts + 1, last_error = ? WHERE id = ?";
+
+        try (Connection connection = hikariDataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+
+            statement.setString(1, lastError);
+            statement.setLong(2, id);
+            statement.executeUpdate();
+
+        } catch (SQLException e) {
+            logger.error("Failed to record webhook event failure", e);
+        }
+    }
+
+    @Override
+    public void deadLetterWebhookEvent(long id) {
+        String sql = "UPDATE webhook_inbox SET dead_lettered_at = ? WHERE id = ?";
+
+        try (Connection connection = hikariDataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+
+            statement.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
+            statement.setLong(2, id);
+            statement.executeUpdate();
+
+        } catch (SQLException e) {
+            logger.error("Failed to dead-letter webhook event", e);
+        }
+    }
+
+    @Override
+    public boolean isWebhookEventProcessed(net.kyver.invoices.enums.PaymentGateway gateway, String eventId) {
+        String sql = "SELECT 1 FROM processed_webhook_events WHERE gateway = ? AND event_id = ?";
+
+        try (Connection connection = getReadConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+
+            statement.setString(1, gateway.getId());
+            statement.setString(2, eventId);
+            return statement.executeQuery().next();
+
+        } catch (SQLException e) {
+            logger.error("Failed to check processed webhook event", e);
+        }
+
+        return false;
+    }
+
+    @Override
+    public void recordProcessedWebhookEvent(net.kyver.invoices.enums.PaymentGateway gateway, String eventId) {
+        String sql = "INSERT OR IGNORE INTO processed_webhook_events (gateway, event_id, received_at) VALUES (?, ?, ?)";
+
+        try (Connection connection = hikariDataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+
+            statement.setString(1, gateway.getId());
+            statement.setString(2, eventId);
+            statement.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
+            statement.executeUpdate();
+
+        } catch (SQLException e) {
+            logger.error("Failed to record processed webhook event", e);
+        }
+    }
+
+    @Override
+    public int purgeProcessedWebhookEvents(LocalDateTime olderThan) {
+        String sql = "DELETE FROM processed_webhook_events WHERE received_at < ?";
+
+        try (Connection connection = hikariDataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+
+            statement.setTimestamp(1, Timestamp.valueOf(olderThan));
+            int deleted = statement.executeUpdate();
+            if (deleted > 0) {
+                logger.database("Purged %d processed webhook event(s)", deleted);
+            }
+            return deleted;
+
+        } catch (SQLException e) {
+            logger.error("Failed to purge processed webhook events", e);
+        }
+
+        return 0;
+    }
+
+    @Override
+    public boolean updateInvoiceWithOutbox(Invoice invoice, List<OutboxEntry> entries) {
+        return updateInvoiceFromWebhook(invoice, entries, null) == WebhookUpdateResult.APPLIED;
+    }
+
+    @Override
+    public WebhookUpdateResult updateInvoiceFromWebhook(Invoice invoice, List<OutboxEntry> entries, WebhookEvent event) {
+        String sql = "INSERT INTO discord_outbox (invoice_id, action, target_user_id, detail, attempts, " +
+                "next_attempt_at, created_at) VALUES (?, ?, ?, ?, 0, ?, ?)";
+        String eventSql = "INSERT OR IGNORE INTO processed_webhook_events (gateway, event_id, received_at, " +
+                "payment_id, event_created_at) VALUES (?, ?, ?, ?, ?)";
+        String newerSql = "SELECT 1 FROM processed_webhook_events WHERE gateway = ? AND payment_id = ? " +
+                "AND event_created_at > ? LIMIT 1";
+
+        try (Connection connection = hikariDataSource.getConnection()) {
+            connection.setAutoCommit(false);
+
+            try (PreparedStatement eventStatement = connection.prepareStatement(eventSql);
+                 PreparedStatement newerStatement = connection.prepareStatement(newerSql);
+                 PreparedStatement invoiceStatement = connection.prepareStatement(UPDATE_INVOICE_SQL);
+                 PreparedStatement outboxStatement = connection.prepareStatement(sql)) {
+
+                if (event != null) {
+                    eventStatement.setString(1, event.getGateway().getId());
+                    eventStatement.setString(2, event.getEventId());
+                    eventStatement.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
+                    eventStatement.setString(4, event.getPaymentId());
+                    if (event.getCreatedAt() > 0) {
+                        eventStatement.setLong(5, event.getCreatedAt());
+                    } else {
+                        eventStatement.setNull(5, Types.INTEGER);
+                    }
+                    if (eventStatement.executeUpdate() == 0) {
+                        connection.rollback();
+                        logger.debug("Webhook event %s already applied, skipping", event.getEventId());
+                        return WebhookUpdateResult.DUPLICATE;
+                    }
+
+                    if (event.getCreatedAt() > 0) {
+                        newerStatement.setString(1, event.getGateway().getId());
+                        newerStatement.setString(2, event.getPaymentId());
+                        newerStatement.setLong(3, event.getCreatedAt());
+                        if (newerStatement.executeQuery().next()) {
+                            connection.commit();
+                            logger.debug("Webhook event %s is older than one already applied to %s, skipping",
+                                    event.getEventId(), event.getPaymentId());
+                            return WebhookUpdateResult.STALE;
+                        }
+                    }
+                }
+
+                bindInvoiceUpdate(invoiceStatement, invoice);
+                if (invoiceStatement.executeUpdate() == 0) {
+                    connection.rollback();
+                    logger.warn("No invoice found to update: %s", invoice.getInvoiceId());
+                    return WebhookUpdateResult.FAILED;
+                }
+
+                for (OutboxEntry entry : entries) {
+                    Timestamp createdAt = Timestamp.valueOf(entry.getCreatedAt());
+                    outboxStatement.setString(1, entry.getInvoiceId().toString());
+                    outboxStatement.setString(2, entry.getAction().name());
+                    outboxStatement.setString(3, entry.getTargetUserId());
+                    outboxStatement.setString(4, entry.getDetail());
+                    outboxStatement.setTimestamp(5, createdAt);
+                    outboxStatement.setTimestamp(6, createdAt);
+                    outboxStatement.addBatch();
+                }
+                if (!entries.isEmpty()) {
+                    outboxStatement.executeBatch();
+                }
+
+                connection.commit();
+                logger.database("Invoice updated: %s (%d outbox message(s))", invoice.getInvoiceId(), entries.size());
+                return WebhookUpdateResult.APPLIED;
+
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+
+        } catch (SQLException e) {
+            logger.error("Failed to update invoice with outbox messages", e);
+            return WebhookUpdateResult.FAILED;
+        }
+    }
+
+    @Override
+    public List<OutboxEntry> getDueOutboxEntries(LocalDateTime now, int limit) {
+        String sql = "SELECT * FROM discord_outbox o WHERE o.next_attempt_at <= ? " +
+                "AND o.id = (SELECT MIN(o2.id) FROM discord_outbox o2 WHERE o2.invoice_id = o.invoice_id) " +
+                "ORDER BY o.id LIMIT ?";
+        List<OutboxEntry> entries = new ArrayList<>();
+
+        try (Connection connection = getReadConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+
+            statement.setTimestamp(1, Timestamp.valueOf(now));
+            statement.setInt(2, Math.max(1, limit));
+            ResultSet rs = statement.executeQuery();
+
+            while (rs.next()) {
+                entries.add(new OutboxEntry(
+                        rs.getLong("id"),
+                        UUID.fromString(rs.getString("invoice_id")),
+                        OutboxAction.fromName(rs.getString("action")),
+                        rs.getString("target_user_id"),
+                        rs.getString("detail"),
+                        rs.getInt("attempts"),
+                        rs.getTimestamp("created_at").toLocalDateTime()
+                ));
+            }
+
+        } catch (SQLException e) {
+            logger.error("Failed to get due outbox entries", e);
+        }
+
+        return entries;
+    }
+
+    @Override
+    public void rescheduleOutboxEntry(long id, int attempts, LocalDateTime nextAttemptAt, String lastError) {
+        String sql = "UPDATE discord_outbox SET attempts = ?, next_attempt_at = ?, last_error = ? WHERE id = ?";
+
+        try (Connection connection = hikariDataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+
+            statement.setInt(1, attempts);
+            statement.setTimestamp(2, Timestamp.valueOf(nextAttemptAt));
+            statement.setString(3, lastError);
+            statement.setLong(4, id);
+            statement.executeUpdate();
+
+        } catch (SQLException e) {
+            logger.error("Failed to reschedule outbox entry", e);
+        }
+    }
+
+    @Override
+    public void deleteOutboxEntry(long id) {
+        try (Connection connection = hikariDataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("DELETE FROM discord_outbox WHERE id = ?")) {
+
+            statement.setLong(1, id);
+            statement.executeUpdate();
+
+        } catch (SQLException e) {
+            logger.error("Failed to delete outbox entry", e);
+        }
+    }
+
+    @Override
+    public int getOutboxSize() {
+        try (Connection connection = getReadConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT COUNT(*) FROM discord_outbox")) {
+
+            ResultSet rs = statement.executeQuery();
+            return rs.next() ? rs.getInt(1) : 0;
+
+        } catch (SQLException e) {
+            logger.error("Failed to count outbox entries", e);
+        }
+
+        return 0;
+    }
+
+    @Override
+    public String getSetting(String key) {
+        try (Connection connection = getReadConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT setting_value FROM app_settings WHERE setting_key = ?")) {
+
+            statement.setString(1, key);
+            ResultSet rs = statement.executeQuery();
+            return rs.next() ? rs.getString(1) : null;
+
+        } catch (SQLException e) {
+            logger.error("Failed to get setting", e);
+        }
+
+        return null;
+    }
+
+    @Override
+    public void saveSetting(String key, String value) {
+        String sql = "INSERT INTO app_settings (setting_key, setting_value, updated_at) VALUES (?, ?, ?) " +
+                "ON CONFLICT(setting_key) DO UPDATE SET setting_value = excluded.setting_value, updated_at = excluded.updated_at";
+
+        try (Connection connection = hikariDataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+
+            statement.setString(1, key);
+            statement.setString(2, value);
+            statement.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
+            statement.executeUpdate();
+
+        } catch (SQLException e) {
+            logger.error("Failed to save setting", e);
+        }
+    }
+
+    private Payment querySinglePayment(String sql, String parameter) {
+        try (Connection connection = getReadConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+
+            statement.setString(1, parameter);
+            ResultSet rs = statement.executeQuery();
+
+            if (rs.next()) {
+                return mapResultSetToPayment(rs);
+            }
+
+        } catch (SQLException e) {
+            logger.error("Failed to get payment", e);
+        }
+
+        return null;
+    }
+
+    private List<Payment> queryPayments(String sql, String parameter) {
+        List<Payment> payments = new ArrayList<>();
+
+        try (Connection connection = getReadConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+
+            statement.setString(1, parameter);
+            ResultSet rs = statement.executeQuery();
+
+            while (rs.next()) {
+                payments.add(mapResultSetToPayment(rs));
+            }
+
+        } catch (SQLException e) {
+            logger.error("Failed to get payments", e);
+        }
+
+        return payments;
+    }
+
+    private Payment mapResultSetToPayment(ResultSet rs) throws SQLException {
+        Payment payment = new Payment();
+        payment.setPaymentId(UUID.fromString(rs.getString("payment_id")));
+        payment.setInvoiceId(UUID.fromString(rs.getString("invoice_id")));
+        payment.setDiscordUserId(rs.getString("discord_user_id"));
+        payment.setGateway(net.kyver.invoices.enums.PaymentGateway.fromId(rs.getString("gateway")));
+        payment.setExternalPaymentId(rs.getString("external_payment_id"));
+        payment.setAmount(rs.getBigDecimal("amount"));
+        payment.setCurrency(rs.getString("currency"));
+        payment.setStatus(PaymentStatus.valueOf(rs.getString("status")));
+        payment.setPaymentMethod(rs.getString("payment_method"));
+        payment.setCustomerEmail(rs.getString("customer_email"));
+        payment.setCustomerName(rs.getString("customer_name"));
+        payment.setDescription(rs.getString("description"));
+        payment.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+
+        Timestamp completedAt = rs.getTimestamp("completed_at");
+        payment.setCompletedAt(completedAt != null ? completedAt.toLocalDateTime() : null);
+
+        payment.setFailureReason(rs.getString("failure_reason"));
+        payment.setMetadata(decodeMetadata(rs.getString("metadata")));
+        payment.setWebhookEventId(rs.getString("webhook_event_id"));
+        payment.setFeeAmount(rs.getBigDecimal("fee_amount"));
+        payment.setNetAmount(rs.getBigDecimal("net_amount"));
+        payment.setReceiptUrl(rs.getString("receipt_url"));
+        payment.setRefundId(rs.getString("refund_id"));
+        payment.setUpdatedAt(rs.getTimestamp("updated_at").toLocalDateTime());
+
+        return payment;
+    }
+
+    private static String encodeMetadata(Map<String, String> metadata) {
+        if (metadata == null || metadata.isEmpty()) {
+            return null;
+        }
+
+        StringJoiner joiner = new StringJoiner("&");
+        metadata.forEach((key, value) -> joiner.add(URLEncoder.encode(key, StandardCharsets.UTF_8) + "=" +
+                URLEncoder.encode(value != null ? value : "", StandardCharsets.UTF_8)));
+        return joiner.toString();
+    }
+
+    private static Map<String, String> decodeMetadata(String encoded) {
+        Map<String, String> metadata = new HashMap<>();
+        if (encoded == null || encoded.isEmpty()) {
+            return metadata;
+        }
+
+        for (String pair : encoded.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                metadata.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return metadata;
+    }
+
     private Invoice mapResultSetToInvoice(ResultSet rs) throws SQLException {
         Invoice invoice = new Invoice();
         invoice.setInvoiceId(UUID.fromString(rs.getString("invoice_id")));
@@ -283,12 +1223,26 @@ public class SQLiteStorage implements DataMethods {
 
         invoice.setSelectedGateway(net.kyver.invoices.enums.PaymentGateway.fromId(rs.getString("payment_gateway")));
         invoice.setExternalPaymentId(rs.getString("external_payment_id"));
+        invoice.setChannelId(rs.getString("channel_id"));
+        invoice.setChannelMessageId(rs.getString("channel_message_id"));
+        invoice.setDmSelectionMessageId(rs.getString("dm_selection_message_id"));
+        invoice.setDmPaymentMessageId(rs.getString("dm_payment_message_id"));
+        invoice.setPaymentUrl(rs.getString("payment_url"));
+        invoice.setQrCodeData(rs.getString("qr_code_data"));
 
         return invoice;
     }
 
+    @Override
+    public void flush() {
+    }
+
     @Override
     public void close() {
+        if (readerDataSource != null && !readerDataSource.isClosed()) {
+            readerDataSource.close();
+        }
+
         if (hikariDataSource != null && !hikariDataSource.isClosed()) {
             hikariDataSource.close();
             logger.database("SQLite connection closed");
@@ -0,0 +1,458 @@
+package net.kyver.invoices.data.storage;
+
+import net.kyver.invoices.data.DataMethods;
+import net.kyver.invoices.data.InvoiceCursor;
+import net.kyver.invoices.data.InvoiceFilter;
+import net.kyver.invoices.data.InvoicePage;
+import net.kyver.invoices.data.OutboxEntry;
+import net.kyver.invoices.data.PaymentTotal;
+import net.kyver.invoices.data.WebhookInboxEntry;
+import net.kyver.invoices.enums.PaymentGateway;
+import net.kyver.invoices.enums.PaymentStatus;
+import net.kyver.invoices.enums.WebhookUpdateResult;
+import net.kyver.invoices.manager.LoggingManager;
+import net.kyver.invoices.model.Invoice;
+import net.kyver.invoices.model.Payment;
+import net.kyver.invoices.model.WebhookEvent;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+public class WriteBehindStorage implements DataMethods {
+
+    private static final LoggingManager logger = LoggingManager.getLogger(WriteBehindStorage.class);
+    private static final int FAILURE_REPORT_INTERVAL = 5;
+    private final DataMethods delegate;
+    private final long flushIntervalMs;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService scheduler;
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Object lock = new Object();
+
+    private Map<UUID, Invoice> pendingInvoices = new LinkedHashMap<>();
+    private Map<UUID, PaymentStatus> pendingStatuses = new LinkedHashMap<>();
+    private Map<UUID, Invoice> flushingInvoices = Map.of();
+    private Map<UUID, PaymentStatus> flushingStatuses = Map.of();
+    private final Map<UUID, Integer> failedAttempts = new HashMap<>();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder writeFailures = new LongAdder();
+
+    public WriteBehindStorage(DataMethods delegate, long flushIntervalMs, int maxBatchSize) {
+        this.delegate = delegate;
+        this.flushIntervalMs = Math.max(10, flushIntervalMs);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "invoice-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        logger.database("Write-behind enabled (flush every %dms or %d updates)", flushIntervalMs, maxBatchSize);
+    }
+
+    @Override
+    public void createInvoice(Invoice invoice) {
+        delegate.createInvoice(invoice);
+    }
+
+    @Override
+    public Invoice getInvoice(UUID invoiceId) {
+        PaymentStatus pendingStatus;
+        synchronized (lock) {
+            Invoice pending = pendingInvoices.get(invoiceId);
+            if (pending != null) {
+                return pending.copy();
+            }
+
+            pendingStatus = findPendingStatus(invoiceId);
+            Invoice flushing = flushingInvoices.get(invoiceId);
+            if (flushing != null) {
+                Invoice copy = flushing.copy();
+                if (pendingStatus != null) {
+                    copy.setStatus(pendingStatus);
+                }
+                return copy;
+            }
+        }
+
+        Invoice invoice = delegate.getInvoice(invoiceId);
+        if (invoice != null && pendingStatus != null) {
+            invoice.setStatus(pendingStatus);
+        }
+        return invoice;
+    }
+
+    @Override
+    public Invoice getInvoiceByExternalPaymentId(String externalPaymentId) {
+        synchronized (lock) {
+            for (Invoice pending : pendingInvoices.values()) {
+                if (externalPaymentId.equals(pending.getExternalPaymentId())) {
+                    return pending.copy();
+                }
+            }
+            for (Invoice pending : flushingInvoices.values()) {
+                if (externalPaymentId.equals(pending.getExternalPaymentId())) {
+                    return pending.copy();
+                }
+            }
+        }
+
+        Invoice invoice = delegate.getInvoiceByExternalPaymentId(externalPaymentId);
+        return invoice != null ? getInvoice(invoice.getInvoiceId()) : null;
+    }
+
+    @Override
+    public List<Invoice> getInvoicesByUser(String userId) {
+        flush();
+        return delegate.getInvoicesByUser(userId);
+    }
+
+    @Override
+    public List<Invoice> getAllInvoices() {
+        flush();
+        return delegate.getAllInvoices();
+    }
+
+    @Override
+    public void updateInvoice(Invoice invoice) {
+        int pending;
+        synchronized (lock) {
+            pendingStatuses.remove(invoice.getInvoiceId());
+            pendingInvoices.put(invoice.getInvoiceId(), invoice.copy());
+            pending = pendingInvoices.size() + pendingStatuses.size();
+        }
+        scheduleFlushIfFull(pending);
+    }
+
+    @Override
+    public void updateInvoiceStatus(UUID invoiceId, PaymentStatus status) {
+        int pending;
+        synchronized (lock) {
+            Invoice pendingInvoice = pendingInvoices.get(invoiceId);
+            if (pendingInvoice != null) {
+                pendingInvoice.setStatus(status);
+            } else {
+                pendingStatuses.put(invoiceId, status);
+            }
+            pending = pendingInvoices.size() + pendingStatuses.size();
+        }
+        scheduleFlushIfFull(pending);
+    }
+
+    @Override
+    public boolean updateInvoicesBatch(Collection<Invoice> invoices, Map<UUID, PaymentStatus> statuses) {
+        synchronized (lock) {
+            for (Invoice invoice : invoices) {
+                pendingStatuses.remove(invoice.getInvoiceId());
+                pendingInvoices.put(invoice.getInvoiceId(), invoice.copy());
+            }
+        }
+        statuses.forEach(this::updateInvoiceStatus);
+        return true;
+    }
+
+    @Override
+    public void deleteInvoice(UUID invoiceId) {
+        synchronized (lock) {
+            pendingInvoices.remove(invoiceId);
+            pendingStatuses.remove(invoiceId);
+            failedAttempts.remove(invoiceId);
+        }
+        delegate.deleteInvoice(invoiceId);
+    }
+
+    @Override
+    public List<Invoice> getInvoicesByDiscordUser(String discordUserId) {
+        flush();
+        return delegate.getInvoicesByDiscordUser(discordUserId);
+    }
+
+    @Override
+    public InvoicePage getInvoicesPage(InvoiceFilter filter, InvoiceCursor cursor, int limit) {
+        flush();
+        return delegate.getInvoicesPage(filter, cursor, limit);
+    }
+
+    @Override
+    public void forEachInvoice(InvoiceFilter filter, Consumer<Invoice> consumer) {
+        flush();
+        delegate.forEachInvoice(filter, consumer);
+    }
+
+    @Override
+    public String getInvoiceIdByShortId(String shortId) {
+        return delegate.getInvoiceIdByShortId(shortId);
+    }
+
+    @Override
+    public void savePayment(Payment payment) {
+        delegate.savePayment(payment);
+    }
+
+    @Override
+    public Payment getPayment(UUID paymentId) {
+        return delegate.getPayment(paymentId);
+    }
+
+    @Override
+    public Payment getPaymentByExternalId(String externalPaymentId) {
+        return delegate.getPaymentByExternalId(externalPaymentId);
+    }
+
+    @Override
+    public List<Payment> getPaymentsByInvoice(UUID invoiceId) {
+        return delegate.getPaymentsByInvoice(invoiceId);
+    }
+
+    @Override
+    public List<Payment> getPaymentsByDiscordUser(String discordUserId) {
+        return delegate.getPaymentsByDiscordUser(discordUserId);
+    }
+
+    @Override
+    public List<PaymentTotal> getPaymentTotals() {
+        return delegate.getPaymentTotals();
+    }
+
+    @Override
+    public long enqueueWebhookEvent(PaymentGateway gateway, String payload) {
+        return delegate.enqueueWebhookEvent(gateway, payload);
+    }
+
+    @Override
+    public List<WebhookInboxEntry> getPendingWebhookEvents(long afterId, int limit) {
+        return delegate.getPendingWebhookEvents(afterId, limit);
+    }
+
+    @Override
+    public void deleteWebhookEvent(long id) {
+        delegate.deleteWebhookEvent(id);
+    }
+
+    @Override
+    public void recordWebhookEventFailure(long id, String lastError) {
+        delegate.recordWebhookEventFailure(id, lastError);
+    }
+
+    @Override
+    public void deadLetterWebhookEvent(long id) {
+        delegate.deadLetterWebhookEvent(id);
+    }
+
+    @Override
+    public boolean isWebhookEventProcessed(PaymentGateway gateway, String eventId) {
+        return delegate.isWebhookEventProcessed(gateway, eventId);
+    }
+
+    @Override
+    public void recordProcessedWebhookEvent(PaymentGateway gateway, String eventId) {
+        delegate.recordProcessedWebhookEvent(gateway, eventId);
+    }
+
+    @Override
+    public int purgeProcessedWebhookEvents(LocalDateTime olderThan) {
+        return delegate.purgeProcessedWebhookEvents(olderThan);
+    }
+
+    @Override
+    public boolean updateInvoiceWithOutbox(Invoice invoice, List<OutboxEntry> entries) {
+        return updateInvoiceFromWebhook(invoice, entries, null) == WebhookUpdateResult.APPLIED;
+    }
+
+    @Override
+    public WebhookUpdateResult updateInvoiceFromWebhook(Invoice invoice, List<OutboxEntry> entries, WebhookEvent event) {
+        UUID invoiceId = invoice.getInvoiceId();
+        flushLock.lock();
+        try {
+            Invoice pendingInvoice;
+            PaymentStatus pendingStatus;
+            synchronized (lock) {
+                pendingInvoice = pendingInvoices.remove(invoiceId);
+                pendingStatus = pendingStatuses.remove(invoiceId);
+            }
+
+            WebhookUpdateResult result = delegate.updateInvoiceFromWebhook(invoice, entries, event);
+
+            if (result == WebhookUpdateResult.APPLIED) {
+                synchronized (lock) {
+                    failedAttempts.remove(invoiceId);
+                }
+            } else {
+                synchronized (lock) {
+                    if (pendingInvoice != null) {
+                        pendingInvoices.putIfAbsent(invoiceId, pendingInvoice);
+                    } else if (pendingStatus != null) {
+                        pendingStatuses.putIfAbsent(invoiceId, pendingStatus);
+                    }
+                }
+            }
+            return result;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Override
+    public List<OutboxEntry> getDueOutboxEntries(LocalDateTime now, int limit) {
+        return delegate.getDueOutboxEntries(now, limit);
+    }
+
+    @Override
+    public void rescheduleOutboxEntry(long id, int attempts, LocalDateTime nextAttemptAt, String lastError) {
+        delegate.rescheduleOutboxEntry(id, attempts, nextAttemptAt, lastError);
+    }
+
+    @Override
+    public void deleteOutboxEntry(long id) {
+        delegate.deleteOutboxEntry(id);
+    }
+
+    @Override
+    public int getOutboxSize() {
+        return delegate.getOutboxSize();
+    }
+
+    @Override
+    public String getSetting(String key) {
+        return delegate.getSetting(key);
+    }
+
+    @Override
+    public void saveSetting(String key, String value) {
+        delegate.saveSetting(key, value);
+    }
+
+    @Override
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<UUID, Invoice> invoices;
+            Map<UUID, PaymentStatus> statuses;
+
+            synchronized (lock) {
+                if (pendingInvoices.isEmpty() && pendingStatuses.isEmpty()) {
+                    return;
+                }
+                invoices = pendingInvoices;
+                statuses = pendingStatuses;
+                flushingInvoices = invoices;
+                flushingStatuses = statuses;
+                pendingInvoices = new LinkedHashMap<>();
+                pendingStatuses = new LinkedHashMap<>();
+            }
+
+            flushes.increment();
+            Map<UUID, Invoice> failedInvoices = new LinkedHashMap<>();
+            Map<UUID, PaymentStatus> failedStatuses = new LinkedHashMap<>();
+            if (!write(invoices.values(), statuses)) {
+                invoices.forEach((invoiceId, invoice) -> {
+                    if (!write(List.of(invoice), Map.of())) {
+                        failedInvoices.put(invoiceId, invoice);
+                    }
+                });
+                statuses.forEach((invoiceId, status) -> {
+                    if (!write(List.of(), Map.of(invoiceId, status))) {
+                        failedStatuses.put(invoiceId, status);
+                    }
+                });
+                logger.warn("Write-behind batch failed, retried %d update(s) one by one, %d still failing",
+                        invoices.size() + statuses.size(), failedInvoices.size() + failedStatuses.size());
+            }
+
+            synchronized (lock) {
+                invoices.keySet().forEach(invoiceId -> {
+                    if (!failedInvoices.containsKey(invoiceId)) {
+                        failedAttempts.remove(invoiceId);
+                    }
+                });
+                statuses.keySet().forEach(invoiceId -> {
+                    if (!failedStatuses.containsKey(invoiceId)) {
+                        failedAttempts.remove(invoiceId);
+                    }
+                });
+
+                failedInvoices.forEach((invoiceId, invoice) -> {
+                    reportFailure(invoiceId);
+                    PaymentStatus newerStatus = pendingStatuses.remove(invoiceId);
+                    if (newerStatus != null) {
+                        invoice.setStatus(newerStatus);
+                    }
+                    pendingInvoices.putIfAbsent(invoiceId, invoice);
+                });
+                failedStatuses.forEach((invoiceId, status) -> {
+                    reportFailure(invoiceId);
+                    if (!pendingInvoices.containsKey(invoiceId)) {
+                        pendingStatuses.putIfAbsent(invoiceId, status);
+                    }
+                });
+                flushingInvoices = Map.of();
+                flushingStatuses = Map.of();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private boolean write(Collection<Invoice> invoices, Map<UUID, PaymentStatus> statuses) {
+        try {
+            return delegate.updateInvoicesBatch(invoices, statuses);
+        } catch (RuntimeException e) {
+            logger.error("Write-behind update failed", e);
+            return false;
+        }
+    }
+
+    private void reportFailure(UUID invoiceId) {
+        writeFailures.increment();
+        int attempts = failedAttempts.merge(invoiceId, 1, Integer::sum);
+        if (attempts % FAILURE_REPORT_INTERVAL == 0) {
+            logger.error("Buffered update for invoice %s has failed %d writes, keeping it pending", invoiceId, attempts);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (lock) {
+            stats.put("pending", pendingInvoices.size() + pendingStatuses.size());
+            stats.put("failing", failedAttempts.size());
+        }
+        stats.put("flushes", flushes.sum());
+        stats.put("write_failures", writeFailures.sum());
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        flush();
+        delegate.close();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            logger.error("Write-behind flush failed", e);
+        }
+    }
+
+    private void scheduleFlushIfFull(int pending) {
+        if (pending >= maxBatchSize && !scheduler.isShutdown()) {
+            scheduler.execute(this::flushQuietly);
+        }
+    }
+
+    private PaymentStatus findPendingStatus(UUID invoiceId) {
+        PaymentStatus status = pendingStatuses.get(invoiceId);
+        return status != null ? status : flushingStatuses.get(invoiceId);
+    }
+}
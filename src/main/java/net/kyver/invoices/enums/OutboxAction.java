@@ -0,0 +1,22 @@
+package net.kyver.invoices.enums;
+
+public enum OutboxAction {
+    PAYMENT_READY_DM,
+    PAYMENT_READY_NOTIFICATION,
+    PAYMENT_COMPLETED_DM,
+    PAYMENT_COMPLETED_NOTIFICATION,
+    PAYMENT_FAILED_NOTIFICATION,
+    PAYMENT_CANCELLED_DM,
+    PAYMENT_CANCELLED_BY_USER_NOTIFICATION,
+    INVOICE_MESSAGE_PAID,
+    INVOICE_MESSAGE_STATUS;
+
+    public static OutboxAction fromName(String name) {
+        for (OutboxAction action : values()) {
+            if (action.name().equals(name)) {
+                return action;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,40 @@
+package net.kyver.invoices.enums;
+
+public enum WebhookEventType {
+    PAYMENT_COMPLETED(PaymentStatus.PAID),
+    PAYMENT_FAILED(PaymentStatus.FAILED),
+    PAYMENT_REFUNDED(PaymentStatus.REFUNDED),
+    PAYMENT_DISPUTED(PaymentStatus.CANCELLED),
+    UNKNOWN(null);
+
+    private final PaymentStatus resultingStatus;
+
+    WebhookEventType(PaymentStatus resultingStatus) {
+        this.resultingStatus = resultingStatus;
+    }
+
+    public PaymentStatus getResultingStatus() {
+        return resultingStatus;
+    }
+
+    public static WebhookEventType fromGatewayType(PaymentGateway gateway, String type) {
+        if (gateway == null || type == null) {
+            return UNKNOWN;
+        }
+
+        return switch (gateway) {
+            case STRIPE -> switch (type) {
+                case "payment_intent.succeeded" -> PAYMENT_COMPLETED;
+                case "payment_intent.payment_failed" -> PAYMENT_FAILED;
+                case "charge.dispute.created" -> PAYMENT_DISPUTED;
+                default -> UNKNOWN;
+            };
+            case PAYPAL -> switch (type) {
+                case "PAYMENT.SALE.COMPLETED", "CHECKOUT.ORDER.APPROVED" -> PAYMENT_COMPLETED;
+                case "PAYMENT.SALE.REFUNDED" -> PAYMENT_REFUNDED;
+                default -> UNKNOWN;
+            };
+            default -> UNKNOWN;
+        };
+    }
+}
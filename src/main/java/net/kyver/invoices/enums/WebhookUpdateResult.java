@@ -0,0 +1,9 @@
+package net.kyver.invoices.enums;
+
+public enum WebhookUpdateResult {
+    APPLIED,
+    DUPLICATE,
+    UNMATCHED,
+    STALE,
+    FAILED
+}
@@ -2,6 +2,7 @@ package net.kyver.invoices.gateway;
 
 import net.kyver.invoices.enums.PaymentStatus;
 import net.kyver.invoices.exception.PaymentException;
+import net.kyver.invoices.model.PaymentSession;
 
 import java.util.Map;
 import java.util.UUID;
@@ -10,13 +11,21 @@ import java.util.function.Consumer;
 
 public interface PaymentGateway {
 
-    CompletableFuture<String> processPaymentAsync(double amount, String currency, String paymentMethod, Map<String, String> metadata);
+    CompletableFuture<String> processPaymentAsync(double amount, String currency, String paymentMethod,
+                                                  Map<String, String> metadata, String idempotencyKey);
 
-    CompletableFuture<String> refundPaymentAsync(String transactionId, double amount);
+    CompletableFuture<PaymentSession> createPaymentSessionAsync(double amount, String currency,
+                                                                Map<String, String> metadata, String idempotencyKey);
+
+    CompletableFuture<String> refundPaymentAsync(String transactionId, double amount, String idempotencyKey);
 
     boolean handleWebhook(Map<String, String> headers, String payload) throws PaymentException;
 
     CompletableFuture<PaymentStatus> checkPaymentStatusAsync(String transactionId);
 
     void onPaymentCompleted(Consumer<String> listener);
+
+    default boolean isAvailable() {
+        return true;
+    }
 }
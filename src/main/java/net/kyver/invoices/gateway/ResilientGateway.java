@@ -0,0 +1,136 @@
+package net.kyver.invoices.gateway;
+
+import net.kyver.invoices.enums.PaymentStatus;
+import net.kyver.invoices.exception.PaymentException;
+import net.kyver.invoices.model.PaymentSession;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+public class ResilientGateway implements PaymentGateway {
+
+    private final String name;
+    private final PaymentGateway delegate;
+    private final CircuitBreaker circuitBreaker;
+    private final Semaphore bulkhead;
+    private final int maxConcurrentCalls;
+    private final long timeoutMillis;
+    private final LongAdder rejectedOpen = new LongAdder();
+    private final LongAdder rejectedBusy = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    public ResilientGateway(String name, PaymentGateway delegate, CircuitBreaker circuitBreaker,
+                            int maxConcurrentCalls, long timeoutMillis) {
+        this.name = name;
+        this.delegate = delegate;
+        this.circuitBreaker = circuitBreaker;
+        this.maxConcurrentCalls = Math.max(1, maxConcurrentCalls);
+        this.bulkhead = new Semaphore(this.maxConcurrentCalls);
+        this.timeoutMillis = Math.max(1, timeoutMillis);
+    }
+
+    public PaymentGateway getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public CompletableFuture<String> processPaymentAsync(double amount, String currency, String paymentMethod,
+                                                        Map<String, String> metadata, String idempotencyKey) {
+        return call(() -> delegate.processPaymentAsync(amount, currency, paymentMethod, metadata, idempotencyKey),
+                result -> result == null);
+    }
+
+    @Override
+    public CompletableFuture<PaymentSession> createPaymentSessionAsync(double amount, String currency,
+                                                                       Map<String, String> metadata, String idempotencyKey) {
+        return call(() -> delegate.createPaymentSessionAsync(amount, currency, metadata, idempotencyKey),
+                session -> session == null || session.getExternalId() == null);
+    }
+
+    @Override
+    public CompletableFuture<String> refundPaymentAsync(String transactionId, double amount, String idempotencyKey) {
+        return call(() -> delegate.refundPaymentAsync(transactionId, amount, idempotencyKey), result -> result == null);
+    }
+
+    @Override
+    public boolean handleWebhook(Map<String, String> headers, String payload) throws PaymentException {
+        return delegate.handleWebhook(headers, payload);
+    }
+
+    @Override
+    public CompletableFuture<PaymentStatus> checkPaymentStatusAsync(String transactionId) {
+        return call(() -> delegate.checkPaymentStatusAsync(transactionId), status -> status == null);
+    }
+
+    @Override
+    public void onPaymentCompleted(Consumer<String> listener) {
+        delegate.onPaymentCompleted(listener);
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return circuitBreaker.isCallPermitted();
+    }
+
+    private <T> CompletableFuture<T> call(Supplier<CompletableFuture<T>> action, Predicate<T> failed) {
+        if (!bulkhead.tryAcquire()) {
+            rejectedBusy.increment();
+            return CompletableFuture.failedFuture(new PaymentException(name + " is handling too many requests, please try again shortly"));
+        }
+        if (!circuitBreaker.tryAcquire()) {
+            bulkhead.release();
+            rejectedOpen.increment();
+            return CompletableFuture.failedFuture(new PaymentException(name + " is temporarily unavailable, please try again later"));
+        }
+
+        CompletableFuture<T> future;
+        try {
+            future = action.get();
+        } catch (RejectedExecutionException e) {
+            bulkhead.release();
+            circuitBreaker.release();
+            rejectedBusy.increment();
+            return CompletableFuture.failedFuture(new PaymentException(name + " is handling too many requests, please try again shortly", e));
+        } catch (RuntimeException e) {
+            bulkhead.release();
+            circuitBreaker.onFailure();
+            return CompletableFuture.failedFuture(e);
+        }
+
+        future.whenComplete((result, error) -> bulkhead.release());
+
+        return future.copy()
+                .orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .whenComplete((result, error) -> {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    if (cause instanceof TimeoutException) {
+                        timeouts.increment();
+                    }
+                    if (error != null || failed.test(result)) {
+                        circuitBreaker.onFailure();
+                    } else {
+                        circuitBreaker.onSuccess();
+                    }
+                });
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(circuitBreaker.getStats());
+        stats.put("in_flight", maxConcurrentCalls - bulkhead.availablePermits());
+        stats.put("max_concurrent_calls", maxConcurrentCalls);
+        stats.put("rejected_open", rejectedOpen.sum());
+        stats.put("rejected_busy", rejectedBusy.sum());
+        stats.put("timeouts", timeouts.sum());
+        return stats;
+    }
+}
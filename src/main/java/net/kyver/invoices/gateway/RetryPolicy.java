@@ -0,0 +1,71 @@
+package net.kyver.invoices.gateway;
+
+import net.kyver.invoices.manager.ConfigManager;
+import net.kyver.invoices.manager.LoggingManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+public class RetryPolicy {
+
+    private static final LoggingManager logger = LoggingManager.getLogger(RetryPolicy.class);
+
+    private final String name;
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+
+    public RetryPolicy(String name, int maxAttempts, long baseDelayMillis, long maxDelayMillis) {
+        this.name = name;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayMillis = Math.max(1, baseDelayMillis);
+        this.maxDelayMillis = Math.max(this.baseDelayMillis, maxDelayMillis);
+    }
+
+    public static RetryPolicy fromConfig(String name) {
+        ConfigManager config = ConfigManager.getInstance();
+        return new RetryPolicy(name, config.getGatewayRetryMaxAttempts(),
+                config.getGatewayRetryBaseDelayMs(), config.getGatewayRetryMaxDelayMs());
+    }
+
+    public <T, E extends Exception> T execute(String operation, Call<T, E> call, Predicate<? super E> retryable) throws E {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return call.run();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                @SuppressWarnings("unchecked")
+                E failure = (E) e;
+                if (attempt >= maxAttempts || !retryable.test(failure)) {
+                    throw failure;
+                }
+
+                long delay = delayFor(attempt);
+                logger.warn("%s %s failed (attempt %d of %d), retrying in %dms: %s",
+                        name, operation, attempt, maxAttempts, delay, e.getMessage());
+
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw failure;
+                }
+            }
+        }
+    }
+
+    private long delayFor(int attempt) {
+        long backoff = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt - 1, 20));
+        return backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    @FunctionalInterface
+    public interface Call<T, E extends Exception> {
+        T run() throws E;
+    }
+}
@@ -6,44 +6,56 @@ import com.paypal.base.rest.PayPalRESTException;
 import net.kyver.invoices.enums.PaymentStatus;
 import net.kyver.invoices.exception.PaymentException;
 import net.kyver.invoices.gateway.PaymentGateway;
+import net.kyver.invoices.gateway.RetryPolicy;
 import net.kyver.invoices.manager.LoggingManager;
+import net.kyver.invoices.model.PaymentSession;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 
 public class PayPalGateway implements PaymentGateway {
 
     private static final LoggingManager logger = LoggingManager.getLogger(PayPalGateway.class);
+    private static final Duration APPROVAL_TTL = Duration.ofHours(3);
+    private final String clientId;
+    private final String clientSecret;
+    private final String mode;
     private final APIContext apiContext;
+    private final Queue<APIContext> requestContexts = new ConcurrentLinkedQueue<>();
+    private final Executor executor;
+    private final RetryPolicy retryPolicy;
     private Consumer<String> paymentCompletedListener;
 
-    public PayPalGateway(String clientId, String clientSecret, String mode) {
+    public PayPalGateway(String clientId, String clientSecret, String mode, Executor executor, RetryPolicy retryPolicy) {
+        this.clientId = clientId;
+        this.clientSecret = clientSecret;
+        this.mode = mode;
         this.apiContext = new APIContext(clientId, clientSecret, mode);
+        this.executor = executor;
+        this.retryPolicy = retryPolicy;
         logger.success("PayPal gateway initialized successfully in %s mode", mode);
     }
 
     @Override
-    public CompletableFuture<String> processPaymentAsync(double amount, String currency, String paymentMethod, Map<String, String> metadata) {
+    public CompletableFuture<String> processPaymentAsync(double amount, String currency, String paymentMethod,
+                                                        Map<String, String> metadata, String idempotencyKey) {
         return CompletableFuture.supplyAsync(() -> {
             try {
                 logger.payment("Processing PayPal payment: $%.2f %s", amount, currency.toUpperCase());
 
                 Payment payment = createPayment(amount, currency, paymentMethod, "sale", metadata);
-                Payment createdPayment = payment.create(apiContext);
-
+                Payment createdPayment = execute("payment", idempotencyKey, payment::create);
                 logger.success("PayPal payment created: %s", createdPayment.getId());
 
-                String approvalUrl = null;
-                for (Links link : createdPayment.getLinks()) {
-                    if ("approval_url".equals(link.getRel())) {
-                        approvalUrl = link.getHref();
-                        break;
-                    }
-                }
-
+                String approvalUrl = findApprovalUrl(createdPayment);
                 if (approvalUrl != null) {
                     logger.payment("PayPal approval URL: %s", approvalUrl);
                 }
@@ -52,18 +64,43 @@ public class PayPalGateway implements PaymentGateway {
 
             } catch (PayPalRESTException e) {
                 logger.error("PayPal payment failed: %s", e.getMessage(), e);
-                return null;
+                throw new PaymentException("PayPal payment failed: " + e.getMessage(), e);
             }
-        });
+        }, executor);
     }
 
     @Override
-    public CompletableFuture<String> refundPaymentAsync(String transactionId, double amount) {
+    public CompletableFuture<PaymentSession> createPaymentSessionAsync(double amount, String currency,
+                                                                       Map<String, String> metadata, String idempotencyKey) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                logger.payment("Creating PayPal payment session: $%.2f %s", amount, currency.toUpperCase());
+
+                Payment payment = createPayment(amount, currency, "paypal", "sale", metadata);
+                Payment createdPayment = execute("payment session", idempotencyKey, payment::create);
+                String approvalUrl = findApprovalUrl(createdPayment);
+                if (approvalUrl == null) {
+                    throw new PaymentException("PayPal returned no approval URL for payment " + createdPayment.getId());
+                }
+
+                logger.success("PayPal payment session created: %s", createdPayment.getId());
+                return new PaymentSession(createdPayment.getId(), approvalUrl, LocalDateTime.now().plus(APPROVAL_TTL));
+
+            } catch (PayPalRESTException e) {
+                logger.error("PayPal payment session failed: %s", e.getMessage(), e);
+                throw new PaymentException("PayPal payment session failed: " + e.getMessage(), e);
+            }
+        }, executor);
+    }
+
+    @Override
+    public CompletableFuture<String> refundPaymentAsync(String transactionId, double amount, String idempotencyKey) {
         return CompletableFuture.supplyAsync(() -> {
             try {
                 logger.payment("Processing PayPal refund for transaction: %s, amount: $%.2f", transactionId, amount);
 
-                Payment payment = Payment.get(apiContext, transactionId);
+                Payment payment = retryPolicy.execute("payment lookup",
+                        () -> Payment.get(apiContext, transactionId), PayPalGateway::isTransient);
 
                 String saleId = null;
                 for (Transaction transaction : payment.getTransactions()) {
@@ -77,8 +114,7 @@ public class PayPalGateway implements PaymentGateway {
                 }
 
                 if (saleId == null) {
-                    logger.error("No sale transaction found for payment: %s", transactionId);
-                    return null;
+                    throw new PaymentException("No sale transaction found for PayPal payment " + transactionId);
                 }
 
                 RefundRequest refundRequest = new RefundRequest();
@@ -89,16 +125,16 @@ public class PayPalGateway implements PaymentGateway {
 
                 Sale sale = new Sale();
                 sale.setId(saleId);
-                DetailedRefund refund = sale.refund(apiContext, refundRequest);
+                DetailedRefund refund = execute("refund", idempotencyKey, context -> sale.refund(context, refundRequest));
 
                 logger.success("PayPal refund processed: %s", refund.getId());
                 return refund.getId();
 
             } catch (PayPalRESTException e) {
                 logger.error("PayPal refund failed: %s", e.getMessage(), e);
-                return null;
+                throw new PaymentException("PayPal refund failed: " + e.getMessage(), e);
             }
-        });
+        }, executor);
     }
 
     @Override
@@ -128,19 +164,19 @@ public class PayPalGateway implements PaymentGateway {
             try {
                 logger.debug("Checking PayPal payment status for: %s", transactionId);
 
-                Payment payment = Payment.get(apiContext, transactionId);
+                Payment payment = retryPolicy.execute("status check",
+                        () -> Payment.get(apiContext, transactionId), PayPalGateway::isTransient);
                 String state = payment.getState();
 
-                PaymentStatus paymentStatus = mapPayPalStatus(state);
+                PaymentStatus paymentStatus = mapPayPalStatus(state, findSaleState(payment));
                 logger.debug("PayPal payment status: %s -> %s", state, paymentStatus);
 
                 return paymentStatus;
 
             } catch (PayPalRESTException e) {
-                logger.error("Failed to check PayPal payment status: %s", e.getMessage(), e);
-                return PaymentStatus.FAILED;
+                throw new PaymentException("PayPal status check failed: " + e.getMessage(), e);
             }
-        });
+        }, executor);
     }
 
     @Override
@@ -160,7 +196,8 @@ public class PayPalGateway implements PaymentGateway {
                 PaymentExecution paymentExecution = new PaymentExecution();
                 paymentExecution.setPayerId(payerId);
 
-                Payment executedPayment = payment.execute(apiContext, paymentExecution);
+                Payment executedPayment = execute("execution", "execute:" + paymentId + ":" + payerId,
+                        context -> payment.execute(context, paymentExecution));
 
                 if ("approved".equals(executedPayment.getState())) {
                     logger.success("PayPal payment executed successfully: %s", paymentId);
@@ -173,9 +210,9 @@ public class PayPalGateway implements PaymentGateway {
 
             } catch (PayPalRESTException e) {
                 logger.error("PayPal payment execution failed: %s", e.getMessage(), e);
-                return null;
+                throw new PaymentException("PayPal payment execution failed: " + e.getMessage(), e);
             }
-        });
+        }, executor);
     }
 
     private Payment createPayment(double amount, String currency, String paymentMethod, String intent, Map<String, String> metadata) {
@@ -221,11 +258,42 @@ public class PayPalGateway implements PaymentGateway {
         return payment;
     }
 
-    private PaymentStatus mapPayPalStatus(String paypalState) {
+    private String findSaleState(Payment payment) {
+        if (payment.getTransactions() == null) {
+            return null;
+        }
+        for (Transaction transaction : payment.getTransactions()) {
+            if (transaction.getRelatedResources() == null) {
+                continue;
+            }
+            for (RelatedResources resources : transaction.getRelatedResources()) {
+                if (resources.getSale() != null) {
+                    return resources.getSale().getState();
+                }
+            }
+        }
+        return null;
+    }
+
+    private PaymentStatus mapPayPalStatus(String paypalState, String saleState) {
         if (paypalState == null) return PaymentStatus.PENDING;
 
         switch (paypalState.toLowerCase()) {
             case "approved":
+                if (saleState == null) {
+                    return PaymentStatus.PROCESSING;
+                }
+                switch (saleState.toLowerCase()) {
+                    case "completed":
+                    case "partially_refunded":
+                        return PaymentStatus.PAID;
+                    case "denied":
+                        return PaymentStatus.FAILED;
+                    case "refunded":
+                        return PaymentStatus.REFUNDED;
+                    default:
+                        return PaymentStatus.PROCESSING;
+                }
             case "completed":
                 return PaymentStatus.PAID;
             case "created":
@@ -241,16 +309,40 @@ public class PayPalGateway implements PaymentGateway {
         }
     }
 
-    public String getApprovalUrl(String paymentId) {
+    private <T> T execute(String operation, String requestId, ContextCall<T> call) throws PayPalRESTException {
+        APIContext context = requestContexts.poll();
+        if (context == null) {
+            context = new APIContext(clientId, clientSecret, mode);
+        }
+        context.setRequestId(requestId != null ? requestId : UUID.randomUUID().toString());
+
         try {
-            Payment payment = Payment.get(apiContext, paymentId);
-            for (Links link : payment.getLinks()) {
-                if ("approval_url".equals(link.getRel())) {
-                    return link.getHref();
-                }
+            APIContext requestContext = context;
+            return retryPolicy.execute(operation, () -> call.run(requestContext), PayPalGateway::isTransient);
+        } finally {
+            requestContexts.offer(context);
+        }
+    }
+
+    private static boolean isTransient(PayPalRESTException e) {
+        int responseCode = e.getResponsecode();
+        return responseCode == 429 || responseCode >= 500
+                || (responseCode == 0 && e.getCause() instanceof IOException);
+    }
+
+    @FunctionalInterface
+    private interface ContextCall<T> {
+        T run(APIContext context) throws PayPalRESTException;
+    }
+
+    private String findApprovalUrl(Payment payment) {
+        if (payment.getLinks() == null) {
+            return null;
+        }
+        for (Links link : payment.getLinks()) {
+            if ("approval_url".equals(link.getRel())) {
+                return link.getHref();
             }
-        } catch (PayPalRESTException e) {
-            logger.error("Failed to get PayPal approval URL: %s", e.getMessage(), e);
         }
         return null;
     }
@@ -0,0 +1,211 @@
+package net.kyver.invoices.gateway.impl;
+
+import com.stripe.exception.InvalidRequestException;
+import com.stripe.exception.StripeException;
+import com.stripe.model.Price;
+import com.stripe.model.Product;
+import com.stripe.param.PriceCreateParams;
+import com.stripe.param.ProductCreateParams;
+import net.kyver.invoices.data.DataMethods;
+import net.kyver.invoices.data.DatabaseManager;
+import net.kyver.invoices.gateway.RetryPolicy;
+import net.kyver.invoices.manager.LoggingManager;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+class StripeCatalog {
+
+    private static final LoggingManager logger = LoggingManager.getLogger(StripeCatalog.class);
+    private static final String PRODUCT_NAME = "Invoice Payment";
+    private static final String PRODUCT_DESCRIPTION = "Payment for invoice via KyverInvoices";
+    private static final int MAX_CACHED_PRICES = 1000;
+    private final String settingsPrefix;
+    private final RetryPolicy retryPolicy;
+    private final LinkedHashMap<String, String> prices;
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+    private volatile String productId;
+
+    StripeCatalog(String secretKey, RetryPolicy retryPolicy) {
+        this.settingsPrefix = "stripe." + (secretKey != null && secretKey.contains("_live_") ? "live" : "test") + ".";
+        this.retryPolicy = retryPolicy;
+        this.prices = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > MAX_CACHED_PRICES;
+            }
+        };
+    }
+
+    String getPriceId(long unitAmount, String currency) throws StripeException {
+        String key = priceKey(unitAmount, currency);
+        String priceId = cachedPrice(key);
+        if (priceId != null) {
+            return priceId;
+        }
+
+        return resolve("price." + key, () -> {
+            String stored = getSetting("price." + key);
+            String id = stored != null ? stored : createPrice(unitAmount, currency, key, null);
+            cachePrice(key, id);
+            return id;
+        });
+    }
+
+    String refreshPriceId(long unitAmount, String currency) throws StripeException {
+        String key = priceKey(unitAmount, currency);
+        String rejected;
+        synchronized (prices) {
+            rejected = prices.remove(key);
+        }
+        String replaced = rejected != null ? rejected : getSetting("price." + key);
+
+        return resolve("refresh." + key, () -> {
+            String id = createPrice(unitAmount, currency, key, replaced);
+            cachePrice(key, id);
+            return id;
+        });
+    }
+
+    private String createPrice(long unitAmount, String currency, String key, String replaced) throws StripeException {
+        Price price;
+        String product = getProductId();
+        try {
+            price = submitPrice(unitAmount, currency, product, replaced);
+        } catch (InvalidRequestException e) {
+            if (!"product".equals(e.getParam())) {
+                throw e;
+            }
+            logger.warn("Stored Stripe product %s was rejected, creating a new one", product);
+            price = submitPrice(unitAmount, currency, refreshProductId(product), replaced);
+        }
+
+        saveSetting("price." + key, price.getId());
+        logger.payment("Created Stripe price %s for %d %s", price.getId(), unitAmount, currency.toUpperCase(Locale.ROOT));
+        return price.getId();
+    }
+
+    private Price submitPrice(long unitAmount, String currency, String product, String replaced) throws StripeException {
+        PriceCreateParams params = priceParams(unitAmount, currency, product);
+        String idempotencyKey = "price:" + currency.toLowerCase(Locale.ROOT) + ":" + unitAmount + ":" + product
+                + (replaced != null ? ":replaces:" + replaced : "");
+        return retryPolicy.execute("price creation",
+                () -> Price.create(params, StripeGateway.requestOptions(idempotencyKey)), StripeGateway::isTransient);
+    }
+
+    private PriceCreateParams priceParams(long unitAmount, String currency, String product) {
+        return PriceCreateParams.builder()
+                .setCurrency(currency.toLowerCase(Locale.ROOT))
+                .setUnitAmount(unitAmount)
+                .setProduct(product)
+                .build();
+    }
+
+    private String getProductId() throws StripeException {
+        String current = productId;
+        if (current != null) {
+            return current;
+        }
+
+        return resolve("product", () -> {
+            if (productId == null) {
+                String stored = getSetting("product_id");
+                productId = stored != null ? stored : createProduct(null);
+            }
+            return productId;
+        });
+    }
+
+    private String refreshProductId(String rejected) throws StripeException {
+        return resolve("refresh.product", () -> {
+            if (productId == null || productId.equals(rejected)) {
+                productId = createProduct(rejected);
+            }
+            return productId;
+        });
+    }
+
+    private String createProduct(String replaced) throws StripeException {
+        ProductCreateParams params = ProductCreateParams.builder()
+                .setName(PRODUCT_NAME)
+                .setDescription(PRODUCT_DESCRIPTION)
+                .build();
+        String idempotencyKey = "product:invoice-payment" + (replaced != null ? ":replaces:" + replaced : "");
+        Product product = retryPolicy.execute("product creation",
+                () -> Product.create(params, StripeGateway.requestOptions(idempotencyKey)), StripeGateway::isTransient);
+
+        saveSetting("product_id", product.getId());
+        logger.payment("Created Stripe product %s", product.getId());
+        return product.getId();
+    }
+
+    private String resolve(String key, Loader loader) throws StripeException {
+        CompletableFuture<String> created = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            return await(existing);
+        }
+
+        try {
+            String value = loader.load();
+            created.complete(value);
+            return value;
+        } catch (StripeException | RuntimeException e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, created);
+        }
+    }
+
+    private static String await(CompletableFuture<String> future) throws StripeException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof StripeException stripeException) {
+                throw stripeException;
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    private String cachedPrice(String key) {
+        synchronized (prices) {
+            return prices.get(key);
+        }
+    }
+
+    private void cachePrice(String key, String priceId) {
+        synchronized (prices) {
+            prices.put(key, priceId);
+        }
+    }
+
+    private String getSetting(String key) {
+        DataMethods dataMethods = DatabaseManager.getDataMethods();
+        return dataMethods != null ? dataMethods.getSetting(settingsPrefix + key) : null;
+    }
+
+    private void saveSetting(String key, String value) {
+        DataMethods dataMethods = DatabaseManager.getDataMethods();
+        if (dataMethods != null) {
+            dataMethods.saveSetting(settingsPrefix + key, value);
+        }
+    }
+
+    private static String priceKey(long unitAmount, String currency) {
+        return currency.toLowerCase(Locale.ROOT) + "." + unitAmount;
+    }
+
+    @FunctionalInterface
+    private interface Loader {
+        String load() throws StripeException;
+    }
+}
@@ -1,34 +1,50 @@
 package net.kyver.invoices.gateway.impl;
 
 import com.stripe.Stripe;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.ApiException;
+import com.stripe.exception.InvalidRequestException;
+import com.stripe.exception.RateLimitException;
 import com.stripe.exception.StripeException;
 import com.stripe.model.PaymentIntent;
 import com.stripe.model.PaymentLink;
 import com.stripe.model.Refund;
+import com.stripe.net.RequestOptions;
 import com.stripe.param.PaymentIntentCreateParams;
 import com.stripe.param.PaymentLinkCreateParams;
 import com.stripe.param.RefundCreateParams;
 import net.kyver.invoices.enums.PaymentStatus;
 import net.kyver.invoices.exception.PaymentException;
 import net.kyver.invoices.gateway.PaymentGateway;
+import net.kyver.invoices.gateway.RetryPolicy;
 import net.kyver.invoices.manager.LoggingManager;
+import net.kyver.invoices.model.PaymentSession;
 
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 
 public class StripeGateway implements PaymentGateway {
 
     private static final LoggingManager logger = LoggingManager.getLogger(StripeGateway.class);
+    private static final String PAYMENT_LINK_PREFIX = "plink_";
+    private final StripeCatalog catalog;
+    private final Executor executor;
+    private final RetryPolicy retryPolicy;
     private Consumer<String> paymentCompletedListener;
 
-    public StripeGateway(String secretKey) {
+    public StripeGateway(String secretKey, Executor executor, RetryPolicy retryPolicy) {
         Stripe.apiKey = secretKey;
+        this.executor = executor;
+        this.retryPolicy = retryPolicy;
+        this.catalog = new StripeCatalog(secretKey, retryPolicy);
         logger.success("Stripe gateway initialized successfully");
     }
 
     @Override
-    public CompletableFuture<String> processPaymentAsync(double amount, String currency, String paymentMethod, Map<String, String> metadata) {
+    public CompletableFuture<String> processPaymentAsync(double amount, String currency, String paymentMethod,
+                                                        Map<String, String> metadata, String idempotencyKey) {
         return CompletableFuture.supplyAsync(() -> {
             try {
                 logger.payment("Processing Stripe payment: $%.2f %s", amount, currency.toUpperCase());
@@ -49,7 +65,9 @@ public class StripeGateway implements PaymentGateway {
                     paramsBuilder.putAllMetadata(metadata);
                 }
 
-                PaymentIntent paymentIntent = PaymentIntent.create(paramsBuilder.build());
+                PaymentIntentCreateParams params = paramsBuilder.build();
+                PaymentIntent paymentIntent = retryPolicy.execute("payment intent",
+                        () -> PaymentIntent.create(params, requestOptions(idempotencyKey)), StripeGateway::isTransient);
 
                 logger.success("Stripe payment intent created: %s", paymentIntent.getId());
                 logger.payment("Payment status: %s", paymentIntent.getStatus());
@@ -65,13 +83,13 @@ public class StripeGateway implements PaymentGateway {
 
             } catch (StripeException e) {
                 logger.error("Stripe payment failed: %s", e.getMessage(), e);
-                return null;
+                throw new PaymentException("Stripe payment failed: " + e.getMessage(), e);
             }
-        });
+        }, executor);
     }
 
     @Override
-    public CompletableFuture<String> refundPaymentAsync(String transactionId, double amount) {
+    public CompletableFuture<String> refundPaymentAsync(String transactionId, double amount, String idempotencyKey) {
         return CompletableFuture.supplyAsync(() -> {
             try {
                 logger.payment("Processing Stripe refund for transaction: %s, amount: $%.2f", transactionId, amount);
@@ -83,16 +101,17 @@ public class StripeGateway implements PaymentGateway {
                         .setAmount(amountInCents)
                         .build();
 
-                Refund refund = Refund.create(params);
+                Refund refund = retryPolicy.execute("refund",
+                        () -> Refund.create(params, requestOptions(idempotencyKey)), StripeGateway::isTransient);
 
                 logger.success("Stripe refund processed: %s", refund.getId());
                 return refund.getId();
 
             } catch (StripeException e) {
                 logger.error("Stripe refund failed: %s", e.getMessage(), e);
-                return null;
+                throw new PaymentException("Stripe refund failed: " + e.getMessage(), e);
             }
-        });
+        }, executor);
     }
 
     @Override
@@ -130,7 +149,13 @@ public class StripeGateway implements PaymentGateway {
             try {
                 logger.debug("Checking Stripe payment status for: %s", transactionId);
 
-                PaymentIntent paymentIntent = PaymentIntent.retrieve(transactionId);
+                if (transactionId.startsWith(PAYMENT_LINK_PREFIX)) {
+                    logger.debug("Stripe payment link %s is settled by webhook", transactionId);
+                    return PaymentStatus.PENDING;
+                }
+
+                PaymentIntent paymentIntent = retryPolicy.execute("status check",
+                        () -> PaymentIntent.retrieve(transactionId), StripeGateway::isTransient);
                 String status = paymentIntent.getStatus();
 
                 PaymentStatus paymentStatus = mapStripeStatus(status);
@@ -139,10 +164,9 @@ public class StripeGateway implements PaymentGateway {
                 return paymentStatus;
 
             } catch (StripeException e) {
-                logger.error("Failed to check Stripe payment status: %s", e.getMessage(), e);
-                return PaymentStatus.FAILED;
+                throw new PaymentException("Stripe status check failed: " + e.getMessage(), e);
             }
-        });
+        }, executor);
     }
 
     @Override
@@ -169,62 +193,56 @@ public class StripeGateway implements PaymentGateway {
         }
     }
 
-    public CompletableFuture<String> createPaymentLink(double amount, String currency, Map<String, String> metadata) {
+    @Override
+    public CompletableFuture<PaymentSession> createPaymentSessionAsync(double amount, String currency,
+                                                                       Map<String, String> metadata, String idempotencyKey) {
         return CompletableFuture.supplyAsync(() -> {
             try {
                 logger.payment("Creating Stripe payment link: $%.2f %s", amount, currency.toUpperCase());
 
-                PaymentLink paymentLink = com.stripe.model.PaymentLink.create(
-                    PaymentLinkCreateParams.builder()
-                        .addLineItem(
-                            PaymentLinkCreateParams.LineItem.builder()
-                                .setPrice(createPriceForPayment(amount, currency))
-                                .setQuantity(1L)
-                                .build()
-                        )
-                        .putAllMetadata(metadata != null ? metadata : Map.of())
-                        .build()
-                );
+                long amountInCents = Math.round(amount * 100);
+                PaymentLink paymentLink;
+                try {
+                    paymentLink = createPaymentLink(catalog.getPriceId(amountInCents, currency), metadata, idempotencyKey);
+                } catch (InvalidRequestException e) {
+                    if (e.getParam() == null || !e.getParam().startsWith("line_items")) {
+                        throw e;
+                    }
+                    logger.warn("Cached Stripe price for %d %s was rejected, creating a new one", amountInCents, currency.toUpperCase());
+                    paymentLink = createPaymentLink(catalog.refreshPriceId(amountInCents, currency), metadata, idempotencyKey);
+                }
 
                 logger.success("Stripe payment link created: %s", paymentLink.getId());
-                return paymentLink.getUrl();
+                return new PaymentSession(paymentLink.getId(), paymentLink.getUrl(), null);
 
             } catch (StripeException e) {
                 logger.error("Failed to create Stripe payment link: %s", e.getMessage(), e);
-                return createFallbackPaymentUrl(amount, currency, metadata);
+                return createFallbackSession(amount, currency, metadata, idempotencyKey);
             }
-        });
-    }
-
-    private String createPriceForPayment(double amount, String currency) throws StripeException {
-        long amountInCents = Math.round(amount * 100);
-
-        com.stripe.model.Price price = com.stripe.model.Price.create(
-            com.stripe.param.PriceCreateParams.builder()
-                .setCurrency(currency.toLowerCase())
-                .setUnitAmount(amountInCents)
-                .setProduct(getOrCreateProduct())
-                .build()
-        );
-
-        return price.getId();
+        }, executor);
     }
 
-    private String getOrCreateProduct() throws StripeException {
-        try {
-            com.stripe.model.Product product = com.stripe.model.Product.create(
-                com.stripe.param.ProductCreateParams.builder()
-                    .setName("Invoice Payment")
-                    .setDescription("Payment for invoice via KyverInvoices")
+    private PaymentLink createPaymentLink(String priceId, Map<String, String> metadata, String idempotencyKey) throws StripeException {
+        PaymentLinkCreateParams params = PaymentLinkCreateParams.builder()
+            .addLineItem(
+                PaymentLinkCreateParams.LineItem.builder()
+                    .setPrice(priceId)
+                    .setQuantity(1L)
                     .build()
-            );
-            return product.getId();
-        } catch (StripeException e) {
-            throw e;
-        }
+            )
+            .putAllMetadata(metadata != null ? metadata : Map.of())
+            .setPaymentIntentData(
+                PaymentLinkCreateParams.PaymentIntentData.builder()
+                    .putAllMetadata(metadata != null ? metadata : Map.of())
+                    .build()
+            )
+            .build();
+
+        RequestOptions options = requestOptions(idempotencyKey != null ? idempotencyKey + ":" + priceId : null);
+        return retryPolicy.execute("payment link", () -> PaymentLink.create(params, options), StripeGateway::isTransient);
     }
 
-    private String createFallbackPaymentUrl(double amount, String currency, Map<String, String> metadata) {
+    private PaymentSession createFallbackSession(double amount, String currency, Map<String, String> metadata, String idempotencyKey) {
         try {
             long amountInCents = Math.round(amount * 100);
 
@@ -241,15 +259,33 @@ public class StripeGateway implements PaymentGateway {
                 paramsBuilder.putAllMetadata(metadata);
             }
 
-            PaymentIntent paymentIntent = PaymentIntent.create(paramsBuilder.build());
+            PaymentIntentCreateParams params = paramsBuilder.build();
+            RequestOptions options = requestOptions(idempotencyKey != null ? idempotencyKey + ":fallback" : null);
+            PaymentIntent paymentIntent = retryPolicy.execute("fallback payment intent",
+                    () -> PaymentIntent.create(params, options), StripeGateway::isTransient);
 
             String webAppUrl = getWebAppUrl();
-            return String.format("%s/payment/%s", webAppUrl, paymentIntent.getId());
+            return new PaymentSession(paymentIntent.getId(), String.format("%s/payment/%s", webAppUrl, paymentIntent.getId()), null);
 
         } catch (StripeException e) {
             logger.error("Fallback payment URL creation failed: %s", e.getMessage(), e);
-            return "https://stripe.com";
+            throw new PaymentException("Stripe payment session failed: " + e.getMessage(), e);
+        }
+    }
+
+    static RequestOptions requestOptions(String idempotencyKey) {
+        RequestOptions.RequestOptionsBuilder builder = RequestOptions.builder();
+        if (idempotencyKey != null) {
+            builder.setIdempotencyKey(idempotencyKey);
+        }
+        return builder.build();
+    }
+
+    static boolean isTransient(StripeException e) {
+        if (e instanceof ApiConnectionException || e instanceof RateLimitException) {
+            return true;
         }
+        return e instanceof ApiException && e.getStatusCode() != null && e.getStatusCode() >= 500;
     }
 
     private String getWebAppUrl() {
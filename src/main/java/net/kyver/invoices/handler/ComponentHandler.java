@@ -9,6 +9,8 @@ import net.dv8tion.jda.api.hooks.ListenerAdapter;
 import net.dv8tion.jda.api.interactions.components.ActionRow;
 import net.dv8tion.jda.api.interactions.components.buttons.Button;
 import net.kyver.invoices.data.DatabaseManager;
+import net.kyver.invoices.data.OutboxEntry;
+import net.kyver.invoices.enums.OutboxAction;
 import net.kyver.invoices.enums.PaymentGateway;
 import net.kyver.invoices.enums.PaymentStatus;
 import net.kyver.invoices.manager.EmbedManager;
@@ -16,9 +18,10 @@ import net.kyver.invoices.manager.LoggingManager;
 import net.kyver.invoices.manager.PaymentManager;
 import net.kyver.invoices.model.Invoice;
 import net.kyver.invoices.service.DMService;
-import net.kyver.invoices.service.NotificationService;
+import net.kyver.invoices.service.OutboxDispatcher;
 import net.kyver.invoices.service.QRCodeService;
 
+import java.util.List;
 import java.util.UUID;
 
 public class ComponentHandler extends ListenerAdapter {
@@ -81,28 +84,22 @@ public class ComponentHandler extends ListenerAdapter {
             PaymentGateway gateway = PaymentGateway.valueOf(selectedMethod.toUpperCase());
             invoice.setSelectedGateway(gateway);
 
-            paymentManager.createPaymentLink(invoiceId, gateway).thenAccept(paymentUrl -> {
-                invoice.setPaymentUrl(paymentUrl);
+            paymentManager.createPaymentSession(invoiceId, gateway).thenAccept(session -> {
+                invoice.setPaymentUrl(session.getApprovalUrl());
+                invoice.setExternalPaymentId(session.getExternalId());
 
                 try {
-                    byte[] qrCodeData = QRCodeService.generateQRCode(paymentUrl);
-
-                    DatabaseManager.getDataMethods().updateInvoice(invoice);
+                    boolean updated = DatabaseManager.getDataMethods().updateInvoiceWithOutbox(invoice, List.of(
+                            OutboxEntry.forUser(invoiceId, OutboxAction.PAYMENT_READY_DM, event.getUser().getId()),
+                            OutboxEntry.of(invoiceId, OutboxAction.PAYMENT_READY_NOTIFICATION)
+                    ));
+                    if (!updated) {
+                        event.getHook().editOriginal("❌ Failed to create payment. Please try again.").queue();
+                        return;
+                    }
 
                     event.getHook().deleteOriginal().queue();
-
-                    DMService.sendPaymentReadyDM(event.getUser(), invoice, qrCodeData);
-
-                    if (invoice.getChannelId() != null && !invoice.getChannelId().isEmpty()) {
-                        TextChannel channel = event.getJDA().getTextChannelById(invoice.getChannelId());
-                        if (channel != null) {
-                            NotificationService.sendPaymentReadyNotification(channel, invoice);
-                        } else {
-                            logger.warn("Channel not found for invoice: " + invoice.getChannelId());
-                        }
-                    } else {
-                        logger.warn("No channel ID set for invoice: " + invoice.getInvoiceId());
-                    }
+                    OutboxDispatcher.wakeUp();
 
                 } catch (Exception e) {
                     logger.error("Failed to process payment method selection", e);
@@ -189,10 +186,7 @@ public class ComponentHandler extends ListenerAdapter {
             event.deferReply(true).queue();
 
             if (invoice.getExternalPaymentId() != null) {
-                paymentManager.checkPaymentStatus(invoice.getInvoiceId()).thenAccept(status -> {
-                    invoice.setStatus(status);
-                    DatabaseManager.getDataMethods().updateInvoice(invoice);
-
+                paymentManager.refreshInvoiceStatus(invoice).thenAccept(status -> {
                     var embed = EmbedManager.custom(event.getGuild())
                             .setTitle("📧 Invoice #" + invoice.getInvoiceId().toString().substring(0, 8))
                             .setDescription("**" + invoice.getDescription() + "**")
@@ -234,7 +228,10 @@ public class ComponentHandler extends ListenerAdapter {
             }
 
             invoice.setStatus(PaymentStatus.CANCELLED);
-            DatabaseManager.getDataMethods().updateInvoice(invoice);
+            DatabaseManager.getDataMethods().updateInvoiceWithOutbox(invoice, List.of(
+                    OutboxEntry.of(invoiceId, OutboxAction.PAYMENT_CANCELLED_DM)
+            ));
+            OutboxDispatcher.wakeUp();
 
             var embed = EmbedManager.custom(event.getGuild())
                     .setColor(EmbedManager.getErrorColor())
@@ -258,11 +255,6 @@ public class ComponentHandler extends ListenerAdapter {
 
             event.getMessage().editMessageEmbeds(embed).setComponents(cancelledButtons).queue();
 
-            User user = event.getJDA().getUserById(invoice.getDiscordUserId());
-            if (user != null) {
-                DMService.sendPaymentCancelledDM(user, invoice);
-            }
-
             var successEmbed = EmbedManager.custom(event.getGuild())
                     .setColor(EmbedManager.getErrorColor())
                     .setTitle("🚫 Invoice Cancelled")
@@ -321,23 +313,15 @@ public class ComponentHandler extends ListenerAdapter {
             event.reply("🚫 Payment cancelled successfully.").setEphemeral(true).queue();
 
             invoice.setStatus(PaymentStatus.CANCELLED);
-            DatabaseManager.getDataMethods().updateInvoice(invoice);
+            String userId = event.getUser().getId();
+            DatabaseManager.getDataMethods().updateInvoiceWithOutbox(invoice, List.of(
+                    OutboxEntry.forUser(invoiceId, OutboxAction.PAYMENT_CANCELLED_BY_USER_NOTIFICATION, userId),
+                    OutboxEntry.forUser(invoiceId, OutboxAction.PAYMENT_CANCELLED_DM, userId)
+            ));
+            OutboxDispatcher.wakeUp();
 
             event.getMessage().delete().queue();
 
-            if (invoice.getChannelId() != null && !invoice.getChannelId().isEmpty()) {
-                TextChannel channel = event.getJDA().getTextChannelById(invoice.getChannelId());
-                if (channel != null) {
-                    NotificationService.sendPaymentCancelledByUserNotification(channel, invoice, event.getUser());
-                } else {
-                    logger.warn("Channel not found for invoice: " + invoice.getChannelId());
-                }
-            } else {
-                logger.warn("No channel ID set for invoice: " + invoice.getInvoiceId());
-            }
-
-            DMService.sendPaymentCancelledDM(event.getUser(), invoice);
-
         } catch (Exception e) {
             logger.error("Error cancelling payment", e);
             if (!event.isAcknowledged()) {
@@ -9,6 +9,9 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 
 public class ConfigManager {
@@ -124,6 +127,62 @@ public class ConfigManager {
         return getString("gateways.stripe.webhook_secret", "");
     }
 
+    public List<String> getStripeWebhookSecrets() {
+        List<String> secrets = new ArrayList<>();
+        secrets.add(getStripeWebhookSecret());
+
+        Object previous = getNestedValue("gateways.stripe.previous_webhook_secrets");
+        if (previous instanceof List<?> list) {
+            list.forEach(secret -> secrets.add(String.valueOf(secret)));
+        } else if (previous != null) {
+            secrets.addAll(Arrays.asList(previous.toString().split(",")));
+        }
+
+        secrets.replaceAll(String::trim);
+        secrets.removeIf(String::isEmpty);
+        return secrets;
+    }
+
+    public long getStripeWebhookToleranceSeconds() {
+        return getInt("gateways.stripe.webhook_tolerance_seconds", 300);
+    }
+
+    public long getGatewayTimeoutSeconds() {
+        return getInt("gateways.resilience.timeout_seconds", 20);
+    }
+
+    public int getGatewayMaxConcurrentCalls() {
+        return getInt("gateways.resilience.max_concurrent_calls", 8);
+    }
+
+    public int getGatewayCircuitWindowSize() {
+        return getInt("gateways.resilience.window_size", 20);
+    }
+
+    public int getGatewayCircuitMinimumCalls() {
+        return getInt("gateways.resilience.minimum_calls", 5);
+    }
+
+    public int getGatewayCircuitFailureRateThreshold() {
+        return getInt("gateways.resilience.failure_rate_threshold", 50);
+    }
+
+    public long getGatewayCircuitOpenSeconds() {
+        return getInt("gateways.resilience.open_seconds", 30);
+    }
+
+    public int getGatewayRetryMaxAttempts() {
+        return getInt("gateways.retry.max_attempts", 3);
+    }
+
+    public long getGatewayRetryBaseDelayMs() {
+        return getInt("gateways.retry.base_delay_ms", 500);
+    }
+
+    public long getGatewayRetryMaxDelayMs() {
+        return getInt("gateways.retry.max_delay_ms", 4000);
+    }
+
     public String getPayPalClientId() {
         return getString("gateways.paypal.client_id", "");
     }
@@ -136,6 +195,14 @@ public class ConfigManager {
         return getString("gateways.paypal.mode", "sandbox");
     }
 
+    public String getPayPalWebhookId() {
+        return getString("gateways.paypal.webhook_id", "");
+    }
+
+    public long getPayPalCertificateCacheTtlSeconds() {
+        return getInt("gateways.paypal.cert_cache_ttl_seconds", 3600);
+    }
+
     public String getWebApiUrl() {
         return getString("web_api.url", "http://localhost:3000");
     }
@@ -148,6 +215,143 @@ public class ConfigManager {
         return getString("web_api.auth.jwt_secret", "default_secret");
     }
 
+    public int getDatabaseReaderPoolSize() {
+        return Math.max(0, getInt("database.sqlite.reader_pool_size", 4));
+    }
+
+    public boolean isWriteBehindEnabled() {
+        return getBoolean("database.write_behind.enabled", false);
+    }
+
+    public long getWriteBehindFlushIntervalMs() {
+        return getInt("database.write_behind.flush_interval_ms", 250);
+    }
+
+    public int getWriteBehindMaxBatchSize() {
+        return getInt("database.write_behind.max_batch_size", 50);
+    }
+
+    public boolean isInvoiceCacheEnabled() {
+        return getBoolean("database.cache.enabled", true);
+    }
+
+    public int getInvoiceCacheMaxSize() {
+        return getInt("database.cache.max_size", 1000);
+    }
+
+    public long getInvoiceCacheTtlSeconds() {
+        return getInt("database.cache.ttl_seconds", 300);
+    }
+
+    public int getPaymentHotSetSize() {
+        return getInt("database.payments.hot_set_size", 500);
+    }
+
+    public long getOutboxPollIntervalMs() {
+        return getInt("database.outbox.poll_interval_ms", 2000);
+    }
+
+    public int getOutboxBatchSize() {
+        return getInt("database.outbox.batch_size", 25);
+    }
+
+    public int getOutboxMaxAttempts() {
+        return getInt("database.outbox.max_attempts", 10);
+    }
+
+    public long getOutboxBackoffBaseSeconds() {
+        return getInt("database.outbox.backoff_base_seconds", 5);
+    }
+
+    public long getOutboxBackoffMaxSeconds() {
+        return getInt("database.outbox.backoff_max_seconds", 900);
+    }
+
+    public int getExecutorThreads(String pool, int defaultThreads) {
+        return getInt("executors." + pool + ".threads", defaultThreads);
+    }
+
+    public int getExecutorQueueSize(String pool, int defaultQueueSize) {
+        return getInt("executors." + pool + ".queue_size", defaultQueueSize);
+    }
+
+    public String getWebApiExecutorMode() {
+        return getString("web_api.executor", "virtual");
+    }
+
+    public int getWebApiMaxThreads() {
+        return getInt("web_api.bounded_executor.max_threads", 32);
+    }
+
+    public int getWebApiQueueSize() {
+        return getInt("web_api.bounded_executor.queue_size", 200);
+    }
+
+    public int getWebApiRetryAfterSeconds() {
+        return getInt("web_api.bounded_executor.retry_after_seconds", 1);
+    }
+
+    public String getWebApiServer() {
+        return getString("web_api.server", "httpserver");
+    }
+
+    public int getWebApiMaxBodyBytes() {
+        return getInt("web_api.max_body_bytes", 1048576);
+    }
+
+    public int getWebApiMaxHeaderBytes() {
+        return getInt("web_api.nio.max_header_bytes", 16384);
+    }
+
+    public int getWebApiIdleTimeoutSeconds() {
+        return getInt("web_api.nio.idle_timeout_seconds", 30);
+    }
+
+    public boolean isWebhookAsyncEnabled() {
+        return getBoolean("web_api.webhooks.async.enabled", false);
+    }
+
+    public int getWebhookQueueCapacity() {
+        return getInt("web_api.webhooks.async.queue_capacity", 1000);
+    }
+
+    public int getWebhookWorkerCount() {
+        return getInt("web_api.webhooks.async.workers", 4);
+    }
+
+    public int getWebhookShardQueueSize() {
+        return getInt("web_api.webhooks.async.shard_queue_size", 100);
+    }
+
+    public int getWebhookInboxMaxAttempts() {
+        return getInt("web_api.webhooks.async.max_attempts", 10);
+    }
+
+    public int getWebhookRetryAfterSeconds() {
+        return getInt("web_api.webhooks.async.retry_after_seconds", 5);
+    }
+
+    public boolean isWebhookDedupeEnabled() {
+        return getBoolean("web_api.webhooks.dedupe.enabled", true);
+    }
+
+    public int getWebhookDedupeMemorySize() {
+        return getInt("web_api.webhooks.dedupe.memory_size", 10000);
+    }
+
+    public long getWebhookDedupeTtlHours() {
+        return getInt("web_api.webhooks.dedupe.ttl_hours", 168);
+    }
+
+    public boolean isMetricsEndpointEnabled() {
+        return getBoolean("web_api.metrics.enabled", false);
+    }
+
+    public String getMetricsToken() {
+        String token = getString("web_api.metrics.token", "");
+        return token.isEmpty() ? getJwtSecret() : token;
+    }
+
     public String getBotToken() {
         return getString("bot.token", "");
     }
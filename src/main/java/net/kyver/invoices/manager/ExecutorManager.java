@@ -0,0 +1,127 @@
+package net.kyver.invoices.manager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ExecutorManager {
+
+    public static final String STRIPE = "stripe";
+    public static final String PAYPAL = "paypal";
+    public static final String PAYMENTS = "payments";
+    public static final String DISCORD = "discord";
+
+    private static final LoggingManager logger = LoggingManager.getLogger(ExecutorManager.class);
+    private static final long SATURATION_LOG_INTERVAL_MS = 10_000;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+    private static final Map<String, int[]> DEFAULTS = Map.of(
+            STRIPE, new int[] {8, 200},
+            PAYPAL, new int[] {8, 200},
+            PAYMENTS, new int[] {4, 100},
+            DISCORD, new int[] {4, 200}
+    );
+    private static ExecutorManager instance;
+
+    private final ConfigManager configManager;
+    private final Map<String, Pool> pools = new ConcurrentHashMap<>();
+
+    private ExecutorManager() {
+        this.configManager = ConfigManager.getInstance();
+    }
+
+    public static synchronized ExecutorManager getInstance() {
+        if (instance == null) {
+            instance = new ExecutorManager();
+        }
+        return instance;
+    }
+
+    public Executor getExecutor(String name) {
+        return pools.computeIfAbsent(name, this::createPool).executor;
+    }
+
+    private Pool createPool(String name) {
+        int[] defaults = DEFAULTS.getOrDefault(name, new int[] {4, 100});
+        int threads = Math.max(1, configManager.getExecutorThreads(name, defaults[0]));
+        int queueSize = Math.max(1, configManager.getExecutorQueueSize(name, defaults[1]));
+
+        Pool pool = new Pool(name, threads, queueSize);
+        logger.info("Executor '%s' started (%d threads, %d queued tasks)", name, threads, queueSize);
+        return pool;
+    }
+
+    public void shutdown() {
+        pools.values().forEach(pool -> pool.executor.shutdown());
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SHUTDOWN_TIMEOUT_SECONDS);
+        for (Pool pool : pools.values()) {
+            try {
+                if (!pool.executor.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    int dropped = pool.executor.shutdownNow().size();
+                    logger.warn("Executor '%s' did not finish in time, %d queued tasks dropped", pool.name, dropped);
+                }
+            } catch (InterruptedException e) {
+                pool.executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        pools.values().stream()
+                .sorted((a, b) -> a.name.compareTo(b.name))
+                .forEach(pool -> stats.put(pool.name, pool.getStats()));
+        return stats;
+    }
+
+    private static class Pool {
+        private final String name;
+        private final ThreadPoolExecutor executor;
+        private final LongAdder saturated = new LongAdder();
+        private final AtomicLong lastSaturationLog = new AtomicLong();
+
+        private Pool(String name, int threads, int queueSize) {
+            this.name = name;
+            AtomicInteger threadCount = new AtomicInteger();
+            this.executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(queueSize), runnable -> {
+                        Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }, (runnable, pool) -> {
+                        if (pool.isShutdown()) {
+                            throw new RejectedExecutionException("Executor '" + name + "' is shut down");
+                        }
+                        saturated.increment();
+                        logSaturation(pool);
+                        throw new RejectedExecutionException("Executor '" + name + "' is busy");
+                    });
+            this.executor.allowCoreThreadTimeOut(true);
+        }
+
+        private void logSaturation(ThreadPoolExecutor pool) {
+            long now = System.currentTimeMillis();
+            long last = lastSaturationLog.get();
+            if (now - last >= SATURATION_LOG_INTERVAL_MS && lastSaturationLog.compareAndSet(last, now)) {
+                logger.warn("Executor '%s' saturated (%d busy threads, %d queued), rejecting new tasks (%d so far)",
+                        name, pool.getActiveCount(), pool.getQueue().size(), saturated.sum());
+            }
+        }
+
+        private Map<String, Object> getStats() {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("max_threads", executor.getMaximumPoolSize());
+            stats.put("pool_size", executor.getPoolSize());
+            stats.put("active", executor.getActiveCount());
+            stats.put("queued", executor.getQueue().size());
+            stats.put("queue_capacity", executor.getQueue().size() + executor.getQueue().remainingCapacity());
+            stats.put("completed", executor.getCompletedTaskCount());
+            stats.put("saturated", saturated.sum());
+            return stats;
+        }
+    }
+}
@@ -4,28 +4,45 @@ import net.kyver.invoices.data.DatabaseManager;
 import net.kyver.invoices.enums.PaymentGateway;
 import net.kyver.invoices.enums.PaymentStatus;
 import net.kyver.invoices.exception.PaymentException;
+import net.kyver.invoices.gateway.CircuitBreaker;
+import net.kyver.invoices.gateway.ResilientGateway;
+import net.kyver.invoices.gateway.RetryPolicy;
 import net.kyver.invoices.gateway.impl.PayPalGateway;
 import net.kyver.invoices.gateway.impl.StripeGateway;
 import net.kyver.invoices.model.Invoice;
 import net.kyver.invoices.model.Payment;
+import net.kyver.invoices.model.PaymentSession;
+import net.kyver.invoices.service.OutboxDispatcher;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.ZoneOffset;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
 public class PaymentManager {
 
     private static final LoggingManager logger = LoggingManager.getLogger(PaymentManager.class);
     private static PaymentManager instance;
     private final ConfigManager configManager;
+    private final ExecutorManager executorManager;
+    private final Executor executor;
     private final Map<PaymentGateway, net.kyver.invoices.gateway.PaymentGateway> gateways;
-    private final Map<UUID, Payment> activePayments;
+    private final PaymentRegistry activePayments;
+    private final PaymentStats paymentStats;
 
     private PaymentManager() {
         this.configManager = ConfigManager.getInstance();
+        this.executorManager = ExecutorManager.getInstance();
+        this.executor = executorManager.getExecutor(ExecutorManager.PAYMENTS);
         this.gateways = new ConcurrentHashMap<>();
-        this.activePayments = new ConcurrentHashMap<>();
+        this.activePayments = new PaymentRegistry(configManager.getPaymentHotSetSize());
+        this.paymentStats = new PaymentStats();
+        this.paymentStats.seed(DatabaseManager.getDataMethods().getPaymentTotals());
         initializeGateways();
     }
 
@@ -41,8 +58,9 @@ public class PaymentManager {
 
         if (configManager.isStripeEnabled()) {
             try {
-                StripeGateway stripeGateway = new StripeGateway(configManager.getStripeSecretKey());
-                gateways.put(PaymentGateway.STRIPE, stripeGateway);
+                StripeGateway stripeGateway = new StripeGateway(configManager.getStripeSecretKey(),
+                    executorManager.getExecutor(ExecutorManager.STRIPE), RetryPolicy.fromConfig("Stripe"));
+                gateways.put(PaymentGateway.STRIPE, withResilience(PaymentGateway.STRIPE, stripeGateway));
                 logger.success("Stripe gateway initialized");
             } catch (Exception e) {
                 logger.error("Failed to initialize Stripe gateway", e);
@@ -54,9 +72,11 @@ public class PaymentManager {
                 PayPalGateway paypalGateway = new PayPalGateway(
                     configManager.getPayPalClientId(),
                     configManager.getPayPalClientSecret(),
-                    configManager.getPayPalMode()
+                    configManager.getPayPalMode(),
+                    executorManager.getExecutor(ExecutorManager.PAYPAL),
+                    RetryPolicy.fromConfig("PayPal")
                 );
-                gateways.put(PaymentGateway.PAYPAL, paypalGateway);
+                gateways.put(PaymentGateway.PAYPAL, withResilience(PaymentGateway.PAYPAL, paypalGateway));
                 logger.success("PayPal gateway initialized");
             } catch (Exception e) {
                 logger.error("Failed to initialize PayPal gateway", e);
@@ -66,10 +86,22 @@ public class PaymentManager {
         logger.payment("Payment gateways initialized: %d active", gateways.size());
     }
 
+    private ResilientGateway withResilience(PaymentGateway type, net.kyver.invoices.gateway.PaymentGateway gateway) {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(
+            type.getDisplayName(),
+            configManager.getGatewayCircuitWindowSize(),
+            configManager.getGatewayCircuitMinimumCalls(),
+            configManager.getGatewayCircuitFailureRateThreshold(),
+            configManager.getGatewayCircuitOpenSeconds() * 1000L
+        );
+        return new ResilientGateway(type.getDisplayName(), gateway, circuitBreaker,
+            configManager.getGatewayMaxConcurrentCalls(), configManager.getGatewayTimeoutSeconds() * 1000L);
+    }
+
     public CompletableFuture<Payment> createPayment(UUID invoiceId, String discordUserId,
                                                    PaymentGateway gateway, String customerEmail,
                                                    String customerName) {
-        return CompletableFuture.supplyAsync(() -> {
+        return supplyAsync(() -> {
             try {
                 logger.payment("Creating payment for invoice %s with gateway %s", invoiceId, gateway.getDisplayName());
 
@@ -90,7 +122,8 @@ public class PaymentManager {
                 payment.addMetadata("invoice_id", invoiceId.toString());
                 payment.addMetadata("discord_user_id", discordUserId);
 
-                activePayments.put(payment.getPaymentId(), payment);
+                savePayment(payment);
+                paymentStats.recordCreated(payment);
 
                 return processPaymentWithGateway(payment, gateway);
 
@@ -114,29 +147,12 @@ public class PaymentManager {
             metadata.put("invoice_id", invoice.getInvoiceId().toString());
             metadata.put("discord_user_id", invoice.getDiscordUserId());
 
-            switch (gateway) {
-                case STRIPE:
-                    StripeGateway stripeGateway = (StripeGateway) gatewayImpl;
-                    return stripeGateway.createPaymentLink(
-                        invoice.getAmount().doubleValue(),
-                        invoice.getCurrency(),
-                        metadata
-                    ).join();
-
-                case PAYPAL:
-                    String paymentId = gatewayImpl.processPaymentAsync(
-                        invoice.getAmount().doubleValue(),
-                        invoice.getCurrency(),
-                        "paypal",
-                        metadata
-                    ).join();
-
-                    PayPalGateway paypalGateway = (PayPalGateway) gatewayImpl;
-                    return paypalGateway.getApprovalUrl(paymentId);
-
-                default:
-                    throw new PaymentException("Payment links not supported for: " + gateway.getDisplayName());
-            }
+            return gatewayImpl.createPaymentSessionAsync(
+                invoice.getAmount().doubleValue(),
+                invoice.getCurrency(),
+                metadata,
+                sessionIdempotencyKey(invoice, gateway)
+            ).join().getApprovalUrl();
 
         } catch (Exception e) {
             logger.error("Failed to generate payment link", e);
@@ -163,10 +179,10 @@ public class PaymentManager {
         }
     }
 
-    public CompletableFuture<String> createPaymentLink(UUID invoiceId, PaymentGateway gateway) {
-        return CompletableFuture.supplyAsync(() -> {
+    public CompletableFuture<PaymentSession> createPaymentSession(UUID invoiceId, PaymentGateway gateway) {
+        return supplyAsync(() -> {
             try {
-                logger.payment("Creating payment link for invoice %s", invoiceId);
+                logger.payment("Creating payment session for invoice %s", invoiceId);
 
                 Invoice invoice = DatabaseManager.getDataMethods().getInvoice(invoiceId);
                 if (invoice == null) {
@@ -182,37 +198,28 @@ public class PaymentManager {
                 metadata.put("invoice_id", invoiceId.toString());
                 metadata.put("discord_user_id", invoice.getDiscordUserId());
 
-                switch (gateway) {
-                    case STRIPE:
-                        StripeGateway stripeGateway = (StripeGateway) gatewayImpl;
-                        return stripeGateway.createPaymentLink(
-                            invoice.getAmount().doubleValue(),
-                            invoice.getCurrency(),
-                            metadata
-                        ).join();
-
-                    case PAYPAL:
-                        String paymentId = gatewayImpl.processPaymentAsync(
-                            invoice.getAmount().doubleValue(),
-                            invoice.getCurrency(),
-                            "paypal",
-                            metadata
-                        ).join();
-
-                        PayPalGateway paypalGateway = (PayPalGateway) gatewayImpl;
-                        return paypalGateway.getApprovalUrl(paymentId);
-
-                    default:
-                        throw new PaymentException("Payment links not supported for: " + gateway.getDisplayName());
-                }
+                PaymentSession session = gatewayImpl.createPaymentSessionAsync(
+                    invoice.getAmount().doubleValue(),
+                    invoice.getCurrency(),
+                    metadata,
+                    sessionIdempotencyKey(invoice, gateway)
+                ).join();
+
+                logger.payment("Payment session %s created for invoice %s", session.getExternalId(), invoiceId);
+                return session;
 
             } catch (Exception e) {
-                logger.error("Failed to create payment link", e);
-                throw new PaymentException("Payment link creation failed: " + e.getMessage(), e);
+                logger.error("Failed to create payment session", e);
+                throw new PaymentException("Payment session creation failed: " + e.getMessage(), e);
             }
         });
     }
 
+    private String sessionIdempotencyKey(Invoice invoice, PaymentGateway gateway) {
+        return "invoice:" + invoice.getInvoiceId() + ":" + gateway.getId() + ":"
+            + invoice.getUpdatedAt().toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
     private Payment processPaymentWithGateway(Payment payment, PaymentGateway gateway) {
         try {
             net.kyver.invoices.gateway.PaymentGateway gatewayImpl = gateways.get(gateway);
@@ -223,27 +230,28 @@ public class PaymentManager {
                 payment.getAmount().doubleValue(),
                 payment.getCurrency(),
                 payment.getPaymentMethod(),
-                metadata
+                metadata,
+                "payment:" + payment.getPaymentId()
             ).join();
 
             payment.setExternalPaymentId(externalPaymentId);
-            payment.setStatus(PaymentStatus.PROCESSING);
+            transition(payment, PaymentStatus.PROCESSING);
 
             logger.success("Payment processed with %s: %s", gateway.getDisplayName(), externalPaymentId);
             return payment;
 
         } catch (Exception e) {
-            payment.setStatus(PaymentStatus.FAILED);
             payment.setFailureReason(e.getMessage());
+            transition(payment, PaymentStatus.FAILED);
             logger.error("Payment processing failed", e);
             throw new PaymentException("Payment processing failed: " + e.getMessage(), e);
         }
     }
 
     public CompletableFuture<String> refundPayment(UUID paymentId, BigDecimal amount) {
-        return CompletableFuture.supplyAsync(() -> {
+        return supplyAsync(() -> {
             try {
-                Payment payment = activePayments.get(paymentId);
+                Payment payment = getPayment(paymentId);
                 if (payment == null) {
                     throw new PaymentException("Payment not found: " + paymentId);
                 }
@@ -261,11 +269,12 @@ public class PaymentManager {
 
                 String refundId = gateway.refundPaymentAsync(
                     payment.getExternalPaymentId(),
-                    amount.doubleValue()
+                    amount.doubleValue(),
+                    "refund:" + paymentId + ":" + amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).toPlainString()
                 ).join();
 
                 payment.setRefundId(refundId);
-                payment.setStatus(PaymentStatus.REFUNDED);
+                transition(payment, PaymentStatus.REFUNDED);
 
                 logger.success("Payment refunded: %s", refundId);
                 return refundId;
@@ -278,9 +287,9 @@ public class PaymentManager {
     }
 
     public CompletableFuture<PaymentStatus> checkPaymentStatus(UUID paymentId) {
-        return CompletableFuture.supplyAsync(() -> {
+        return supplyAsync(() -> {
             try {
-                Payment payment = activePayments.get(paymentId);
+                Payment payment = getPayment(paymentId);
                 if (payment == null) {
                     throw new PaymentException("Payment not found: " + paymentId);
                 }
@@ -291,7 +300,7 @@ public class PaymentManager {
                 }
 
                 PaymentStatus status = gateway.checkPaymentStatusAsync(payment.getExternalPaymentId()).join();
-                payment.setStatus(status);
+                transition(payment, status);
 
                 return status;
 
@@ -302,27 +311,131 @@ public class PaymentManager {
         });
     }
 
+    public CompletableFuture<PaymentStatus> checkInvoiceStatus(Invoice invoice) {
+        PaymentStatus current = invoice.getStatus();
+        if (current != PaymentStatus.PENDING && current != PaymentStatus.PROCESSING) {
+            return CompletableFuture.completedFuture(current);
+        }
+
+        net.kyver.invoices.gateway.PaymentGateway gateway = invoice.getSelectedGateway() != null
+                ? gateways.get(invoice.getSelectedGateway()) : null;
+        if (gateway == null || invoice.getExternalPaymentId() == null) {
+            return CompletableFuture.completedFuture(current);
+        }
+
+        return gateway.checkPaymentStatusAsync(invoice.getExternalPaymentId());
+    }
+
+    public CompletableFuture<PaymentStatus> refreshInvoiceStatus(Invoice invoice) {
+        PaymentStatus current = invoice.getStatus();
+
+        return checkInvoiceStatus(invoice).thenApply(status -> {
+            if (status == current || status == PaymentStatus.PENDING) {
+                return current;
+            }
+
+            invoice.setStatus(status);
+            String detail = "Payment failed at " + invoice.getSelectedGateway().getDisplayName();
+            if (!DatabaseManager.getDataMethods().updateInvoiceWithOutbox(invoice,
+                    OutboxDispatcher.entriesFor(invoice, status, detail))) {
+                invoice.setStatus(current);
+                throw new PaymentException("Failed to save status " + status + " for invoice " + invoice.getInvoiceId());
+            }
+
+            logger.payment("Invoice %s status refreshed from %s to %s", invoice.getInvoiceId(), current, status);
+            OutboxDispatcher.wakeUp();
+            return status;
+        });
+    }
+
     public List<PaymentGateway> getAvailableGateways() {
-        return new ArrayList<>(gateways.keySet());
+        List<PaymentGateway> available = new ArrayList<>();
+        for (PaymentGateway gateway : PaymentGateway.values()) {
+            if (isGatewayAvailable(gateway)) {
+                available.add(gateway);
+            }
+        }
+        return available;
     }
 
     public boolean isGatewayAvailable(PaymentGateway gateway) {
-        return gateways.containsKey(gateway);
+        net.kyver.invoices.gateway.PaymentGateway gatewayImpl = gateways.get(gateway);
+        return gatewayImpl != null && gatewayImpl.isAvailable();
     }
 
     public boolean hasAvailableGateways() {
-        return !gateways.isEmpty();
+        return !getAvailableGateways().isEmpty();
+    }
+
+    public Map<String, Object> getGatewayStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        gateways.forEach((type, gateway) -> {
+            if (gateway instanceof ResilientGateway resilientGateway) {
+                stats.put(type.getId(), resilientGateway.getStats());
+            }
+        });
+        return stats;
     }
 
     public Payment getPayment(UUID paymentId) {
-        return activePayments.get(paymentId);
+        Payment payment = activePayments.get(paymentId);
+        if (payment != null) {
+            return payment;
+        }
+
+        payment = DatabaseManager.getDataMethods().getPayment(paymentId);
+        return payment != null ? activePayments.putIfAbsent(payment) : null;
     }
 
     public List<Payment> getPaymentsByUser(String discordUserId) {
-        return activePayments.values().stream()
-                .filter(payment -> discordUserId.equals(payment.getDiscordUserId()))
-                .sorted((p1, p2) -> p2.getCreatedAt().compareTo(p1.getCreatedAt()))
-                .toList();
+        List<Payment> hotPayments = activePayments.getByUser(discordUserId);
+        List<Payment> payments = DatabaseManager.getDataMethods().getPaymentsByDiscordUser(discordUserId);
+        if (hotPayments.isEmpty()) {
+            return payments;
+        }
+
+        Map<UUID, Payment> merged = new LinkedHashMap<>();
+        hotPayments.forEach(payment -> merged.put(payment.getPaymentId(), payment));
+        payments.forEach(payment -> merged.putIfAbsent(payment.getPaymentId(), payment));
+
+        List<Payment> result = new ArrayList<>(merged.values());
+        result.sort((p1, p2) -> p2.getCreatedAt().compareTo(p1.getCreatedAt()));
+        return result;
+    }
+
+    private Payment getPaymentByExternalId(String externalPaymentId) {
+        Payment payment = activePayments.getByExternalId(externalPaymentId);
+        if (payment != null) {
+            return payment;
+        }
+
+        payment = DatabaseManager.getDataMethods().getPaymentByExternalId(externalPaymentId);
+        return payment != null ? activePayments.putIfAbsent(payment) : null;
+    }
+
+    private void transition(Payment payment, PaymentStatus status) {
+        synchronized (payment) {
+            PaymentStatus previous = payment.getStatus();
+            if (previous == status) {
+                return;
+            }
+            payment.setStatus(status);
+            savePayment(payment);
+            paymentStats.recordTransition(payment, previous, status);
+        }
+    }
+
+    private <T> CompletableFuture<T> supplyAsync(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new PaymentException("Payments are busy, please try again shortly", e));
+        }
+    }
+
+    private void savePayment(Payment payment) {
+        DatabaseManager.getDataMethods().savePayment(payment);
+        activePayments.put(payment);
     }
 
     public net.kyver.invoices.gateway.PaymentGateway getGateway(PaymentGateway gateway) {
@@ -331,13 +444,10 @@ public class PaymentManager {
 
     public void handleWebhookEvent(PaymentGateway gateway, String paymentId, PaymentStatus status) {
         try {
-            Payment payment = activePayments.values().stream()
-                    .filter(p -> paymentId.equals(p.getExternalPaymentId()))
-                    .findFirst()
-                    .orElse(null);
+            Payment payment = getPaymentByExternalId(paymentId);
 
             if (payment != null) {
-                payment.setStatus(status);
+                transition(payment, status);
                 logger.payment("Payment status updated via webhook: %s -> %s", paymentId, status);
 
                 if (status == PaymentStatus.PAID) {
@@ -353,22 +463,16 @@ public class PaymentManager {
 
     public Map<String, Object> getPaymentStats() {
         Map<String, Object> stats = new HashMap<>();
-
-        long totalPayments = activePayments.size();
-        long completedPayments = activePayments.values().stream().mapToLong(p -> p.isCompleted() ? 1 : 0).sum();
-        long pendingPayments = activePayments.values().stream().mapToLong(p -> p.isPending() ? 1 : 0).sum();
-        long failedPayments = activePayments.values().stream().mapToLong(p -> p.isFailed() ? 1 : 0).sum();
-
-        BigDecimal totalAmount = activePayments.values().stream()
-                .filter(Payment::isCompleted)
-                .map(Payment::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        stats.put("total_payments", totalPayments);
-        stats.put("completed_payments", completedPayments);
-        stats.put("pending_payments", pendingPayments);
-        stats.put("failed_payments", failedPayments);
-        stats.put("total_amount", totalAmount);
+        Map<String, BigDecimal> completedAmounts = paymentStats.getCompletedAmounts();
+
+        stats.put("total_payments", paymentStats.getTotal());
+        stats.put("completed_payments", paymentStats.getCount(PaymentStatus.PAID));
+        stats.put("pending_payments", paymentStats.getCount(PaymentStatus.PENDING, PaymentStatus.PROCESSING));
+        stats.put("failed_payments", paymentStats.getCount(PaymentStatus.FAILED));
+        stats.put("refunded_payments", paymentStats.getCount(PaymentStatus.REFUNDED));
+        stats.put("total_amount", completedAmounts.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add));
+        stats.put("completed_amount_by_currency", completedAmounts);
+        stats.put("cached_payments", activePayments.size());
         stats.put("available_gateways", gateways.size());
 
         return stats;
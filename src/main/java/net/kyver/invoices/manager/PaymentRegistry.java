@@ -0,0 +1,124 @@
+package net.kyver.invoices.manager;
+
+import net.kyver.invoices.model.Payment;
+
+import java.util.*;
+
+public class PaymentRegistry {
+
+    private static final Comparator<Payment> NEWEST_FIRST = Comparator
+            .comparing(Payment::getCreatedAt, Comparator.reverseOrder())
+            .thenComparing(Payment::getPaymentId);
+
+    private final int maxSize;
+    private final LinkedHashMap<UUID, Payment> payments;
+    private final Map<UUID, String> indexedExternalIds = new HashMap<>();
+    private final Map<String, Payment> byExternalId = new HashMap<>();
+    private final Map<String, NavigableSet<Payment>> byUser = new HashMap<>();
+
+    public PaymentRegistry(int maxSize) {
+        this.maxSize = Math.max(1, maxSize);
+        this.payments = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    public synchronized Payment get(UUID paymentId) {
+        return payments.get(paymentId);
+    }
+
+    public synchronized Payment getByExternalId(String externalPaymentId) {
+        Payment payment = byExternalId.get(externalPaymentId);
+        if (payment != null) {
+            payments.get(payment.getPaymentId());
+        }
+        return payment;
+    }
+
+    public synchronized List<Payment> getByUser(String discordUserId) {
+        NavigableSet<Payment> userPayments = byUser.get(discordUserId);
+        return userPayments != null ? new ArrayList<>(userPayments) : new ArrayList<>();
+    }
+
+    public synchronized void put(Payment payment) {
+        Payment previous = payments.put(payment.getPaymentId(), payment);
+        if (previous != null && previous != payment) {
+            removeFromIndexes(previous);
+        }
+
+        indexExternalId(payment);
+        addToUserIndex(payment);
+        evictIfFull();
+    }
+
+    public synchronized Payment putIfAbsent(Payment payment) {
+        Payment existing = payments.get(payment.getPaymentId());
+        if (existing != null) {
+            return existing;
+        }
+
+        put(payment);
+        return payment;
+    }
+
+    public synchronized List<Payment> snapshot() {
+        return new ArrayList<>(payments.values());
+    }
+
+    public synchronized int size() {
+        return payments.size();
+    }
+
+    private void evictIfFull() {
+        Iterator<Payment> iterator = payments.values().iterator();
+        while (payments.size() > maxSize && iterator.hasNext()) {
+            Payment eldest = iterator.next();
+            iterator.remove();
+            removeFromIndexes(eldest);
+        }
+    }
+
+    private void indexExternalId(Payment payment) {
+        String externalId = payment.getExternalPaymentId();
+        String indexedId = indexedExternalIds.get(payment.getPaymentId());
+
+        if (indexedId != null && !indexedId.equals(externalId)) {
+            byExternalId.remove(indexedId, payment);
+            indexedExternalIds.remove(payment.getPaymentId());
+        }
+
+        if (externalId != null) {
+            Payment displaced = byExternalId.put(externalId, payment);
+            if (displaced != null && displaced != payment) {
+                indexedExternalIds.remove(displaced.getPaymentId());
+            }
+            indexedExternalIds.put(payment.getPaymentId(), externalId);
+        }
+    }
+
+    private void addToUserIndex(Payment payment) {
+        if (payment.getDiscordUserId() != null) {
+            byUser.computeIfAbsent(payment.getDiscordUserId(), key -> new TreeSet<>(NEWEST_FIRST)).add(payment);
+        }
+    }
+
+    private void removeFromUserIndex(Payment payment) {
+        if (payment.getDiscordUserId() == null) {
+            return;
+        }
+
+        NavigableSet<Payment> userPayments = byUser.get(payment.getDiscordUserId());
+        if (userPayments != null) {
+            userPayments.remove(payment);
+            if (userPayments.isEmpty()) {
+                byUser.remove(payment.getDiscordUserId());
+            }
+        }
+    }
+
+    private void removeFromIndexes(Payment payment) {
+        String externalId = indexedExternalIds.remove(payment.getPaymentId());
+        if (externalId != null) {
+            byExternalId.remove(externalId, payment);
+        }
+        removeFromUserIndex(payment);
+    }
+}
@@ -0,0 +1,108 @@
+package net.kyver.invoices.manager;
+
+import net.kyver.invoices.data.PaymentTotal;
+import net.kyver.invoices.enums.PaymentStatus;
+import net.kyver.invoices.model.Payment;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+public class PaymentStats {
+
+    private static final int DEFAULT_FRACTION_DIGITS = 2;
+    private final LongAdder total = new LongAdder();
+    private final Map<PaymentStatus, LongAdder> byStatus = new EnumMap<>(PaymentStatus.class);
+    private final ConcurrentHashMap<String, CurrencyTotal> completedAmounts = new ConcurrentHashMap<>();
+
+    public PaymentStats() {
+        for (PaymentStatus status : PaymentStatus.values()) {
+            byStatus.put(status, new LongAdder());
+        }
+    }
+
+    public void seed(List<PaymentTotal> totals) {
+        for (PaymentTotal paymentTotal : totals) {
+            total.add(paymentTotal.getCount());
+            byStatus.get(paymentTotal.getStatus()).add(paymentTotal.getCount());
+            if (paymentTotal.getStatus() == PaymentStatus.PAID) {
+                addCompletedAmount(paymentTotal.getCurrency(), paymentTotal.getAmount(), 1);
+            }
+        }
+    }
+
+    public void recordCreated(Payment payment) {
+        total.increment();
+        byStatus.get(payment.getStatus()).increment();
+        if (payment.getStatus() == PaymentStatus.PAID) {
+            addCompletedAmount(payment.getCurrency(), payment.getAmount(), 1);
+        }
+    }
+
+    public void recordTransition(Payment payment, PaymentStatus from, PaymentStatus to) {
+        if (from == to) {
+            return;
+        }
+
+        byStatus.get(from).decrement();
+        byStatus.get(to).increment();
+
+        if (to == PaymentStatus.PAID) {
+            addCompletedAmount(payment.getCurrency(), payment.getAmount(), 1);
+        } else if (from == PaymentStatus.PAID) {
+            addCompletedAmount(payment.getCurrency(), payment.getAmount(), -1);
+        }
+    }
+
+    public long getTotal() {
+        return total.sum();
+    }
+
+    public long getCount(PaymentStatus... statuses) {
+        long count = 0;
+        for (PaymentStatus status : statuses) {
+            count += byStatus.get(status).sum();
+        }
+        return count;
+    }
+
+    public Map<String, BigDecimal> getCompletedAmounts() {
+        Map<String, BigDecimal> amounts = new TreeMap<>();
+        completedAmounts.forEach((currency, currencyTotal) -> amounts.put(currency, currencyTotal.toAmount()));
+        return amounts;
+    }
+
+    private void addCompletedAmount(String currency, BigDecimal amount, int sign) {
+        if (currency == null || amount == null) {
+            return;
+        }
+
+        CurrencyTotal currencyTotal = completedAmounts.computeIfAbsent(currency.toUpperCase(), CurrencyTotal::new);
+        long minorUnits = amount.setScale(currencyTotal.fractionDigits, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        currencyTotal.minorUnits.add(sign * minorUnits);
+    }
+
+    private static class CurrencyTotal {
+        private final int fractionDigits;
+        private final LongAdder minorUnits = new LongAdder();
+
+        private CurrencyTotal(String currency) {
+            this.fractionDigits = fractionDigitsOf(currency);
+        }
+
+        private BigDecimal toAmount() {
+            return BigDecimal.valueOf(minorUnits.sum(), fractionDigits);
+        }
+
+        private static int fractionDigitsOf(String currency) {
+            try {
+                int digits = Currency.getInstance(currency).getDefaultFractionDigits();
+                return digits >= 0 ? digits : DEFAULT_FRACTION_DIGITS;
+            } catch (IllegalArgumentException e) {
+                return DEFAULT_FRACTION_DIGITS;
+            }
+        }
+    }
+}
@@ -4,7 +4,17 @@ import com.sun.net.httpserver.HttpServer;
 import com.sun.net.httpserver.HttpsServer;
 import com.sun.net.httpserver.HttpsConfigurator;
 import com.sun.net.httpserver.HttpsParameters;
+import net.kyver.invoices.api.HttpExchangeAdapter;
+import net.kyver.invoices.api.MetricsHandler;
+import net.kyver.invoices.api.NioHttpServer;
+import net.kyver.invoices.api.WebResponse;
+import net.kyver.invoices.api.WebRoute;
+import net.kyver.invoices.api.ShardedExecutor;
+import net.kyver.invoices.api.WebhookDeduplicator;
 import net.kyver.invoices.api.WebhookHandler;
+import net.kyver.invoices.api.WebhookIngestQueue;
+import net.kyver.invoices.api.WebServerExecutor;
+import net.kyver.invoices.gateway.RetryPolicy;
 import net.kyver.invoices.gateway.impl.PayPalGateway;
 import net.kyver.invoices.gateway.impl.StripeGateway;
 
@@ -15,6 +25,9 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.security.KeyStore;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 public class WebApiManager {
@@ -22,9 +35,15 @@ public class WebApiManager {
     private static final LoggingManager logger = LoggingManager.getLogger(WebApiManager.class);
     private final ConfigManager configManager;
     private HttpServer server;
+    private NioHttpServer nioServer;
     private boolean isHttps;
     private PayPalGateway paypalGateway;
     private StripeGateway stripeGateway;
+    private WebhookIngestQueue webhookIngestQueue;
+    private ShardedExecutor webhookWorkers;
+    private WebhookDeduplicator webhookDeduplicator;
+    private WebServerExecutor executor;
+    private ExecutorService httpIoExecutor;
 
     public WebApiManager(ConfigManager configManager) {
         this.configManager = configManager;
@@ -36,15 +55,36 @@ public class WebApiManager {
             int port = configManager.getWebApiPort();
             logger.startup("Starting web API server on port %d...", port);
 
-            if (isHttps) {
-                startHttpsServer(port);
-            } else {
-                startHttpServer(port);
+            boolean useNio = "nio".equalsIgnoreCase(configManager.getWebApiServer());
+            if (useNio && isHttps) {
+                logger.warn("The NIO web server does not support HTTPS, using the JDK HTTP server instead");
+                useNio = false;
             }
 
-            setupRoutes();
-            server.setExecutor(Executors.newCachedThreadPool());
-            server.start();
+            Map<String, WebRoute> routes = setupRoutes();
+            executor = new WebServerExecutor(
+                WebServerExecutor.Mode.fromConfig(configManager.getWebApiExecutorMode()),
+                configManager.getWebApiMaxThreads(),
+                configManager.getWebApiQueueSize()
+            );
+
+            if (useNio) {
+                startNioServer(port, routes);
+            } else {
+                if (isHttps) {
+                    startHttpsServer(port);
+                } else {
+                    startHttpServer(port);
+                }
+
+                int maxBodyBytes = configManager.getWebApiMaxBodyBytes();
+                int retryAfterSeconds = configManager.getWebApiRetryAfterSeconds();
+                routes.forEach((path, route) -> server.createContext(path,
+                        new HttpExchangeAdapter(route, maxBodyBytes, executor, retryAfterSeconds)));
+                httpIoExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("web-api-io-", 0).factory());
+                server.setExecutor(httpIoExecutor);
+                server.start();
+            }
 
             logger.success("Web API server started successfully!");
             logger.info("Server URL: %s", configManager.getWebApiUrl());
@@ -56,6 +96,19 @@ public class WebApiManager {
         }
     }
 
+    private void startNioServer(int port, Map<String, WebRoute> routes) throws IOException {
+        nioServer = new NioHttpServer(
+            port,
+            configManager.getWebApiMaxHeaderBytes(),
+            configManager.getWebApiMaxBodyBytes(),
+            configManager.getWebApiIdleTimeoutSeconds()
+        );
+        routes.forEach(nioServer::createContext);
+        nioServer.setExecutor(executor);
+        nioServer.setRetryAfterSeconds(configManager.getWebApiRetryAfterSeconds());
+        nioServer.start();
+    }
+
     private void startHttpServer(int port) throws IOException {
         server = HttpServer.create(new InetSocketAddress(port), 0);
         logger.info("HTTP server created on port %d", port);
@@ -106,34 +159,61 @@ public class WebApiManager {
         return sslContext;
     }
 
-    private void setupRoutes() {
+    private Map<String, WebRoute> setupRoutes() {
+        Map<String, WebRoute> routes = new LinkedHashMap<>();
         initializePaymentGateways();
 
         WebhookHandler webhookHandler = new WebhookHandler(configManager, paypalGateway, stripeGateway);
+        if (configManager.isWebhookDedupeEnabled()) {
+            webhookDeduplicator = new WebhookDeduplicator(
+                configManager.getWebhookDedupeMemorySize(),
+                configManager.getWebhookDedupeTtlHours()
+            );
+            webhookHandler.setDeduplicator(webhookDeduplicator);
+        }
 
-        server.createContext("/api/webhook/paypal", webhookHandler::handlePayPalWebhook);
-        server.createContext("/api/webhook/stripe", webhookHandler::handleStripeWebhook);
+        if (configManager.isWebhookAsyncEnabled()) {
+            webhookIngestQueue = new WebhookIngestQueue(
+                configManager.getWebhookQueueCapacity(),
+                configManager.getWebhookWorkerCount(),
+                configManager.getWebhookInboxMaxAttempts(),
+                webhookHandler::processEvent
+            );
+            webhookHandler.setIngestQueue(webhookIngestQueue);
+            webhookIngestQueue.start();
+        } else {
+            webhookWorkers = new ShardedExecutor("webhook-sync", configManager.getWebhookWorkerCount(),
+                    configManager.getWebhookShardQueueSize());
+            webhookHandler.setWorkers(webhookWorkers);
+        }
 
-        server.createContext("/api/health", exchange -> {
-            String response = "{\"status\":\"ok\",\"timestamp\":" + System.currentTimeMillis() + "}";
-            exchange.getResponseHeaders().set("Content-Type", "application/json");
-            exchange.sendResponseHeaders(200, response.length());
-            exchange.getResponseBody().write(response.getBytes());
-            exchange.getResponseBody().close();
-        });
+        routes.put("/api/webhook/paypal", webhookHandler::handlePayPalWebhook);
+        routes.put("/api/webhook/stripe", webhookHandler::handleStripeWebhook);
 
-        server.createContext("/", exchange -> {
-            String response = "{\"service\":\"KyverInvoices API\",\"version\":\"1.0\"}";
-            exchange.getResponseHeaders().set("Content-Type", "application/json");
-            exchange.sendResponseHeaders(200, response.length());
-            exchange.getResponseBody().write(response.getBytes());
-            exchange.getResponseBody().close();
-        });
+        boolean metricsEnabled = configManager.isMetricsEndpointEnabled();
+        if (metricsEnabled && !MetricsHandler.isUsableToken(configManager.getMetricsToken())) {
+            logger.warn("Metrics endpoint disabled: set web_api.metrics.token or a real web_api.auth.jwt_secret");
+            metricsEnabled = false;
+        }
+        if (metricsEnabled) {
+            MetricsHandler metricsHandler = new MetricsHandler(this, configManager.getMetricsToken());
+            routes.put("/api/metrics", metricsHandler::handleMetrics);
+        }
+
+        routes.put("/api/health", request ->
+            WebResponse.json(200, "{\"status\":\"ok\",\"timestamp\":" + System.currentTimeMillis() + "}"));
+
+        routes.put("/", request ->
+            WebResponse.json(200, "{\"service\":\"KyverInvoices API\",\"version\":\"1.0\"}"));
 
         logger.info("API routes configured:");
         logger.info("  GET  /api/health - Health check");
+        if (metricsEnabled) {
+            logger.info("  GET  /api/metrics - Runtime metrics (bearer token)");
+        }
         logger.info("  POST /api/webhook/paypal - PayPal webhooks");
         logger.info("  POST /api/webhook/stripe - Stripe webhooks");
+        return routes;
     }
 
     private void initializePaymentGateways() {
@@ -142,7 +222,9 @@ public class WebApiManager {
                 paypalGateway = new PayPalGateway(
                     configManager.getPayPalClientId(),
                     configManager.getPayPalClientSecret(),
-                    configManager.getPayPalMode()
+                    configManager.getPayPalMode(),
+                    ExecutorManager.getInstance().getExecutor(ExecutorManager.PAYPAL),
+                    RetryPolicy.fromConfig("PayPal")
                 );
                 logger.success("PayPal gateway initialized");
             } catch (Exception e) {
@@ -152,7 +234,8 @@ public class WebApiManager {
 
         if (configManager.isStripeEnabled()) {
             try {
-                stripeGateway = new StripeGateway(configManager.getStripeSecretKey());
+                stripeGateway = new StripeGateway(configManager.getStripeSecretKey(),
+                    ExecutorManager.getInstance().getExecutor(ExecutorManager.STRIPE), RetryPolicy.fromConfig("Stripe"));
                 logger.success("Stripe gateway initialized");
             } catch (Exception e) {
                 logger.error("Failed to initialize Stripe gateway", e);
@@ -161,15 +244,51 @@ public class WebApiManager {
     }
 
     public void stopServer() {
-        if (server != null) {
+        if (server != null || nioServer != null) {
             logger.info("Stopping web API server...");
-            server.stop(0);
+            if (server != null) {
+                server.stop(0);
+            }
+            if (nioServer != null) {
+                nioServer.stop();
+            }
+            if (httpIoExecutor != null) {
+                httpIoExecutor.shutdown();
+            }
+            if (executor != null) {
+                executor.shutdown();
+            }
+            if (webhookIngestQueue != null) {
+                webhookIngestQueue.shutdown();
+            }
+            if (webhookWorkers != null) {
+                webhookWorkers.shutdown();
+            }
+            if (webhookDeduplicator != null) {
+                webhookDeduplicator.shutdown();
+            }
             logger.success("Web API server stopped");
         }
     }
 
     public boolean isRunning() {
-        return server != null;
+        return server != null || nioServer != null;
+    }
+
+    public WebServerExecutor getExecutor() {
+        return executor;
+    }
+
+    public NioHttpServer getNioServer() {
+        return nioServer;
+    }
+
+    public WebhookIngestQueue getWebhookIngestQueue() {
+        return webhookIngestQueue;
+    }
+
+    public WebhookDeduplicator getWebhookDeduplicator() {
+        return webhookDeduplicator;
     }
 
     public PayPalGateway getPaypalGateway() {
@@ -8,6 +8,8 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 public class Invoice {
+    public static final int SHORT_ID_LENGTH = 8;
+
     private UUID invoiceId;
     private String discordUserId;
     private String channelId;
@@ -48,9 +50,35 @@ public class Invoice {
         this.currency = currency;
     }
 
+    public Invoice copy() {
+        Invoice copy = new Invoice();
+        copy.invoiceId = invoiceId;
+        copy.discordUserId = discordUserId;
+        copy.channelId = channelId;
+        copy.customerEmail = customerEmail;
+        copy.customerName = customerName;
+        copy.description = description;
+        copy.amount = amount;
+        copy.currency = currency;
+        copy.status = status;
+        copy.selectedGateway = selectedGateway;
+        copy.createdAt = createdAt;
+        copy.updatedAt = updatedAt;
+        copy.dueDate = dueDate;
+        copy.externalPaymentId = externalPaymentId;
+        copy.paymentUrl = paymentUrl;
+        copy.qrCodeData = qrCodeData;
+        copy.channelMessageId = channelMessageId;
+        copy.dmSelectionMessageId = dmSelectionMessageId;
+        copy.dmPaymentMessageId = dmPaymentMessageId;
+        return copy;
+    }
+
     public UUID getInvoiceId() { return invoiceId; }
     public void setInvoiceId(UUID invoiceId) { this.invoiceId = invoiceId; }
 
+    public String getShortId() { return invoiceId.toString().substring(0, SHORT_ID_LENGTH); }
+
     public String getDiscordUserId() { return discordUserId; }
     public void setDiscordUserId(String discordUserId) { this.discordUserId = discordUserId; }
 
@@ -0,0 +1,26 @@
+package net.kyver.invoices.model;
+
+import java.time.LocalDateTime;
+
+public class PaymentSession {
+
+    private final String externalId;
+    private final String approvalUrl;
+    private final LocalDateTime expiresAt;
+
+    public PaymentSession(String externalId, String approvalUrl, LocalDateTime expiresAt) {
+        this.externalId = externalId;
+        this.approvalUrl = approvalUrl;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getExternalId() { return externalId; }
+
+    public String getApprovalUrl() { return approvalUrl; }
+
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+
+    public boolean isExpired() {
+        return expiresAt != null && LocalDateTime.now().isAfter(expiresAt);
+    }
+}
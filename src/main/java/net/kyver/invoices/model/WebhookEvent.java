@@ -0,0 +1,44 @@
+package net.kyver.invoices.model;
+
+import net.kyver.invoices.enums.PaymentGateway;
+import net.kyver.invoices.enums.WebhookEventType;
+
+public class WebhookEvent {
+
+    private final PaymentGateway gateway;
+    private final String eventId;
+    private final String gatewayType;
+    private final WebhookEventType type;
+    private final String paymentId;
+    private final String invoiceReference;
+    private final long createdAt;
+
+    public WebhookEvent(PaymentGateway gateway, String eventId, String gatewayType, String paymentId,
+                        String invoiceReference, long createdAt) {
+        this.gateway = gateway;
+        this.eventId = eventId;
+        this.gatewayType = gatewayType;
+        this.type = WebhookEventType.fromGatewayType(gateway, gatewayType);
+        this.paymentId = paymentId;
+        this.invoiceReference = invoiceReference;
+        this.createdAt = createdAt;
+    }
+
+    public PaymentGateway getGateway() { return gateway; }
+
+    public String getEventId() { return eventId; }
+
+    public String getGatewayType() { return gatewayType; }
+
+    public WebhookEventType getType() { return type; }
+
+    public String getPaymentId() { return paymentId; }
+
+    public String getInvoiceReference() { return invoiceReference; }
+
+    public long getCreatedAt() { return createdAt; }
+
+    public boolean isKnown() {
+        return type != WebhookEventType.UNKNOWN;
+    }
+}
@@ -7,16 +7,19 @@ import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
 import net.dv8tion.jda.api.exceptions.HierarchyException;
 import net.dv8tion.jda.api.exceptions.InsufficientPermissionException;
 import net.kyver.invoices.manager.ConfigManager;
+import net.kyver.invoices.manager.ExecutorManager;
 import net.kyver.invoices.manager.LoggingManager;
 import net.kyver.invoices.model.Invoice;
 
 import java.util.EnumSet;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 public class ChannelService {
 
     private static final LoggingManager logger = LoggingManager.getLogger(ChannelService.class);
     private static final ConfigManager config = ConfigManager.getInstance();
+    private static final Executor executor = ExecutorManager.getInstance().getExecutor(ExecutorManager.DISCORD);
 
     public static CompletableFuture<TextChannel> createInvoiceChannel(Guild guild, Invoice invoice, User user) {
         return CompletableFuture.supplyAsync(() -> {
@@ -48,7 +51,7 @@ public class ChannelService {
                 logger.error("Failed to create invoice channel", e);
                 throw new RuntimeException("Failed to create invoice channel", e);
             }
-        });
+        }, executor);
     }
 
     private static String generateChannelName(Invoice invoice, User user) {
@@ -129,7 +132,7 @@ public class ChannelService {
             } catch (Exception e) {
                 logger.error("Failed to delete invoice channel: " + channel.getName(), e);
             }
-        });
+        }, executor);
     }
 }
 
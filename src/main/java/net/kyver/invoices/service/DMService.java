@@ -5,20 +5,25 @@ import net.dv8tion.jda.api.entities.emoji.Emoji;
 import net.dv8tion.jda.api.interactions.components.ActionRow;
 import net.dv8tion.jda.api.interactions.components.buttons.Button;
 import net.dv8tion.jda.api.interactions.components.selections.StringSelectMenu;
+import net.dv8tion.jda.api.requests.RestAction;
 import net.kyver.invoices.data.DatabaseManager;
+import net.kyver.invoices.enums.PaymentGateway;
 import net.kyver.invoices.manager.ConfigManager;
 import net.kyver.invoices.manager.EmbedManager;
+import net.kyver.invoices.manager.ExecutorManager;
 import net.kyver.invoices.manager.LoggingManager;
+import net.kyver.invoices.manager.PaymentManager;
 import net.kyver.invoices.model.Invoice;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 public class DMService {
 
     private static final LoggingManager logger = LoggingManager.getLogger(DMService.class);
     private static final ConfigManager config = ConfigManager.getInstance();
+    private static final Executor executor = ExecutorManager.getInstance().getExecutor(ExecutorManager.DISCORD);
 
     public static CompletableFuture<Void> sendPaymentSelectionDM(User user, Invoice invoice) {
         return CompletableFuture.runAsync(() -> {
@@ -48,94 +53,93 @@ public class DMService {
             } catch (Exception e) {
                 logger.error("Failed to send payment selection DM", e);
             }
-        });
+        }, executor);
     }
 
     public static CompletableFuture<Void> sendPaymentReadyDM(User user, Invoice invoice, byte[] qrCodeData) {
-        return CompletableFuture.runAsync(() -> {
-            try {
-                user.openPrivateChannel().queue(privateChannel -> {
-                    String gateway = invoice.getSelectedGateway() != null ? invoice.getSelectedGateway().toString() : "Unknown";
-
-                    var embed = EmbedManager.custom()
-                            .setTitle("🚀 Payment Ready - " + gateway)
-                            .setDescription("Your payment is ready! You can pay using the QR code above or the link below.")
-                            .addField("Amount", invoice.getFormattedAmount(), true)
-                            .addField("Payment Method", gateway, true)
-                            .addField("Invoice ID", "#" + invoice.getInvoiceId().toString().substring(0, 8), true)
-                            .setImage("attachment://qr-code.png")
-                            .setFooter("Scan the QR code or click 'Pay Now' to complete your payment", null)
-                            .build();
-
-                    var buttons = createPaymentReadyButtons(invoice);
-
-                    privateChannel.sendFiles(net.dv8tion.jda.api.utils.FileUpload.fromData(qrCodeData, "qr-code.png"))
-                            .setEmbeds(embed)
-                            .addComponents(buttons)
-                            .queue(
-                                message -> {
-                                    invoice.setDmPaymentMessageId(message.getId());
-                                    DatabaseManager.getDataMethods().updateInvoice(invoice);
-                                    logger.info("Sent payment ready DM to user: " + user.getEffectiveName());
-                                },
-                                error -> logger.error("Failed to send payment ready DM to user: " + user.getEffectiveName(), error)
-                            );
-                });
-            } catch (Exception e) {
-                logger.error("Failed to send payment ready DM", e);
-            }
-        });
+        try {
+            String gateway = invoice.getSelectedGateway() != null ? invoice.getSelectedGateway().toString() : "Unknown";
+
+            var embed = EmbedManager.custom()
+                    .setTitle("🚀 Payment Ready - " + gateway)
+                    .setDescription("Your payment is ready! You can pay using the QR code above or the link below.")
+                    .addField("Amount", invoice.getFormattedAmount(), true)
+                    .addField("Payment Method", gateway, true)
+                    .addField("Invoice ID", "#" + invoice.getInvoiceId().toString().substring(0, 8), true)
+                    .setImage("attachment://qr-code.png")
+                    .setFooter("Scan the QR code or click 'Pay Now' to complete your payment", null)
+                    .build();
+
+            var buttons = createPaymentReadyButtons(invoice);
+
+            return submit(user.openPrivateChannel()
+                            .flatMap(privateChannel -> privateChannel
+                                    .sendFiles(net.dv8tion.jda.api.utils.FileUpload.fromData(qrCodeData, "qr-code.png"))
+                                    .setEmbeds(embed)
+                                    .addComponents(buttons))
+                            .onSuccess(message -> {
+                                invoice.setDmPaymentMessageId(message.getId());
+                                DatabaseManager.getDataMethods().updateInvoice(invoice);
+                            }),
+                    "Sent payment ready DM to user: " + user.getEffectiveName(),
+                    "Failed to send payment ready DM to user: " + user.getEffectiveName());
+        } catch (Exception e) {
+            logger.error("Failed to send payment ready DM", e);
+            return CompletableFuture.failedFuture(e);
+        }
     }
 
     public static CompletableFuture<Void> sendPaymentCompletedDM(User user, Invoice invoice) {
-        return CompletableFuture.runAsync(() -> {
-            try {
-                user.openPrivateChannel().queue(privateChannel -> {
-                    var embed = EmbedManager.custom()
-                            .setColor(EmbedManager.getSuccessColor())
-                            .setTitle("✅ Payment Completed!")
-                            .setDescription("Thank you! Your payment has been successfully processed.")
-                            .addField("Amount Paid", invoice.getFormattedAmount(), true)
-                            .addField("Payment Method", invoice.getSelectedGateway().toString(), true)
-                            .addField("Invoice ID", "#" + invoice.getInvoiceId().toString().substring(0, 8), true)
-                            .setFooter("You will receive a receipt shortly", null)
-                            .build();
-
-                    privateChannel.sendMessageEmbeds(embed)
-                            .queue(
-                                message -> logger.info("Sent payment completed DM to user: " + user.getEffectiveName()),
-                                error -> logger.error("Failed to send payment completed DM to user: " + user.getEffectiveName(), error)
-                            );
-                });
-            } catch (Exception e) {
-                logger.error("Failed to send payment completed DM", e);
-            }
-        });
+        try {
+            var embed = EmbedManager.custom()
+                    .setColor(EmbedManager.getSuccessColor())
+                    .setTitle("✅ Payment Completed!")
+                    .setDescription("Thank you! Your payment has been successfully processed.")
+                    .addField("Amount Paid", invoice.getFormattedAmount(), true)
+                    .addField("Payment Method", invoice.getSelectedGateway().toString(), true)
+                    .addField("Invoice ID", "#" + invoice.getInvoiceId().toString().substring(0, 8), true)
+                    .setFooter("You will receive a receipt shortly", null)
+                    .build();
+
+            return submit(user.openPrivateChannel().flatMap(privateChannel -> privateChannel.sendMessageEmbeds(embed)),
+                    "Sent payment completed DM to user: " + user.getEffectiveName(),
+                    "Failed to send payment completed DM to user: " + user.getEffectiveName());
+        } catch (Exception e) {
+            logger.error("Failed to send payment completed DM", e);
+            return CompletableFuture.failedFuture(e);
+        }
     }
 
     public static CompletableFuture<Void> sendPaymentCancelledDM(User user, Invoice invoice) {
-        return CompletableFuture.runAsync(() -> {
-            try {
-                user.openPrivateChannel().queue(privateChannel -> {
-                    var embed = EmbedManager.custom()
-                            .setColor(EmbedManager.getErrorColor())
-                            .setTitle("❌ Payment Cancelled")
-                            .setDescription("Your payment has been cancelled.")
-                            .addField("Invoice ID", "#" + invoice.getInvoiceId().toString().substring(0, 8), true)
-                            .addField("Amount", invoice.getFormattedAmount(), true)
-                            .setFooter("Contact support if you need assistance", null)
-                            .build();
+        try {
+            var embed = EmbedManager.custom()
+                    .setColor(EmbedManager.getErrorColor())
+                    .setTitle("❌ Payment Cancelled")
+                    .setDescription("Your payment has been cancelled.")
+                    .addField("Invoice ID", "#" + invoice.getInvoiceId().toString().substring(0, 8), true)
+                    .addField("Amount", invoice.getFormattedAmount(), true)
+                    .setFooter("Contact support if you need assistance", null)
+                    .build();
+
+            return submit(user.openPrivateChannel().flatMap(privateChannel -> privateChannel.sendMessageEmbeds(embed)),
+                    "Sent payment cancelled DM to user: " + user.getEffectiveName(),
+                    "Failed to send payment cancelled DM to user: " + user.getEffectiveName());
+        } catch (Exception e) {
+            logger.error("Failed to send payment cancelled DM", e);
+            return CompletableFuture.failedFuture(e);
+        }
+    }
 
-                    privateChannel.sendMessageEmbeds(embed)
-                            .queue(
-                                message -> logger.info("Sent payment cancelled DM to user: " + user.getEffectiveName()),
-                                error -> logger.error("Failed to send payment cancelled DM to user: " + user.getEffectiveName(), error)
-                            );
-                });
-            } catch (Exception e) {
-                logger.error("Failed to send payment cancelled DM", e);
-            }
-        });
+    private static CompletableFuture<Void> submit(RestAction<?> action, String sentMessage, String failedMessage) {
+        return action.submit()
+                .whenComplete((result, error) -> {
+                    if (error == null) {
+                        logger.info(sentMessage);
+                    } else {
+                        logger.error(failedMessage, error);
+                    }
+                })
+                .thenAccept(result -> { });
     }
 
     private static ActionRow createPaymentReadyButtons(Invoice invoice) {
@@ -162,12 +166,11 @@ public class DMService {
                 .setPlaceholder("Select a payment method...")
                 .setRequiredRange(1, 1);
 
-        List<String> availableMethods = getEnabledPaymentMethods();
+        List<PaymentGateway> availableMethods = PaymentManager.getInstance().getAvailableGateways();
 
-        for (String method : availableMethods) {
-            String emoji = getPaymentMethodEmoji(method);
-            menuBuilder.addOption(method, method.toLowerCase(), "Pay with " + method,
-                    Emoji.fromUnicode(emoji));
+        for (PaymentGateway method : availableMethods) {
+            menuBuilder.addOption(method.getDisplayName(), method.getId(), "Pay with " + method.getDisplayName(),
+                    Emoji.fromUnicode(method.getEmoji()));
         }
 
         if (availableMethods.isEmpty()) {
@@ -177,26 +180,4 @@ public class DMService {
 
         return menuBuilder.build();
     }
-
-    private static List<String> getEnabledPaymentMethods() {
-        List<String> methods = new ArrayList<>();
-
-        if (config.isPayPalEnabled()) {
-            methods.add("PayPal");
-        }
-
-        if (config.isStripeEnabled()) {
-            methods.add("Stripe");
-        }
-
-        return methods;
-    }
-
-    private static String getPaymentMethodEmoji(String method) {
-        return switch (method.toLowerCase()) {
-            case "paypal" -> "🅿️";
-            case "stripe" -> "💳";
-            default -> "💰";
-        };
-    }
 }
@@ -4,153 +4,196 @@ import net.dv8tion.jda.api.entities.User;
 import net.dv8tion.jda.api.entities.MessageEmbed;
 import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
 import net.dv8tion.jda.api.interactions.components.ActionRow;
+import net.dv8tion.jda.api.requests.RestAction;
 import net.kyver.invoices.manager.ConfigManager;
 import net.kyver.invoices.manager.EmbedManager;
+import net.kyver.invoices.manager.ExecutorManager;
 import net.kyver.invoices.manager.LoggingManager;
 import net.kyver.invoices.model.Invoice;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 public class NotificationService {
 
     private static final LoggingManager logger = LoggingManager.getLogger(NotificationService.class);
     private static final ConfigManager config = ConfigManager.getInstance();
+    private static final Executor executor = ExecutorManager.getInstance().getExecutor(ExecutorManager.DISCORD);
 
     public static CompletableFuture<Void> sendPaymentReadyNotification(TextChannel channel, Invoice invoice) {
-        return CompletableFuture.runAsync(() -> {
-            try {
-                var embed = EmbedManager.custom(channel.getGuild())
-                        .setColor(EmbedManager.INFO_COLOR)
-                        .setTitle("💳 Payment Link Generated")
-                        .setDescription("Payment link has been sent to the user via DM.")
-                        .addField("Payment Method", invoice.getSelectedGateway().toString(), true)
-                        .addField("Amount", invoice.getFormattedAmount(), true)
-                        .build();
+        try {
+            var embed = EmbedManager.custom(channel.getGuild())
+                    .setColor(EmbedManager.INFO_COLOR)
+                    .setTitle("💳 Payment Link Generated")
+                    .setDescription("Payment link has been sent to the user via DM.")
+                    .addField("Payment Method", invoice.getSelectedGateway().toString(), true)
+                    .addField("Amount", invoice.getFormattedAmount(), true)
+                    .build();
 
-                channel.sendMessageEmbeds(embed)
-                        .queue(
-                            message -> logger.info("Sent payment ready notification to channel: " + channel.getName()),
-                            error -> logger.error("Failed to send payment ready notification", error)
-                        );
-            } catch (Exception e) {
-                logger.error("Failed to send payment ready notification", e);
-            }
-        });
+            return submit(channel.sendMessageEmbeds(embed),
+                    "Sent payment ready notification to channel: " + channel.getName(),
+                    "Failed to send payment ready notification");
+        } catch (Exception e) {
+            logger.error("Failed to send payment ready notification", e);
+            return CompletableFuture.failedFuture(e);
+        }
     }
 
     public static CompletableFuture<Void> sendPaymentCompletedNotification(TextChannel channel, Invoice invoice) {
-        return CompletableFuture.runAsync(() -> {
-            try {
-                var embed = EmbedManager.custom(channel.getGuild())
-                        .setColor(EmbedManager.getSuccessColor())
-                        .setTitle("✅ Payment Received!")
-                        .setDescription("The invoice has been paid successfully.")
-                        .addField("Amount Received", invoice.getFormattedAmount(), true)
-                        .addField("Payment Method", invoice.getSelectedGateway().toString(), true)
-                        .setFooter("This invoice is now complete", null)
-                        .build();
+        try {
+            var embed = EmbedManager.custom(channel.getGuild())
+                    .setColor(EmbedManager.getSuccessColor())
+                    .setTitle("✅ Payment Received!")
+                    .setDescription("The invoice has been paid successfully.")
+                    .addField("Amount Received", invoice.getFormattedAmount(), true)
+                    .addField("Payment Method", invoice.getSelectedGateway().toString(), true)
+                    .setFooter("This invoice is now complete", null)
+                    .build();
 
-                String adminRoleId = config.getAdminRoleId();
-                String mention = adminRoleId != null ? "<@&" + adminRoleId + ">" : "";
+            String adminRoleId = config.getAdminRoleId();
+            String mention = adminRoleId != null ? "<@&" + adminRoleId + ">" : "";
 
-                channel.sendMessage(mention)
-                        .setEmbeds(embed)
-                        .queue(
-                            message -> logger.info("Sent payment completed notification to channel: " + channel.getName()),
-                            error -> logger.error("Failed to send payment completed notification", error)
-                        );
-            } catch (Exception e) {
-                logger.error("Failed to send payment completed notification", e);
-            }
-        });
+            return submit(channel.sendMessage(mention).setEmbeds(embed),
+                    "Sent payment completed notification to channel: " + channel.getName(),
+                    "Failed to send payment completed notification");
+        } catch (Exception e) {
+            logger.error("Failed to send payment completed notification", e);
+            return CompletableFuture.failedFuture(e);
+        }
     }
 
     public static CompletableFuture<Void> sendPaymentCancelledByUserNotification(TextChannel channel, Invoice invoice, User user) {
-        return CompletableFuture.runAsync(() -> {
-            try {
-                var embed = EmbedManager.custom(channel.getGuild())
-                        .setColor(EmbedManager.WARNING_COLOR)
-                        .setTitle("⚠️ Payment Cancelled by User")
-                        .setDescription(user.getAsMention() + " has cancelled their payment.")
-                        .addField("Invoice ID", "#" + invoice.getInvoiceId().toString().substring(0, 8), true)
-                        .addField("Amount", invoice.getFormattedAmount(), true)
-                        .setFooter("Use the buttons below to recreate or delete this invoice", null)
-                        .build();
+        try {
+            var embed = EmbedManager.custom(channel.getGuild())
+                    .setColor(EmbedManager.WARNING_COLOR)
+                    .setTitle("⚠️ Payment Cancelled by User")
+                    .setDescription(user.getAsMention() + " has cancelled their payment.")
+                    .addField("Invoice ID", "#" + invoice.getInvoiceId().toString().substring(0, 8), true)
+                    .addField("Amount", invoice.getFormattedAmount(), true)
+                    .setFooter("Use the buttons below to recreate or delete this invoice", null)
+                    .build();
 
-                var buttons = createCancelledPaymentButtons(invoice);
-                String adminRoleId = config.getAdminRoleId();
-                String mention = adminRoleId != null ? "<@&" + adminRoleId + ">" : "";
+            var buttons = createCancelledPaymentButtons(invoice);
+            String adminRoleId = config.getAdminRoleId();
+            String mention = adminRoleId != null ? "<@&" + adminRoleId + ">" : "";
 
-                channel.sendMessage(mention)
-                        .setEmbeds(embed)
-                        .addComponents(buttons)
-                        .queue(
-                            message -> logger.info("Sent payment cancelled notification to channel: " + channel.getName()),
-                            error -> logger.error("Failed to send payment cancelled notification", error)
-                        );
-            } catch (Exception e) {
-                logger.error("Failed to send payment cancelled notification", e);
-            }
-        });
+            return submit(channel.sendMessage(mention).setEmbeds(embed).addComponents(buttons),
+                    "Sent payment cancelled notification to channel: " + channel.getName(),
+                    "Failed to send payment cancelled notification");
+        } catch (Exception e) {
+            logger.error("Failed to send payment cancelled notification", e);
+            return CompletableFuture.failedFuture(e);
+        }
     }
 
     public static CompletableFuture<Void> sendPaymentFailedNotification(TextChannel channel, Invoice invoice, String reason) {
+        try {
+            var embed = EmbedManager.custom(channel.getGuild())
+                    .setColor(EmbedManager.getErrorColor())
+                    .setTitle("❌ Payment Failed")
+                    .setDescription("The payment could not be processed.")
+                    .addField("Reason", reason, false)
+                    .addField("Invoice ID", "#" + invoice.getInvoiceId().toString().substring(0, 8), true)
+                    .addField("Amount", invoice.getFormattedAmount(), true)
+                    .build();
+
+            var buttons = createFailedPaymentButtons(invoice);
+            String adminRoleId = config.getAdminRoleId();
+            String mention = adminRoleId != null ? "<@&" + adminRoleId + ">" : "";
+
+            return submit(channel.sendMessage(mention).setEmbeds(embed).addComponents(buttons),
+                    "Sent payment failed notification to channel: " + channel.getName(),
+                    "Failed to send payment failed notification");
+        } catch (Exception e) {
+            logger.error("Failed to send payment failed notification", e);
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    public static CompletableFuture<Void> updatePaidInvoiceMessage(TextChannel channel, Invoice invoice) {
+        try {
+            var embed = EmbedManager.custom(channel.getGuild())
+                    .setColor(EmbedManager.getSuccessColor())
+                    .setTitle("📧 Invoice #" + invoice.getInvoiceId().toString().substring(0, 8) + " - PAID ✅")
+                    .setDescription("**" + invoice.getDescription() + "**")
+                    .addField("Customer", invoice.getCustomerName(), true)
+                    .addField("Amount", invoice.getFormattedAmount(), true)
+                    .addField("Status", "✅ " + invoice.getStatus().toString(), true)
+                    .addField("Payment Method", invoice.getSelectedGateway().toString(), true)
+                    .addField("Completed", invoice.getUpdatedAt().format(
+                        java.time.format.DateTimeFormatter.ofPattern("MMM dd, yyyy 'at' HH:mm")
+                    ), true)
+                    .build();
+
+            return submit(channel.editMessageEmbedsById(invoice.getChannelMessageId(), embed).setComponents(),
+                    "Updated paid invoice message in channel: " + channel.getName(),
+                    "Failed to update channel message for payment");
+        } catch (Exception e) {
+            logger.error("Failed to update channel message for payment", e);
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    public static CompletableFuture<Void> updateInvoiceStatusMessage(TextChannel channel, Invoice invoice) {
+        try {
+            var embed = EmbedManager.custom(channel.getGuild())
+                    .setTitle("📧 Invoice #" + invoice.getInvoiceId().toString().substring(0, 8))
+                    .setDescription("**" + invoice.getDescription() + "**")
+                    .addField("Customer", invoice.getCustomerName(), true)
+                    .addField("Amount", invoice.getFormattedAmount(), true)
+                    .addField("Status", getStatusEmoji(invoice.getStatus()) + " " + invoice.getStatus().toString(), true)
+                    .addField("Updated", invoice.getUpdatedAt().format(
+                        java.time.format.DateTimeFormatter.ofPattern("MMM dd, yyyy 'at' HH:mm")
+                    ), true)
+                    .build();
+
+            return submit(channel.editMessageEmbedsById(invoice.getChannelMessageId(), embed),
+                    "Updated invoice status message in channel: " + channel.getName(),
+                    "Failed to update channel message status");
+        } catch (Exception e) {
+            logger.error("Failed to update channel message status", e);
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static CompletableFuture<Void> submit(RestAction<?> action, String sentMessage, String failedMessage) {
+        return action.submit()
+                .whenComplete((result, error) -> {
+                    if (error == null) {
+                        logger.info(sentMessage);
+                    } else {
+                        logger.error(failedMessage, error);
+                    }
+                })
+                .thenAccept(result -> { });
+    }
+
+    public static CompletableFuture<Void> updateInvoiceChannelEmbed(TextChannel channel, Invoice invoice) {
         return CompletableFuture.runAsync(() -> {
             try {
+                if (invoice.getChannelMessageId() == null) {
+                    logger.warn("No channel message ID stored for invoice: " + invoice.getInvoiceId());
+                    return;
+                }
+
                 var embed = EmbedManager.custom(channel.getGuild())
-                        .setColor(EmbedManager.getErrorColor())
-                        .setTitle("❌ Payment Failed")
-                        .setDescription("The payment could not be processed.")
-                        .addField("Reason", reason, false)
-                        .addField("Invoice ID", "#" + invoice.getInvoiceId().toString().substring(0, 8), true)
+                        .setTitle("📧 Invoice #" + invoice.getInvoiceId().toString().substring(0, 8))
+                        .setDescription("**" + invoice.getDescription() + "**")
                         .addField("Amount", invoice.getFormattedAmount(), true)
+                        .addField("Status", getStatusEmoji(invoice.getStatus()) + " " + invoice.getStatus().toString(), true)
                         .build();
 
-                var buttons = createFailedPaymentButtons(invoice);
-                String adminRoleId = config.getAdminRoleId();
-                String mention = adminRoleId != null ? "<@&" + adminRoleId + ">" : "";
-
-                channel.sendMessage(mention)
-                        .setEmbeds(embed)
-                        .addComponents(buttons)
+                var buttons = createInvoiceChannelButtons(invoice);
+                channel.editMessageEmbedsById(invoice.getChannelMessageId(), embed)
+                        .setComponents(buttons)
                         .queue(
-                            message -> logger.info("Sent payment failed notification to channel: " + channel.getName()),
-                            error -> logger.error("Failed to send payment failed notification", error)
+                            message -> logger.info("Updated invoice embed in channel: " + channel.getName()),
+                            error -> logger.error("Failed to update invoice channel embed", error)
                         );
-            } catch (Exception e) {
-                logger.error("Failed to send payment failed notification", e);
-            }
-        });
-    }
-
-    public static CompletableFuture<Void> updateInvoiceChannelEmbed(TextChannel channel, Invoice invoice) {
-        return CompletableFuture.runAsync(() -> {
-            try {
-                channel.getHistory().retrievePast(50).queue(messages -> {
-                    messages.stream()
-                            .filter(message -> message.getAuthor().equals(channel.getJDA().getSelfUser()))
-                            .filter(message -> !message.getEmbeds().isEmpty())
-                            .filter(message -> message.getEmbeds().get(0).getTitle() != null)
-                            .filter(message -> message.getEmbeds().get(0).getTitle().contains("Invoice"))
-                            .findFirst()
-                            .ifPresent(message -> {
-                                var embed = EmbedManager.custom(channel.getGuild())
-                                        .setTitle("📧 Invoice #" + invoice.getInvoiceId().toString().substring(0, 8))
-                                        .setDescription("**" + invoice.getDescription() + "**")
-                                        .addField("Amount", invoice.getFormattedAmount(), true)
-                                        .addField("Status", getStatusEmoji(invoice.getStatus()) + " " + invoice.getStatus().toString(), true)
-                                        .build();
-
-                                var buttons = createInvoiceChannelButtons(invoice);
-                                message.editMessageEmbeds(embed)
-                                        .setComponents(buttons)
-                                        .queue();
-                            });
-                });
             } catch (Exception e) {
                 logger.error("Failed to update invoice channel embed", e);
             }
-        });
+        }, executor);
     }
 
     private static net.dv8tion.jda.api.interactions.components.ActionRow createCancelledPaymentButtons(Invoice invoice) {
@@ -0,0 +1,249 @@
+package net.kyver.invoices.service;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
+import net.dv8tion.jda.api.exceptions.ErrorResponseException;
+import net.kyver.invoices.data.DataMethods;
+import net.kyver.invoices.data.DatabaseManager;
+import net.kyver.invoices.data.OutboxEntry;
+import net.kyver.invoices.enums.OutboxAction;
+import net.kyver.invoices.enums.PaymentStatus;
+import net.kyver.invoices.manager.ConfigManager;
+import net.kyver.invoices.manager.LoggingManager;
+import net.kyver.invoices.model.Invoice;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+public class OutboxDispatcher {
+
+    private static final LoggingManager logger = LoggingManager.getLogger(OutboxDispatcher.class);
+    private static final long SEND_TIMEOUT_SECONDS = 30;
+    private static OutboxDispatcher instance;
+
+    private final JDA jda;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long backoffBaseMillis;
+    private final long backoffMaxMillis;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder abandoned = new LongAdder();
+
+    private OutboxDispatcher(JDA jda, ConfigManager config) {
+        this.jda = jda;
+        this.batchSize = Math.max(1, config.getOutboxBatchSize());
+        this.maxAttempts = Math.max(1, config.getOutboxMaxAttempts());
+        this.backoffBaseMillis = Math.max(1, config.getOutboxBackoffBaseSeconds()) * 1000L;
+        this.backoffMaxMillis = Math.max(backoffBaseMillis, config.getOutboxBackoffMaxSeconds() * 1000L);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "discord-outbox");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long interval = Math.max(100, config.getOutboxPollIntervalMs());
+        scheduler.scheduleWithFixedDelay(this::drain, 0, interval, TimeUnit.MILLISECONDS);
+        logger.info("Discord outbox dispatcher started (batches of %d, up to %d attempts)", batchSize, maxAttempts);
+    }
+
+    public static synchronized OutboxDispatcher start(JDA jda, ConfigManager config) {
+        if (instance == null) {
+            instance = new OutboxDispatcher(jda, config);
+        }
+        return instance;
+    }
+
+    public static OutboxDispatcher getInstance() {
+        return instance;
+    }
+
+    public static List<OutboxEntry> entriesFor(Invoice invoice, PaymentStatus status, String failureDetail) {
+        UUID invoiceId = invoice.getInvoiceId();
+        List<OutboxEntry> entries = new ArrayList<>();
+
+        switch (status) {
+            case PAID -> {
+                entries.add(OutboxEntry.of(invoiceId, OutboxAction.INVOICE_MESSAGE_PAID));
+                entries.add(OutboxEntry.of(invoiceId, OutboxAction.PAYMENT_COMPLETED_NOTIFICATION));
+                entries.add(OutboxEntry.of(invoiceId, OutboxAction.PAYMENT_COMPLETED_DM));
+            }
+            case FAILED -> entries.add(OutboxEntry.withDetail(invoiceId, OutboxAction.PAYMENT_FAILED_NOTIFICATION, failureDetail));
+            default -> entries.add(OutboxEntry.of(invoiceId, OutboxAction.INVOICE_MESSAGE_STATUS));
+        }
+
+        return entries;
+    }
+
+    public static void wakeUp() {
+        OutboxDispatcher dispatcher = instance;
+        if (dispatcher != null && dispatcher.drainScheduled.compareAndSet(false, true)) {
+            try {
+                dispatcher.scheduler.execute(dispatcher::drain);
+            } catch (RejectedExecutionException e) {
+                dispatcher.drainScheduled.set(false);
+            }
+        }
+    }
+
+    private void drain() {
+        drainScheduled.set(false);
+
+        try {
+            DataMethods dataMethods = DatabaseManager.getDataMethods();
+            List<OutboxEntry> batch;
+            boolean progressed;
+
+            do {
+                progressed = false;
+                batch = dataMethods.getDueOutboxEntries(LocalDateTime.now(), batchSize);
+                for (OutboxEntry entry : batch) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        return;
+                    }
+                    if (deliver(dataMethods, entry)) {
+                        progressed = true;
+                    }
+                }
+            } while (progressed);
+
+        } catch (Exception e) {
+            logger.error("Failed to drain Discord outbox", e);
+        }
+    }
+
+    private boolean deliver(DataMethods dataMethods, OutboxEntry entry) {
+        if (entry.getAction() == null) {
+            logger.warn("Dropping outbox entry %d with unknown action", entry.getId());
+            dataMethods.deleteOutboxEntry(entry.getId());
+            return true;
+        }
+
+        Invoice invoice = dataMethods.getInvoice(entry.getInvoiceId());
+        if (invoice == null) {
+            logger.warn("Dropping %s for deleted invoice %s", entry.getAction(), entry.getInvoiceId());
+            dataMethods.deleteOutboxEntry(entry.getId());
+            return true;
+        }
+
+        try {
+            send(entry, invoice).get(SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            dataMethods.deleteOutboxEntry(entry.getId());
+            delivered.increment();
+            logger.debug("Delivered %s for invoice %s", entry.getAction(), entry.getInvoiceId());
+            return true;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof ErrorResponseException error && isPermanent(error)) {
+                abandoned.increment();
+                logger.warn("Discord rejected %s for invoice %s: %s", entry.getAction(), entry.getInvoiceId(), cause.getMessage());
+                dataMethods.deleteOutboxEntry(entry.getId());
+                return true;
+            }
+
+            reschedule(dataMethods, entry, cause);
+            return false;
+        }
+    }
+
+    private boolean isPermanent(ErrorResponseException error) {
+        int status = error.getResponse() != null ? error.getResponse().code : 0;
+        return status >= 400 && status < 500 && status != 429;
+    }
+
+    private void reschedule(DataMethods dataMethods, OutboxEntry entry, Throwable cause) {
+        int attempts = entry.getAttempts() + 1;
+        if (attempts >= maxAttempts) {
+            abandoned.increment();
+            logger.error("Giving up on " + entry.getAction() + " for invoice " + entry.getInvoiceId() + " after " + attempts + " attempts", cause);
+            dataMethods.deleteOutboxEntry(entry.getId());
+            return;
+        }
+
+        long backoff = Math.min(backoffMaxMillis, backoffBaseMillis << Math.min(attempts - 1, 20));
+        long delay = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        dataMethods.rescheduleOutboxEntry(entry.getId(), attempts,
+                LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(delay)), String.valueOf(cause.getMessage()));
+        retried.increment();
+        logger.warn("Failed to deliver %s for invoice %s (attempt %d), retrying in %ds",
+                entry.getAction(), entry.getInvoiceId(), attempts, delay / 1000);
+    }
+
+    private CompletableFuture<Void> send(OutboxEntry entry, Invoice invoice) throws IOException {
+        String userId = entry.getTargetUserId() != null ? entry.getTargetUserId() : invoice.getDiscordUserId();
+
+        return switch (entry.getAction()) {
+            case PAYMENT_READY_DM -> {
+                byte[] qrCodeData = QRCodeService.generateQRCode(invoice.getPaymentUrl());
+                yield jda.retrieveUserById(userId).submit()
+                        .thenCompose(user -> DMService.sendPaymentReadyDM(user, invoice, qrCodeData));
+            }
+            case PAYMENT_COMPLETED_DM -> jda.retrieveUserById(userId).submit()
+                    .thenCompose(user -> DMService.sendPaymentCompletedDM(user, invoice));
+            case PAYMENT_CANCELLED_DM -> jda.retrieveUserById(userId).submit()
+                    .thenCompose(user -> DMService.sendPaymentCancelledDM(user, invoice));
+            case PAYMENT_READY_NOTIFICATION -> withChannel(invoice, channel ->
+                    NotificationService.sendPaymentReadyNotification(channel, invoice));
+            case PAYMENT_COMPLETED_NOTIFICATION -> withChannel(invoice, channel ->
+                    NotificationService.sendPaymentCompletedNotification(channel, invoice));
+            case PAYMENT_FAILED_NOTIFICATION -> withChannel(invoice, channel ->
+                    NotificationService.sendPaymentFailedNotification(channel, invoice, entry.getDetail()));
+            case PAYMENT_CANCELLED_BY_USER_NOTIFICATION -> withChannel(invoice, channel ->
+                    jda.retrieveUserById(userId).submit()
+                            .thenCompose(user -> NotificationService.sendPaymentCancelledByUserNotification(channel, invoice, user)));
+            case INVOICE_MESSAGE_PAID -> withChannelMessage(invoice, channel ->
+                    NotificationService.updatePaidInvoiceMessage(channel, invoice));
+            case INVOICE_MESSAGE_STATUS -> withChannelMessage(invoice, channel ->
+                    NotificationService.updateInvoiceStatusMessage(channel, invoice));
+        };
+    }
+
+    private CompletableFuture<Void> withChannel(Invoice invoice, Function<TextChannel, CompletableFuture<Void>> action) {
+        if (invoice.getChannelId() == null || invoice.getChannelId().isEmpty()) {
+            logger.warn("No channel ID set for invoice: " + invoice.getInvoiceId());
+            return CompletableFuture.completedFuture(null);
+        }
+
+        TextChannel channel = jda.getTextChannelById(invoice.getChannelId());
+        if (channel == null) {
+            logger.warn("Channel not found for invoice: " + invoice.getChannelId());
+            return CompletableFuture.completedFuture(null);
+        }
+        return action.apply(channel);
+    }
+
+    private CompletableFuture<Void> withChannelMessage(Invoice invoice, Function<TextChannel, CompletableFuture<Void>> action) {
+        if (invoice.getChannelMessageId() == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return withChannel(invoice, action);
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pending", DatabaseManager.getDataMethods().getOutboxSize());
+        stats.put("delivered", delivered.sum());
+        stats.put("retried", retried.sum());
+        stats.put("abandoned", abandoned.sum());
+        return stats;
+    }
+}
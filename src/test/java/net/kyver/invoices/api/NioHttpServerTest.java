@@ -0,0 +1,208 @@
+package net.kyver.invoices.api;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class NioHttpServerTest {
+
+    private static final int MAX_HEADER_BYTES = 1024;
+    private static final int MAX_BODY_BYTES = 64;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private NioHttpServer server;
+    private int port;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        try (ServerSocket probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+        server = new NioHttpServer(port, MAX_HEADER_BYTES, MAX_BODY_BYTES, 30);
+        server.createContext("/echo", request -> WebResponse.json(200,
+                "{\"method\":\"" + request.getMethod() + "\",\"body\":\"" + request.getBodyAsString() + "\"}"));
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void servesPipelinedRequestsOnOneConnection() throws IOException {
+        try (Socket socket = connect()) {
+            send(socket, "GET /echo HTTP/1.1\r\nHost: test\r\n\r\n"
+                    + "POST /echo/sub?x=1 HTTP/1.1\r\nHost: test\r\nContent-Length: 3\r\n\r\nabc");
+
+            Response first = Response.read(socket.getInputStream());
+            Response second = Response.read(socket.getInputStream());
+
+            assertEquals(200, first.status);
+            assertEquals("{\"method\":\"GET\",\"body\":\"\"}", first.body);
+            assertEquals("keep-alive", first.header("connection"));
+            assertEquals(200, second.status);
+            assertEquals("{\"method\":\"POST\",\"body\":\"abc\"}", second.body);
+        }
+    }
+
+    @Test
+    void waitsForHeadersAndBodySplitAcrossWrites() throws Exception {
+        try (Socket socket = connect()) {
+            send(socket, "POST /echo HTTP/1.1\r\nHo");
+            Thread.sleep(50);
+            send(socket, "st: test\r\nContent-Length: 5\r\n\r\nhe");
+            Thread.sleep(50);
+            send(socket, "llo");
+
+            Response response = Response.read(socket.getInputStream());
+
+            assertEquals(200, response.status);
+            assertEquals("{\"method\":\"POST\",\"body\":\"hello\"}", response.body);
+        }
+    }
+
+    @Test
+    void closesTheConnectionWhenAsked() throws IOException {
+        try (Socket socket = connect()) {
+            send(socket, "GET /echo HTTP/1.1\r\nHost: test\r\nConnection: close\r\n\r\n");
+
+            Response response = Response.read(socket.getInputStream());
+
+            assertEquals("close", response.header("connection"));
+            assertEquals(-1, socket.getInputStream().read());
+        }
+    }
+
+    @Test
+    void answersUnknownPathsWithNotFound() throws IOException {
+        assertEquals(404, exchange("GET /missing HTTP/1.1\r\nHost: test\r\n\r\n").status);
+    }
+
+    @Test
+    void enforcesHeaderAndBodyLimits() throws IOException {
+        String largeHeader = "X-Padding: " + "a".repeat(MAX_HEADER_BYTES) + "\r\n";
+
+        assertRejected(431, "GET /echo HTTP/1.1\r\n" + largeHeader + "\r\n");
+        assertRejected(413, "POST /echo HTTP/1.1\r\nContent-Length: " + (MAX_BODY_BYTES + 1) + "\r\n\r\n");
+    }
+
+    @Test
+    void rejectsAmbiguousFraming() throws IOException {
+        assertRejected(411, "POST /echo HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n");
+        assertRejected(400, "POST /echo HTTP/1.1\r\nTransfer-Encoding: chunked\r\nContent-Length: 3\r\n\r\nabc");
+        assertRejected(400, "POST /echo HTTP/1.1\r\nContent-Length: 3\r\nContent-Length: 4\r\n\r\nabcd");
+        assertRejected(400, "POST /echo HTTP/1.1\r\nContent-Length: -3\r\n\r\n");
+        assertRejected(400, "GET /echo\r\n\r\n");
+        assertRejected(400, "GET /echo HTTP/1.1\r\nBad Header: x\r\n\r\n");
+    }
+
+    @Test
+    void answersBusyWhenTheExecutorRejects() throws IOException {
+        server.setExecutor(task -> {
+            throw new RejectedExecutionException("busy");
+        });
+        server.setRetryAfterSeconds(7);
+
+        try (Socket socket = connect()) {
+            send(socket, "GET /echo HTTP/1.1\r\nHost: test\r\n\r\n");
+            Response response = Response.read(socket.getInputStream());
+
+            assertEquals(503, response.status);
+            assertEquals("7", response.header("retry-after"));
+            assertEquals(-1, socket.getInputStream().read());
+        }
+    }
+
+    private Response exchange(String request) throws IOException {
+        try (Socket socket = connect()) {
+            send(socket, request);
+            return Response.read(socket.getInputStream());
+        }
+    }
+
+    private void assertRejected(int status, String request) throws IOException {
+        try (Socket socket = connect()) {
+            send(socket, request);
+            Response response = Response.read(socket.getInputStream());
+
+            assertEquals(status, response.status, request);
+            assertEquals("close", response.header("connection"), request);
+            assertEquals(-1, socket.getInputStream().read(), request);
+        }
+    }
+
+    private Socket connect() throws IOException {
+        Socket socket = new Socket("localhost", port);
+        socket.setSoTimeout(5000);
+        return socket;
+    }
+
+    private static void send(Socket socket, String data) throws IOException {
+        OutputStream output = socket.getOutputStream();
+        output.write(data.getBytes(StandardCharsets.ISO_8859_1));
+        output.flush();
+    }
+
+    private static class Response {
+        private final int status;
+        private final Map<String, String> headers;
+        private final String body;
+
+        private Response(int status, Map<String, String> headers, String body) {
+            this.status = status;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        private String header(String name) {
+            return headers.get(name);
+        }
+
+        private static Response read(InputStream input) throws IOException {
+            String statusLine = readLine(input);
+            Map<String, String> headers = new HashMap<>();
+            String line;
+            while (!(line = readLine(input)).isEmpty()) {
+                int separator = line.indexOf(':');
+                headers.put(line.substring(0, separator).toLowerCase(Locale.ROOT), line.substring(separator + 1).trim());
+            }
+
+            byte[] body = input.readNBytes(Integer.parseInt(headers.getOrDefault("content-length", "0")));
+            return new Response(Integer.parseInt(statusLine.split(" ")[1]), headers, new String(body, StandardCharsets.UTF_8));
+        }
+
+        private static String readLine(InputStream input) throws IOException {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int previous = -1;
+            int current;
+            while ((current = input.read()) != -1) {
+                if (previous == '\r' && current == '\n') {
+                    byte[] bytes = line.toByteArray();
+                    return new String(bytes, 0, bytes.length - 1, StandardCharsets.ISO_8859_1);
+                }
+                line.write(current);
+                previous = current;
+            }
+            throw new IOException("Connection closed mid-line");
+        }
+    }
+}
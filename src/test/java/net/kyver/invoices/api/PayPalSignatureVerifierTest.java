@@ -0,0 +1,152 @@
+package net.kyver.invoices.api;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PayPalSignatureVerifierTest {
+
+    private static final String WEBHOOK_ID = "WH-TEST-1";
+    private static final String CERT_URL = "https://api.sandbox.paypal.com/v1/notifications/certs/CERT-1";
+    private static final byte[] BODY = "{\"id\":\"WH-1\",\"event_type\":\"PAYMENT.SALE.COMPLETED\"}".getBytes(StandardCharsets.UTF_8);
+
+    private static X509Certificate certificate;
+    private static PrivateKey privateKey;
+
+    private final AtomicInteger fetches = new AtomicInteger();
+
+    @BeforeAll
+    static void loadKeys() throws Exception {
+        try (InputStream input = resource("webhook-cert.pem")) {
+            certificate = (X509Certificate) CertificateFactory.getInstance("X.509").generateCertificate(input);
+        }
+        try (InputStream input = resource("webhook-key.pem")) {
+            String pem = new String(input.readAllBytes(), StandardCharsets.US_ASCII)
+                    .replaceAll("-----[A-Z ]+-----", "")
+                    .replaceAll("\\s", "");
+            privateKey = KeyFactory.getInstance("RSA").generatePrivate(new PKCS8EncodedKeySpec(Base64.getDecoder().decode(pem)));
+        }
+    }
+
+    @Test
+    void acceptsValidSignature() throws GeneralSecurityException {
+        assertTrue(verifier().verify(headers(WEBHOOK_ID, BODY), BODY));
+    }
+
+    @Test
+    void rejectsTamperedBody() throws GeneralSecurityException {
+        Map<String, String> headers = headers(WEBHOOK_ID, BODY);
+
+        assertFalse(verifier().verify(headers, "{\"id\":\"WH-2\"}".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void rejectsSignatureForAnotherWebhook() throws GeneralSecurityException {
+        assertFalse(verifier().verify(headers("WH-OTHER", BODY), BODY));
+    }
+
+    @Test
+    void cachesCertificatesPerUrl() throws GeneralSecurityException {
+        PayPalSignatureVerifier verifier = verifier();
+
+        assertTrue(verifier.verify(headers(WEBHOOK_ID, BODY), BODY));
+        assertTrue(verifier.verify(headers(WEBHOOK_ID, BODY), BODY));
+
+        assertEquals(1, fetches.get());
+    }
+
+    @Test
+    void rejectsUntrustedCertificateUrlsWithoutFetching() throws GeneralSecurityException {
+        PayPalSignatureVerifier verifier = verifier();
+
+        for (String certUrl : new String[] {
+                "http://api.sandbox.paypal.com/cert",
+                "https://evilpaypal.com/cert",
+                "https://api.paypal.com.attacker.net/cert",
+                "not a url"}) {
+            Map<String, String> headers = headers(WEBHOOK_ID, BODY);
+            headers.put("paypal-cert-url", certUrl);
+            assertFalse(verifier.verify(headers, BODY), certUrl);
+        }
+
+        assertEquals(0, fetches.get());
+    }
+
+    @Test
+    void rejectsMalformedHeaders() throws GeneralSecurityException {
+        PayPalSignatureVerifier verifier = verifier();
+
+        Map<String, String> missing = headers(WEBHOOK_ID, BODY);
+        missing.remove("paypal-transmission-sig");
+        Map<String, String> algorithm = headers(WEBHOOK_ID, BODY);
+        algorithm.put("paypal-auth-algo", "SHA256withECDSA");
+        Map<String, String> encoding = headers(WEBHOOK_ID, BODY);
+        encoding.put("paypal-transmission-sig", "not*base64");
+
+        assertFalse(verifier.verify(missing, BODY));
+        assertFalse(verifier.verify(algorithm, BODY));
+        assertFalse(verifier.verify(encoding, BODY));
+    }
+
+    @Test
+    void rejectsEverythingWithoutAWebhookId() throws GeneralSecurityException {
+        PayPalSignatureVerifier verifier = new PayPalSignatureVerifier("", 3600, url -> certificate);
+
+        assertFalse(verifier.hasWebhookId());
+        assertFalse(verifier.verify(headers("", BODY), BODY));
+    }
+
+    private PayPalSignatureVerifier verifier() {
+        return new PayPalSignatureVerifier(WEBHOOK_ID, 3600, url -> {
+            fetches.incrementAndGet();
+            return certificate;
+        });
+    }
+
+    private static Map<String, String> headers(String webhookId, byte[] body) throws GeneralSecurityException {
+        String transmissionId = "b2384410-f8d2-11e4-9b8a-3c1a5c9c6c5f";
+        String transmissionTime = "2025-01-01T12:00:00Z";
+        CRC32 crc = new CRC32();
+        crc.update(body);
+
+        Signature signer = Signature.getInstance("SHA256withRSA");
+        signer.initSign(privateKey);
+        signer.update((transmissionId + "|" + transmissionTime + "|" + webhookId + "|" + crc.getValue())
+                .getBytes(StandardCharsets.UTF_8));
+
+        Map<String, String> headers = new HashMap<>();
+        headers.put("paypal-transmission-id", transmissionId);
+        headers.put("paypal-transmission-time", transmissionTime);
+        headers.put("paypal-transmission-sig", Base64.getEncoder().encodeToString(signer.sign()));
+        headers.put("paypal-cert-url", CERT_URL);
+        headers.put("paypal-auth-algo", "SHA256withRSA");
+        return headers;
+    }
+
+    private static InputStream resource(String name) throws IOException {
+        InputStream input = PayPalSignatureVerifierTest.class.getResourceAsStream("/paypal/" + name);
+        if (input == null) {
+            throw new IOException("Missing test resource " + name);
+        }
+        return input;
+    }
+}
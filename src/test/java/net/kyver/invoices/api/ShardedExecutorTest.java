@@ -0,0 +1,67 @@
+package net.kyver.invoices.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardedExecutorTest {
+
+    @Test
+    void runsTasksForTheSameKeyInOrder() throws InterruptedException {
+        ShardedExecutor executor = new ShardedExecutor("test", 4, 100);
+        List<Integer> seen = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(50);
+
+        for (int i = 0; i < 50; i++) {
+            int value = i;
+            executor.execute("pi_1", () -> {
+                seen.add(value);
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i, seen.get(i));
+        }
+        executor.shutdownNow();
+    }
+
+    @Test
+    void rejectsTasksOnceAShardQueueIsFull() throws InterruptedException {
+        ShardedExecutor executor = new ShardedExecutor("test", 1, 2);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        executor.execute("pi_1", () -> {
+            started.countDown();
+            awaitQuietly(release);
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        executor.execute("pi_1", () -> { });
+        executor.execute("pi_1", () -> { });
+
+        assertThrows(RejectedExecutionException.class, () -> executor.execute("pi_1", () -> { }));
+        assertEquals(List.of(3), executor.getQueueDepths());
+
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package net.kyver.invoices.api;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StripeSignatureVerifierTest {
+
+    private static final byte[] BODY = "{\"id\":\"evt_1\"}".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void acceptsValidSignature() {
+        StripeSignatureVerifier verifier = new StripeSignatureVerifier(List.of("whsec_current"), 300);
+        long now = now();
+
+        assertTrue(verifier.verify("t=" + now + ",v1=" + sign("whsec_current", now, BODY), BODY));
+    }
+
+    @Test
+    void rejectsTamperedBody() {
+        StripeSignatureVerifier verifier = new StripeSignatureVerifier(List.of("whsec_current"), 300);
+        long now = now();
+        String header = "t=" + now + ",v1=" + sign("whsec_current", now, BODY);
+
+        assertFalse(verifier.verify(header, "{\"id\":\"evt_2\"}".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void rejectsTimestampsOutsideTolerance() {
+        StripeSignatureVerifier verifier = new StripeSignatureVerifier(List.of("whsec_current"), 300);
+        long stale = now() - 301;
+        long future = now() + 301;
+
+        assertFalse(verifier.verify("t=" + stale + ",v1=" + sign("whsec_current", stale, BODY), BODY));
+        assertFalse(verifier.verify("t=" + future + ",v1=" + sign("whsec_current", future, BODY), BODY));
+    }
+
+    @Test
+    void acceptsTimestampsInsideTolerance() {
+        StripeSignatureVerifier verifier = new StripeSignatureVerifier(List.of("whsec_current"), 300);
+        long recent = now() - 200;
+
+        assertTrue(verifier.verify("t=" + recent + ",v1=" + sign("whsec_current", recent, BODY), BODY));
+    }
+
+    @Test
+    void zeroToleranceSkipsTimestampCheck() {
+        StripeSignatureVerifier verifier = new StripeSignatureVerifier(List.of("whsec_current"), 0);
+        long old = now() - 86_400;
+
+        assertTrue(verifier.verify("t=" + old + ",v1=" + sign("whsec_current", old, BODY), BODY));
+    }
+
+    @Test
+    void acceptsAnyOfMultipleV1Signatures() {
+        StripeSignatureVerifier verifier = new StripeSignatureVerifier(List.of("whsec_current"), 300);
+        long now = now();
+        String header = "t=" + now
+                + ",v1=" + sign("whsec_other", now, BODY)
+                + ",v0=" + sign("whsec_current", now, BODY)
+                + ",v1=" + sign("whsec_current", now, BODY);
+
+        assertTrue(verifier.verify(header, BODY));
+    }
+
+    @Test
+    void ignoresSchemesOtherThanV1() {
+        StripeSignatureVerifier verifier = new StripeSignatureVerifier(List.of("whsec_current"), 300);
+        long now = now();
+
+        assertFalse(verifier.verify("t=" + now + ",v0=" + sign("whsec_current", now, BODY), BODY));
+    }
+
+    @Test
+    void acceptsEverySecretDuringRotation() {
+        StripeSignatureVerifier verifier = new StripeSignatureVerifier(List.of("whsec_new", "whsec_old"), 300);
+        long now = now();
+
+        assertTrue(verifier.verify("t=" + now + ",v1=" + sign("whsec_new", now, BODY), BODY));
+        assertTrue(verifier.verify("t=" + now + ",v1=" + sign("whsec_old", now, BODY), BODY));
+        assertFalse(verifier.verify("t=" + now + ",v1=" + sign("whsec_retired", now, BODY), BODY));
+    }
+
+    @Test
+    void skipsBlankSecrets() {
+        StripeSignatureVerifier verifier = new StripeSignatureVerifier(List.of("", " "), 300);
+        long now = now();
+
+        assertFalse(verifier.hasSecrets());
+        assertFalse(verifier.verify("t=" + now + ",v1=" + sign(" ", now, BODY), BODY));
+    }
+
+    @Test
+    void rejectsMalformedHeaders() {
+        StripeSignatureVerifier verifier = new StripeSignatureVerifier(List.of("whsec_current"), 300);
+        long now = now();
+        String signature = sign("whsec_current", now, BODY);
+
+        assertFalse(verifier.verify(null, BODY));
+        assertFalse(verifier.verify("v1=" + signature, BODY));
+        assertFalse(verifier.verify("t=" + now, BODY));
+        assertFalse(verifier.verify("t=" + now + ",v1=" + signature.substring(2), BODY));
+        assertFalse(verifier.verify("t=" + now + ",v1=zz" + signature.substring(2), BODY));
+        assertFalse(verifier.verify("t=abc,v1=" + signature, BODY));
+    }
+
+    private static long now() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    private static String sign(String secret, long timestamp, byte[] body) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            mac.update((timestamp + ".").getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(mac.doFinal(body));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package net.kyver.invoices.api;
+
+import net.kyver.invoices.enums.PaymentGateway;
+import net.kyver.invoices.enums.WebhookEventType;
+import net.kyver.invoices.model.WebhookEvent;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class WebhookEventDecoderTest {
+
+    @Test
+    void readsStripeIdsOnlyFromTheirOwnScope() {
+        String payload = """
+                {
+                  "object": "event",
+                  "data": {
+                    "previous_attributes": {"id": "pi_previous"},
+                    "object": {
+                      "charges": {"data": [{"id": "ch_nested", "payment_intent": "pi_nested"}]},
+                      "latest_charge": {"id": "ch_expanded"},
+                      "id": "pi_123",
+                      "metadata": {"order_id": "ord_1", "invoice_id": "INV-42"}
+                    }
+                  },
+                  "request": {"id": "req_1"},
+                  "type": "payment_intent.succeeded",
+                  "id": "evt_1"
+                }
+                """;
+
+        WebhookEvent event = WebhookEventDecoder.decode(PaymentGateway.STRIPE, payload);
+
+        assertEquals("evt_1", event.getEventId());
+        assertEquals("pi_123", event.getPaymentId());
+        assertEquals("INV-42", event.getInvoiceReference());
+        assertEquals(WebhookEventType.PAYMENT_COMPLETED, event.getType());
+    }
+
+    @Test
+    void ignoresInvoiceIdOutsideObjectMetadata() {
+        String payload = """
+                {"id": "evt_2", "type": "payment_intent.payment_failed", "metadata": {"invoice_id": "INV-root"},
+                 "data": {"object": {"id": "pi_9", "invoice_id": "INV-flat", "customer": {"metadata": {"invoice_id": "INV-deep"}}}}}
+                """;
+
+        WebhookEvent event = WebhookEventDecoder.decode(PaymentGateway.STRIPE, payload);
+
+        assertEquals("pi_9", event.getPaymentId());
+        assertNull(event.getInvoiceReference());
+        assertEquals(WebhookEventType.PAYMENT_FAILED, event.getType());
+    }
+
+    @Test
+    void resolvesDisputesToThePaymentIntent() {
+        String payload = """
+                {"id": "evt_3", "type": "charge.dispute.created",
+                 "data": {"object": {"id": "dp_1", "charge": "ch_1", "payment_intent": "pi_disputed"}}}
+                """;
+
+        WebhookEvent event = WebhookEventDecoder.decode(PaymentGateway.STRIPE, payload);
+
+        assertEquals("pi_disputed", event.getPaymentId());
+        assertEquals(WebhookEventType.PAYMENT_DISPUTED, event.getType());
+    }
+
+    @Test
+    void prefersPayPalParentPayment() {
+        String payload = """
+                {"id": "WH-1", "event_type": "PAYMENT.SALE.COMPLETED",
+                 "resource": {"links": [{"href": "https://example.com", "rel": "self"}],
+                              "amount": {"total": "10.00"}, "id": "SALE-1", "parent_payment": "PAYID-1"}}
+                """;
+
+        WebhookEvent event = WebhookEventDecoder.decode(PaymentGateway.PAYPAL, payload);
+
+        assertEquals("WH-1", event.getEventId());
+        assertEquals("PAYID-1", event.getPaymentId());
+        assertEquals(WebhookEventType.PAYMENT_COMPLETED, event.getType());
+    }
+
+    @Test
+    void fallsBackToPayPalResourceId() {
+        String payload = """
+                {"id": "WH-2", "event_type": "PAYMENT.SALE.REFUNDED", "resource": {"id": "REFUND-1", "nested": {"id": "other"}}}
+                """;
+
+        WebhookEvent event = WebhookEventDecoder.decode(PaymentGateway.PAYPAL, payload);
+
+        assertEquals("REFUND-1", event.getPaymentId());
+        assertEquals(WebhookEventType.PAYMENT_REFUNDED, event.getType());
+    }
+
+    @Test
+    void readsEventCreationTime() {
+        WebhookEvent stripe = WebhookEventDecoder.decode(PaymentGateway.STRIPE, """
+                {"id": "evt_5", "created": 1700000000, "type": "payment_intent.succeeded",
+                 "data": {"object": {"id": "pi_5", "created": 1600000000}}}
+                """);
+        WebhookEvent paypal = WebhookEventDecoder.decode(PaymentGateway.PAYPAL, """
+                {"id": "WH-5", "create_time": "2023-11-14T22:13:20.000Z", "event_type": "PAYMENT.SALE.COMPLETED",
+                 "resource": {"id": "SALE-5", "create_time": "2020-01-01T00:00:00Z"}}
+                """);
+        WebhookEvent missing = WebhookEventDecoder.decode(PaymentGateway.PAYPAL, """
+                {"id": "WH-6", "create_time": "yesterday", "resource": {"id": "SALE-6"}}
+                """);
+
+        assertEquals(1_700_000_000_000L, stripe.getCreatedAt());
+        assertEquals(1_700_000_000_000L, paypal.getCreatedAt());
+        assertEquals(0L, missing.getCreatedAt());
+    }
+
+    @Test
+    void decodesEscapedStrings() {
+        String payload = "{\"id\": \"evt_\\u0034\\\"x\", \"type\": \"other\", \"data\": {\"object\": {\"id\": \"pi_\\\\1\"}}}";
+
+        WebhookEvent event = WebhookEventDecoder.decode(PaymentGateway.STRIPE, payload);
+
+        assertEquals("evt_4\"x", event.getEventId());
+        assertEquals("pi_\\1", event.getPaymentId());
+        assertEquals(WebhookEventType.UNKNOWN, event.getType());
+    }
+
+    @Test
+    void rejectsMalformedPayloads() {
+        assertNull(WebhookEventDecoder.decode(PaymentGateway.STRIPE, null));
+        assertNull(WebhookEventDecoder.decode(PaymentGateway.STRIPE, ""));
+        assertNull(WebhookEventDecoder.decode(PaymentGateway.STRIPE, "{\"id\": \"evt_1\""));
+        assertNull(WebhookEventDecoder.decode(PaymentGateway.STRIPE, "{\"id\" \"evt_1\"}"));
+        assertNull(WebhookEventDecoder.decode(PaymentGateway.STRIPE, "[" .repeat(100) + "]".repeat(100)));
+    }
+}
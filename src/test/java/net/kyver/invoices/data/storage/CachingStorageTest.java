@@ -0,0 +1,129 @@
+package net.kyver.invoices.data.storage;
+
+import net.kyver.invoices.enums.PaymentStatus;
+import net.kyver.invoices.model.Invoice;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CachingStorageTest {
+
+    @TempDir
+    File tempDir;
+
+    private CountingStorage delegate;
+    private CachingStorage storage;
+
+    @BeforeEach
+    void openStorage() {
+        delegate = new CountingStorage(new File(tempDir, "invoices.db"));
+        storage = new CachingStorage(delegate, 2, 300);
+    }
+
+    @AfterEach
+    void closeStorage() {
+        storage.close();
+    }
+
+    @Test
+    void servesRepeatedReadsFromTheCache() {
+        Invoice invoice = created();
+
+        storage.getInvoice(invoice.getInvoiceId());
+        storage.getInvoice(invoice.getInvoiceId());
+
+        assertEquals(1, delegate.reads.get());
+        assertEquals(1L, storage.getStats().get("hits"));
+    }
+
+    @Test
+    void returnsCopiesOfCachedInvoices() {
+        Invoice invoice = created();
+
+        storage.getInvoice(invoice.getInvoiceId()).setDescription("Changed by caller");
+
+        assertEquals("Test invoice", storage.getInvoice(invoice.getInvoiceId()).getDescription());
+    }
+
+    @Test
+    void writesInvalidateTheCachedInvoice() {
+        Invoice invoice = created();
+        storage.getInvoice(invoice.getInvoiceId());
+
+        storage.updateInvoiceStatus(invoice.getInvoiceId(), PaymentStatus.PAID);
+        assertEquals(PaymentStatus.PAID, storage.getInvoice(invoice.getInvoiceId()).getStatus());
+
+        invoice.setStatus(PaymentStatus.REFUNDED);
+        storage.updateInvoiceWithOutbox(invoice, List.of());
+        assertEquals(PaymentStatus.REFUNDED, storage.getInvoice(invoice.getInvoiceId()).getStatus());
+
+        storage.deleteInvoice(invoice.getInvoiceId());
+        assertNull(storage.getInvoice(invoice.getInvoiceId()));
+        assertEquals(4, delegate.reads.get());
+    }
+
+    @Test
+    void readRacingAnInvalidationIsNotCached() {
+        Invoice invoice = created();
+        delegate.afterRead = () -> storage.invalidate(invoice.getInvoiceId());
+
+        storage.getInvoice(invoice.getInvoiceId());
+        delegate.afterRead = null;
+        storage.getInvoice(invoice.getInvoiceId());
+
+        assertEquals(2, delegate.reads.get());
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedInvoice() {
+        Invoice first = created();
+        Invoice second = created();
+        Invoice third = created();
+
+        storage.getInvoice(first.getInvoiceId());
+        storage.getInvoice(second.getInvoiceId());
+        storage.getInvoice(first.getInvoiceId());
+        storage.getInvoice(third.getInvoiceId());
+        storage.getInvoice(first.getInvoiceId());
+        storage.getInvoice(second.getInvoiceId());
+
+        assertEquals(4, delegate.reads.get());
+        assertEquals(2L, storage.getStats().get("evictions"));
+    }
+
+    private Invoice created() {
+        Invoice invoice = SQLiteStorageTest.invoice("user-1");
+        storage.createInvoice(invoice);
+        return invoice;
+    }
+
+    private static class CountingStorage extends SQLiteStorage {
+
+        private final AtomicInteger reads = new AtomicInteger();
+        private volatile Runnable afterRead;
+
+        private CountingStorage(File dbFile) {
+            super(dbFile);
+        }
+
+        @Override
+        public Invoice getInvoice(UUID invoiceId) {
+            reads.incrementAndGet();
+            Invoice invoice = super.getInvoice(invoiceId);
+            Runnable hook = afterRead;
+            if (hook != null) {
+                hook.run();
+            }
+            return invoice;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package net.kyver.invoices.data.storage;
+
+import net.kyver.invoices.data.OutboxEntry;
+import net.kyver.invoices.enums.OutboxAction;
+import net.kyver.invoices.enums.PaymentStatus;
+import net.kyver.invoices.model.Invoice;
+import net.kyver.invoices.service.OutboxDispatcher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OutboxOrderingTest {
+
+    @TempDir
+    File tempDir;
+
+    private SQLiteStorage storage;
+
+    @BeforeEach
+    void openStorage() {
+        storage = new SQLiteStorage(new File(tempDir, "invoices.db"));
+    }
+
+    @AfterEach
+    void closeStorage() {
+        storage.close();
+    }
+
+    @Test
+    void paidInvoicesUpdateTheMessageBeforeNotifying() {
+        Invoice invoice = SQLiteStorageTest.invoice("user-1");
+
+        assertEquals(List.of(OutboxAction.INVOICE_MESSAGE_PAID, OutboxAction.PAYMENT_COMPLETED_NOTIFICATION,
+                        OutboxAction.PAYMENT_COMPLETED_DM),
+                actions(OutboxDispatcher.entriesFor(invoice, PaymentStatus.PAID, null)));
+    }
+
+    @Test
+    void dispatchesOneEntryPerInvoiceInInsertionOrder() {
+        Invoice first = paid();
+        Invoice second = paid();
+
+        for (OutboxAction expected : List.of(OutboxAction.INVOICE_MESSAGE_PAID,
+                OutboxAction.PAYMENT_COMPLETED_NOTIFICATION, OutboxAction.PAYMENT_COMPLETED_DM)) {
+            List<OutboxEntry> due = due();
+
+            assertEquals(List.of(first.getInvoiceId(), second.getInvoiceId()),
+                    due.stream().map(OutboxEntry::getInvoiceId).toList());
+            assertEquals(List.of(expected, expected), actions(due));
+            due.forEach(entry -> storage.deleteOutboxEntry(entry.getId()));
+        }
+
+        assertTrue(due().isEmpty());
+        assertEquals(0, storage.getOutboxSize());
+    }
+
+    @Test
+    void retryingEntryHoldsBackLaterEntriesForTheSameInvoiceOnly() {
+        Invoice blocked = paid();
+        Invoice other = paid();
+        OutboxEntry head = due().get(0);
+
+        storage.rescheduleOutboxEntry(head.getId(), 1, LocalDateTime.now().plusMinutes(5), "Discord unavailable");
+        List<OutboxEntry> due = due();
+
+        assertEquals(List.of(other.getInvoiceId()), due.stream().map(OutboxEntry::getInvoiceId).toList());
+        assertEquals(List.of(OutboxAction.INVOICE_MESSAGE_PAID), actions(due));
+
+        List<OutboxEntry> later = storage.getDueOutboxEntries(LocalDateTime.now().plusMinutes(10), 10);
+        OutboxEntry retried = later.stream()
+                .filter(entry -> entry.getInvoiceId().equals(blocked.getInvoiceId()))
+                .findFirst()
+                .orElseThrow();
+
+        assertEquals(head.getId(), retried.getId());
+        assertEquals(1, retried.getAttempts());
+    }
+
+    @Test
+    void respectsTheBatchLimit() {
+        UUID first = paid().getInvoiceId();
+        paid();
+        paid();
+
+        List<OutboxEntry> due = storage.getDueOutboxEntries(LocalDateTime.now(), 1);
+
+        assertEquals(List.of(first), due.stream().map(OutboxEntry::getInvoiceId).toList());
+    }
+
+    private Invoice paid() {
+        Invoice invoice = SQLiteStorageTest.invoice("user-1");
+        storage.createInvoice(invoice);
+        invoice.setStatus(PaymentStatus.PAID);
+        assertTrue(storage.updateInvoiceWithOutbox(invoice, OutboxDispatcher.entriesFor(invoice, PaymentStatus.PAID, null)));
+        return invoice;
+    }
+
+    private List<OutboxEntry> due() {
+        return storage.getDueOutboxEntries(LocalDateTime.now(), 10);
+    }
+
+    private static List<OutboxAction> actions(List<OutboxEntry> entries) {
+        return entries.stream().map(OutboxEntry::getAction).toList();
+    }
+}
@@ -0,0 +1,200 @@
+package net.kyver.invoices.data.storage;
+
+import net.kyver.invoices.data.InvoiceCursor;
+import net.kyver.invoices.data.InvoiceFilter;
+import net.kyver.invoices.data.InvoicePage;
+import net.kyver.invoices.enums.PaymentStatus;
+import net.kyver.invoices.model.Invoice;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SQLiteStorageTest {
+
+    @TempDir
+    File tempDir;
+
+    private SQLiteStorage storage;
+
+    @BeforeEach
+    void openStorage() {
+        storage = new SQLiteStorage(new File(tempDir, "invoices.db"));
+    }
+
+    @AfterEach
+    void closeStorage() {
+        storage.close();
+    }
+
+    @Test
+    void findsInvoiceByExternalPaymentId() {
+        Invoice paid = invoice("user-1");
+        paid.setExternalPaymentId("pi_123");
+        storage.createInvoice(paid);
+        storage.createInvoice(invoice("user-1"));
+
+        Invoice found = storage.getInvoiceByExternalPaymentId("pi_123");
+
+        assertEquals(paid.getInvoiceId(), found.getInvoiceId());
+        assertNull(storage.getInvoiceByExternalPaymentId("pi_missing"));
+    }
+
+    @Test
+    void externalPaymentIdFollowsUpdates() {
+        Invoice invoice = invoice("user-1");
+        storage.createInvoice(invoice);
+
+        invoice.setExternalPaymentId("PAYID-1");
+        storage.updateInvoice(invoice);
+
+        assertEquals(invoice.getInvoiceId(), storage.getInvoiceByExternalPaymentId("PAYID-1").getInvoiceId());
+    }
+
+    @Test
+    void pagesThroughInvoicesNewestFirstWithoutGapsOrRepeats() {
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 12, 0);
+        List<Invoice> expected = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            Invoice invoice = invoice("user-1");
+            invoice.setCreatedAt(base.plusMinutes(i / 2));
+            storage.createInvoice(invoice);
+            expected.add(invoice);
+        }
+        storage.createInvoice(invoice("user-2"));
+        expected.sort(Comparator.comparing(Invoice::getCreatedAt)
+                .thenComparing(invoice -> invoice.getInvoiceId().toString())
+                .reversed());
+
+        List<UUID> seen = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        InvoiceCursor cursor = null;
+        do {
+            InvoicePage page = storage.getInvoicesPage(InvoiceFilter.forUser("user-1"), cursor, 3);
+            page.getInvoices().forEach(invoice -> seen.add(invoice.getInvoiceId()));
+            pageSizes.add(page.getInvoices().size());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(List.of(3, 3, 1), pageSizes);
+        assertEquals(expected.stream().map(Invoice::getInvoiceId).toList(), seen);
+    }
+
+    @Test
+    void filtersPagesByStatus() {
+        Invoice paid = invoice("user-1");
+        paid.setStatus(PaymentStatus.PAID);
+        storage.createInvoice(paid);
+        storage.createInvoice(invoice("user-1"));
+
+        InvoicePage page = storage.getInvoicesPage(InvoiceFilter.forUser("user-1").withStatus(PaymentStatus.PAID), null, 10);
+
+        assertEquals(List.of(paid.getInvoiceId()), page.getInvoices().stream().map(Invoice::getInvoiceId).toList());
+        assertFalse(page.hasMore());
+    }
+
+    @Test
+    void streamsEveryInvoiceAcrossPages() {
+        Set<UUID> created = new HashSet<>();
+        for (int i = 0; i < 450; i++) {
+            Invoice invoice = invoice("user-" + (i % 3));
+            storage.createInvoice(invoice);
+            created.add(invoice.getInvoiceId());
+        }
+
+        List<UUID> streamed = new ArrayList<>();
+        storage.forEachInvoice(InvoiceFilter.all(), invoice -> {
+            streamed.add(invoice.getInvoiceId());
+            storage.updateInvoiceStatus(invoice.getInvoiceId(), PaymentStatus.CANCELLED);
+        });
+
+        assertEquals(450, streamed.size());
+        assertEquals(created, new HashSet<>(streamed));
+        assertEquals(450, storage.getInvoicesPage(InvoiceFilter.all().withStatus(PaymentStatus.CANCELLED), null, 1000)
+                .getInvoices().size());
+    }
+
+    @Test
+    void migratesAnExistingDatabaseWithDuplicateExternalIds() throws SQLException {
+        File dbFile = new File(tempDir, "existing.db");
+        UUID older = UUID.randomUUID();
+        UUID newer = UUID.randomUUID();
+        UUID other = UUID.randomUUID();
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + dbFile.getAbsolutePath());
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE invoices (invoice_id TEXT PRIMARY KEY, discord_user_id TEXT NOT NULL, " +
+                    "customer_email TEXT, customer_name TEXT, description TEXT, amount DECIMAL(10,2) NOT NULL, " +
+                    "currency TEXT NOT NULL, status TEXT NOT NULL, created_at DATETIME NOT NULL, " +
+                    "updated_at DATETIME NOT NULL, due_date DATETIME, payment_gateway TEXT, external_payment_id TEXT)");
+            statement.execute(legacyRow(older, "pi_dup", 1_000));
+            statement.execute(legacyRow(newer, "pi_dup", 2_000));
+            statement.execute(legacyRow(other, "pi_other", 1_000));
+        }
+
+        SQLiteStorage migrated = new SQLiteStorage(dbFile);
+        try {
+            assertEquals(newer, migrated.getInvoiceByExternalPaymentId("pi_dup").getInvoiceId());
+            assertNull(migrated.getInvoice(older).getExternalPaymentId());
+            assertEquals("pi_other", migrated.getInvoice(other).getExternalPaymentId());
+            assertEquals(older.toString(), migrated.getInvoiceIdByShortId(older.toString().substring(0, 8)));
+        } finally {
+            migrated.close();
+        }
+
+        SQLiteStorage reopened = new SQLiteStorage(dbFile);
+        try {
+            assertNotNull(reopened.getInvoice(newer));
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void failsFastWhenAMigrationFails() throws SQLException {
+        File dbFile = new File(tempDir, "broken.db");
+        String url = "jdbc:sqlite:" + dbFile.getAbsolutePath();
+        try (Connection connection = DriverManager.getConnection(url);
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE invoices (invoice_id TEXT PRIMARY KEY, external_payment_id TEXT, updated_at DATETIME)");
+        }
+
+        assertThrows(IllegalStateException.class, () -> new SQLiteStorage(dbFile));
+
+        try (Connection connection = DriverManager.getConnection(url);
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT MAX(version) FROM schema_version")) {
+            assertEquals(2, rs.getInt(1));
+        }
+    }
+
+    private static String legacyRow(UUID invoiceId, String externalPaymentId, long updatedAt) {
+        return "INSERT INTO invoices (invoice_id, discord_user_id, amount, currency, status, created_at, updated_at, " +
+                "external_payment_id) VALUES ('" + invoiceId + "', 'user-1', 10.00, 'USD', 'PENDING', " + updatedAt +
+                ", " + updatedAt + ", '" + externalPaymentId + "')";
+    }
+
+    static Invoice invoice(String discordUserId) {
+        return new Invoice(discordUserId, null, null, "Customer", "Test invoice", new BigDecimal("10.00"), "USD");
+    }
+}
@@ -0,0 +1,131 @@
+package net.kyver.invoices.data.storage;
+
+import net.kyver.invoices.enums.PaymentStatus;
+import net.kyver.invoices.model.Invoice;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WriteBehindStorageTest {
+
+    @TempDir
+    File tempDir;
+
+    private RecordingStorage delegate;
+    private WriteBehindStorage storage;
+
+    @BeforeEach
+    void openStorage() {
+        delegate = new RecordingStorage(new File(tempDir, "invoices.db"));
+        storage = new WriteBehindStorage(delegate, 60_000, 1000);
+    }
+
+    @AfterEach
+    void closeStorage() {
+        delegate.failing = null;
+        storage.close();
+    }
+
+    @Test
+    void coalescesRepeatedUpdatesIntoOneWrite() {
+        Invoice invoice = SQLiteStorageTest.invoice("user-1");
+        storage.createInvoice(invoice);
+
+        for (int i = 1; i <= 3; i++) {
+            invoice.setDescription("Revision " + i);
+            storage.updateInvoice(invoice);
+        }
+        storage.updateInvoiceStatus(invoice.getInvoiceId(), PaymentStatus.PAID);
+
+        assertEquals(PaymentStatus.PENDING, delegate.getInvoice(invoice.getInvoiceId()).getStatus());
+        assertEquals(PaymentStatus.PAID, storage.getInvoice(invoice.getInvoiceId()).getStatus());
+        assertEquals("Revision 3", storage.getInvoice(invoice.getInvoiceId()).getDescription());
+
+        storage.flush();
+
+        assertEquals(List.of(1), delegate.batchSizes);
+        Invoice stored = delegate.getInvoice(invoice.getInvoiceId());
+        assertEquals(PaymentStatus.PAID, stored.getStatus());
+        assertEquals("Revision 3", stored.getDescription());
+    }
+
+    @Test
+    void keepsFailingUpdatesPendingUntilTheyAreWritten() {
+        Invoice failing = SQLiteStorageTest.invoice("user-1");
+        Invoice healthy = SQLiteStorageTest.invoice("user-2");
+        storage.createInvoice(failing);
+        storage.createInvoice(healthy);
+        delegate.failing = failing.getInvoiceId();
+
+        storage.updateInvoiceStatus(failing.getInvoiceId(), PaymentStatus.PAID);
+        storage.updateInvoiceStatus(healthy.getInvoiceId(), PaymentStatus.PAID);
+        for (int i = 0; i < 10; i++) {
+            storage.flush();
+        }
+
+        assertEquals(PaymentStatus.PAID, delegate.getInvoice(healthy.getInvoiceId()).getStatus());
+        assertEquals(PaymentStatus.PENDING, delegate.getInvoice(failing.getInvoiceId()).getStatus());
+        assertEquals(PaymentStatus.PAID, storage.getInvoice(failing.getInvoiceId()).getStatus());
+        Map<String, Object> stats = storage.getStats();
+        assertEquals(1, stats.get("pending"));
+        assertEquals(1, stats.get("failing"));
+        assertEquals(10L, stats.get("write_failures"));
+
+        delegate.failing = null;
+        storage.flush();
+
+        assertEquals(PaymentStatus.PAID, delegate.getInvoice(failing.getInvoiceId()).getStatus());
+        assertEquals(0, storage.getStats().get("pending"));
+        assertEquals(0, storage.getStats().get("failing"));
+    }
+
+    @Test
+    void newerStatusReplacesAFailedUpdate() {
+        Invoice invoice = SQLiteStorageTest.invoice("user-1");
+        storage.createInvoice(invoice);
+        delegate.failing = invoice.getInvoiceId();
+
+        invoice.setDescription("Updated");
+        storage.updateInvoice(invoice);
+        storage.flush();
+        storage.updateInvoiceStatus(invoice.getInvoiceId(), PaymentStatus.CANCELLED);
+
+        delegate.failing = null;
+        storage.flush();
+
+        Invoice stored = delegate.getInvoice(invoice.getInvoiceId());
+        assertEquals("Updated", stored.getDescription());
+        assertEquals(PaymentStatus.CANCELLED, stored.getStatus());
+    }
+
+    private static class RecordingStorage extends SQLiteStorage {
+
+        private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        private volatile UUID failing;
+
+        private RecordingStorage(File dbFile) {
+            super(dbFile);
+        }
+
+        @Override
+        public boolean updateInvoicesBatch(Collection<Invoice> invoices, Map<UUID, PaymentStatus> statuses) {
+            batchSizes.add(invoices.size() + statuses.size());
+            UUID failingId = failing;
+            if (failingId != null && (statuses.containsKey(failingId)
+                    || invoices.stream().anyMatch(invoice -> invoice.getInvoiceId().equals(failingId)))) {
+                return false;
+            }
+            return super.updateInvoicesBatch(invoices, statuses);
+        }
+    }
+}
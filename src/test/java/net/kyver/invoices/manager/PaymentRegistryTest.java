@@ -0,0 +1,109 @@
+package net.kyver.invoices.manager;
+
+import net.kyver.invoices.enums.PaymentGateway;
+import net.kyver.invoices.model.Payment;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PaymentRegistryTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    @Test
+    void indexesPaymentsByExternalIdAndUser() {
+        PaymentRegistry registry = new PaymentRegistry(10);
+        Payment older = payment("user-a", "pi_1", 0);
+        Payment newer = payment("user-a", "pi_2", 5);
+        Payment other = payment("user-b", "pi_3", 1);
+        registry.put(older);
+        registry.put(newer);
+        registry.put(other);
+
+        assertSame(older, registry.getByExternalId("pi_1"));
+        assertEquals(List.of(newer, older), registry.getByUser("user-a"));
+        assertEquals(List.of(other), registry.getByUser("user-b"));
+        assertTrue(registry.getByUser("user-c").isEmpty());
+    }
+
+    @Test
+    void reindexesAChangedExternalId() {
+        PaymentRegistry registry = new PaymentRegistry(10);
+        Payment payment = payment("user-a", null, 0);
+        registry.put(payment);
+        assertNull(registry.getByExternalId("pi_1"));
+
+        payment.setExternalPaymentId("pi_1");
+        registry.put(payment);
+        payment.setExternalPaymentId("pi_2");
+        registry.put(payment);
+
+        assertNull(registry.getByExternalId("pi_1"));
+        assertSame(payment, registry.getByExternalId("pi_2"));
+    }
+
+    @Test
+    void replacingAPaymentDropsTheOldCopyFromIndexes() {
+        PaymentRegistry registry = new PaymentRegistry(10);
+        Payment original = payment("user-a", "pi_1", 0);
+        registry.put(original);
+
+        Payment replacement = payment("user-b", "pi_2", 0);
+        replacement.setPaymentId(original.getPaymentId());
+        registry.put(replacement);
+
+        assertEquals(1, registry.size());
+        assertTrue(registry.getByUser("user-a").isEmpty());
+        assertEquals(List.of(replacement), registry.getByUser("user-b"));
+        assertNull(registry.getByExternalId("pi_1"));
+        assertSame(replacement, registry.getByExternalId("pi_2"));
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedPaymentAndItsIndexes() {
+        PaymentRegistry registry = new PaymentRegistry(2);
+        Payment first = payment("user-a", "pi_1", 0);
+        Payment second = payment("user-a", "pi_2", 1);
+        Payment third = payment("user-b", "pi_3", 2);
+        registry.put(first);
+        registry.put(second);
+
+        registry.getByExternalId("pi_1");
+        registry.put(third);
+
+        assertEquals(2, registry.size());
+        assertNull(registry.get(second.getPaymentId()));
+        assertNull(registry.getByExternalId("pi_2"));
+        assertEquals(List.of(first), registry.getByUser("user-a"));
+        assertSame(first, registry.get(first.getPaymentId()));
+        assertSame(third, registry.getByExternalId("pi_3"));
+    }
+
+    @Test
+    void putIfAbsentKeepsTheExistingPayment() {
+        PaymentRegistry registry = new PaymentRegistry(10);
+        Payment existing = payment("user-a", "pi_1", 0);
+        registry.put(existing);
+
+        Payment duplicate = payment("user-a", "pi_1", 0);
+        duplicate.setPaymentId(existing.getPaymentId());
+
+        assertSame(existing, registry.putIfAbsent(duplicate));
+        assertSame(existing, registry.getByExternalId("pi_1"));
+    }
+
+    private static Payment payment(String discordUserId, String externalPaymentId, int minutes) {
+        Payment payment = new Payment(UUID.randomUUID(), discordUserId, PaymentGateway.STRIPE, new BigDecimal("10.00"), "USD");
+        payment.setExternalPaymentId(externalPaymentId);
+        payment.setCreatedAt(BASE.plusMinutes(minutes));
+        return payment;
+    }
+}